@@ -0,0 +1,37 @@
+package com.muninalert.backend_munin_alert.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * SPI for the bus that carries WebSocket messages between backend nodes.
+ *
+ * Each node sends a message to its own sessions and publishes it on the bus; the other
+ * nodes receive it and deliver it to their own sessions. A bus only has to deliver
+ * messages at least once; {@link ClusterFanout} drops duplicates, restores the order
+ * per destination and ignores the node's own messages.
+ *
+ * Implementations are selected with {@code munin.cluster.bus.type}.
+ */
+public interface ClusterBus extends AutoCloseable {
+
+    /**
+     * Publishes a message to the other nodes.
+     *
+     * @param message The message
+     */
+    void publish(ClusterMessage message);
+
+    /**
+     * Registers the listener receiving the messages of the other nodes. A bus has a
+     * single listener; registering another one replaces it.
+     *
+     * @param listener The listener
+     */
+    void subscribe(Consumer<ClusterMessage> listener);
+
+    /**
+     * Stops receiving messages and releases the bus's resources.
+     */
+    @Override
+    void close();
+}
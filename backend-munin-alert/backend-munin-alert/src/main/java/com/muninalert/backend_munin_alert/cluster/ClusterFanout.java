@@ -0,0 +1,287 @@
+package com.muninalert.backend_munin_alert.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muninalert.backend_munin_alert.config.ClusterBusProperties;
+import com.muninalert.backend_munin_alert.config.WebSocketBrokerProperties;
+
+/**
+ * Sends WebSocket messages to the sessions of this node and, through the {@link ClusterBus},
+ * to the sessions of all other nodes.
+ *
+ * Each node only ever delivers to its own sessions: a message is sent to the local broker
+ * and published on the bus, and the other nodes deliver what they receive to their local
+ * brokers. Messages of one node to one destination are numbered, so receivers drop
+ * duplicates (also by message ID) and deliver them in the order they were sent. A message
+ * that is missing holds back the later ones of its destination for at most the gap
+ * timeout, after which it is given up.
+ *
+ * Messages to a user destination are resolved on every node through Spring's user registry,
+ * which indexes the connected sessions by user, so each node only sends them to the sessions
+ * of that user it holds, if any.
+ *
+ * Without a bus (the default), or in broker relay mode where the external broker already
+ * reaches all nodes, messages are only sent to the local broker.
+ */
+@Component
+public class ClusterFanout {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterFanout.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ClusterBus bus;
+    private final ObjectMapper objectMapper;
+    private final ClusterBusProperties properties;
+    private final String nodeId;
+
+    // Seeds stream epochs so a restarted stream is always newer than the one it replaces
+    private final AtomicLong epochs = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final Map<String, OutboundStream> outbound = new ConcurrentHashMap<>();
+    private final Map<String, InboundStream> inbound = new ConcurrentHashMap<>();
+    private final Set<String> recentIds;
+
+    @Autowired
+    public ClusterFanout(SimpMessagingTemplate messagingTemplate,
+                         ObjectProvider<ClusterBus> bus,
+                         ObjectMapper objectMapper,
+                         ClusterBusProperties properties,
+                         WebSocketBrokerProperties brokerProperties) {
+        this(messagingTemplate, busFor(bus.getIfAvailable(), brokerProperties), objectMapper, properties);
+    }
+
+    /**
+     * Creates a fan-out on a bus.
+     *
+     * @param messagingTemplate The template sending to the local broker
+     * @param bus The bus to the other nodes, or null to send locally only
+     * @param objectMapper The mapper used to serialize payloads
+     * @param properties The cluster bus settings
+     */
+    public ClusterFanout(SimpMessagingTemplate messagingTemplate, ClusterBus bus, ObjectMapper objectMapper,
+                         ClusterBusProperties properties) {
+        this.messagingTemplate = messagingTemplate;
+        this.bus = bus;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.nodeId = properties.getNodeId() != null ? properties.getNodeId() : UUID.randomUUID().toString();
+        int dedupCapacity = Math.max(1, properties.getDedupCapacity());
+        this.recentIds = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupCapacity;
+            }
+        }));
+        if (bus != null) {
+            bus.subscribe(this::receive);
+            logger.info("Cluster fan-out of node {} enabled on {}", nodeId, bus.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Sends a message to the subscribers of a destination on all nodes.
+     *
+     * @param destination The STOMP destination
+     * @param payload The payload
+     */
+    public void send(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+        publish(null, destination, payload);
+    }
+
+    /**
+     * Sends a message to the sessions of a user on all nodes, e.g. {@code /queue/notifications}
+     * which the user's sessions subscribe to as {@code /user/queue/notifications}.
+     *
+     * @param userId The ID of the user
+     * @param destination The user destination, without the user destination prefix
+     * @param payload The payload
+     */
+    public void sendToUser(String userId, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(userId, destination, payload);
+        publish(userId, destination, payload);
+    }
+
+    /**
+     * Returns the ID of this node.
+     *
+     * @return The node ID
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Delivers a message received from another node to the local sessions, in order and
+     * at most once.
+     *
+     * @param message The message
+     */
+    void receive(ClusterMessage message) {
+        if (nodeId.equals(message.originNodeId()) || !recentIds.add(message.id())) {
+            return;
+        }
+
+        InboundStream stream = inbound.computeIfAbsent(message.originNodeId() + " " + streamKey(message.user(), message.destination()),
+                key -> new InboundStream());
+        synchronized (stream) {
+            stream.lastUsedAt = System.currentTimeMillis();
+            if (message.epoch() < stream.epoch) {
+                return;
+            }
+            if (message.epoch() > stream.epoch) {
+                // First message of a (new) stream: start from here
+                stream.epoch = message.epoch();
+                stream.expected = message.sequence();
+                stream.pending.clear();
+            }
+            if (message.sequence() < stream.expected) {
+                return;
+            }
+            stream.pending.put(message.sequence(), message);
+            deliverInOrder(stream);
+        }
+    }
+
+    /**
+     * Gives up on missing messages and forgets idle streams.
+     */
+    @Scheduled(fixedDelayString = "#{@clusterBusProperties.gapTimeout.toMillis()}")
+    public void maintain() {
+        maintain(System.currentTimeMillis());
+    }
+
+    /**
+     * Gives up on messages missing for longer than the gap timeout and forgets streams
+     * idle for longer than the idle timeout.
+     *
+     * @param now The current time in milliseconds
+     */
+    void maintain(long now) {
+        long gapTimeout = properties.getGapTimeout().toMillis();
+        long idleTimeout = properties.getStreamIdleTimeout().toMillis();
+        inbound.forEach((key, stream) -> {
+            synchronized (stream) {
+                if (!stream.pending.isEmpty() && now - stream.gapSince >= gapTimeout) {
+                    logger.debug("Skipping {} missing cluster messages of {}", stream.pending.firstKey() - stream.expected, key);
+                    stream.expected = stream.pending.firstKey();
+                    deliverInOrder(stream);
+                }
+                if (stream.pending.isEmpty() && now - stream.lastUsedAt >= idleTimeout) {
+                    inbound.remove(key, stream);
+                }
+            }
+        });
+        // A stream created again after eviction gets a new epoch, so receivers restart it
+        outbound.entrySet().removeIf(entry -> now - entry.getValue().lastUsedAt >= idleTimeout);
+    }
+
+    /**
+     * Helper method to publish a message to the other nodes, numbered in its stream.
+     *
+     * @param user The user the message is for, or null for a broadcast destination
+     * @param destination The STOMP destination
+     * @param payload The payload
+     */
+    private void publish(String user, String destination, Object payload) {
+        if (bus == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        OutboundStream stream = outbound.computeIfAbsent(streamKey(user, destination),
+                key -> new OutboundStream(epochs.incrementAndGet()));
+        try {
+            // Publish under the stream's lock so the bus sees the messages in sequence order
+            synchronized (stream) {
+                stream.lastUsedAt = now;
+                ClusterMessage message = new ClusterMessage(UUID.randomUUID().toString(), nodeId, destination, user,
+                        stream.epoch, ++stream.sequence, objectMapper.valueToTree(payload), now);
+                bus.publish(message);
+            }
+        } catch (Exception e) {
+            // Receivers skip the missing sequence number after the gap timeout
+            logger.warn("Failed to publish message for {} to the other nodes", destination, e);
+        }
+    }
+
+    /**
+     * Helper method to deliver the pending messages of a stream that are next in sequence.
+     * Must be called while holding the stream's lock.
+     *
+     * @param stream The stream
+     */
+    private void deliverInOrder(InboundStream stream) {
+        List<ClusterMessage> ready = new ArrayList<>();
+        ClusterMessage next;
+        while ((next = stream.pending.remove(stream.expected)) != null) {
+            ready.add(next);
+            stream.expected++;
+        }
+        if (stream.pending.isEmpty()) {
+            stream.gapSince = 0;
+        } else if (!ready.isEmpty() || stream.gapSince == 0) {
+            // Waiting for a (new) missing message
+            stream.gapSince = System.currentTimeMillis();
+        }
+        for (ClusterMessage message : ready) {
+            try {
+                if (message.user() != null) {
+                    // Resolved against the sessions of the user on this node
+                    messagingTemplate.convertAndSendToUser(message.user(), message.destination(), message.payload());
+                } else {
+                    messagingTemplate.convertAndSend(message.destination(), message.payload());
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to deliver cluster message {} to {}", message.id(), message.destination(), e);
+            }
+        }
+    }
+
+    private static String streamKey(String user, String destination) {
+        return user != null ? "user:" + user + destination : destination;
+    }
+
+    private static ClusterBus busFor(ClusterBus bus, WebSocketBrokerProperties brokerProperties) {
+        if (bus != null && brokerProperties.getMode() == WebSocketBrokerProperties.Mode.RELAY) {
+            logger.warn("Ignoring the cluster bus: the external broker relay already reaches all nodes");
+            return null;
+        }
+        return bus;
+    }
+
+    private static class OutboundStream {
+        private final long epoch;
+        private long sequence;
+        private long lastUsedAt;
+
+        OutboundStream(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private static class InboundStream {
+        private final TreeMap<Long, ClusterMessage> pending = new TreeMap<>();
+        private long epoch = Long.MIN_VALUE;
+        private long expected;
+        private long gapSince;
+        private long lastUsedAt;
+    }
+}
@@ -0,0 +1,26 @@
+package com.muninalert.backend_munin_alert.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A WebSocket message sent on one node, to be delivered to the local sessions of all
+ * other nodes.
+ *
+ * Messages of one origin node to one destination form a stream numbered by
+ * {@code sequence}. A node restarts a stream (e.g. after it was evicted for being
+ * idle) with a higher {@code epoch}, so receivers never mistake a new stream for
+ * duplicates of the old one. Messages to a user destination carry the user they are for
+ * and form a stream per user and destination.
+ *
+ * @param id Unique ID of the message, used for deduplication
+ * @param originNodeId ID of the node the message was sent on
+ * @param destination The STOMP destination, relative to the user destination prefix if {@code user} is set
+ * @param user ID of the user the message is for, or null for a broadcast destination
+ * @param epoch Incarnation of the origin's stream for this destination
+ * @param sequence Position of the message in the stream, starting at 1
+ * @param payload The message payload as JSON
+ * @param timestamp When the message was sent, in milliseconds since epoch
+ */
+public record ClusterMessage(String id, String originNodeId, String destination, String user, long epoch,
+                             long sequence, JsonNode payload, long timestamp) {
+}
@@ -0,0 +1,66 @@
+package com.muninalert.backend_munin_alert.cluster;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cluster bus connecting the nodes running in the same JVM on a named channel.
+ *
+ * Messages are handed to the listeners of the other members synchronously on the
+ * publishing thread. This is meant for tests and for running several application
+ * contexts in one process; it does not reach other processes.
+ */
+public class InJvmClusterBus implements ClusterBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(InJvmClusterBus.class);
+
+    private static final Map<String, Set<InJvmClusterBus>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+    private volatile Consumer<ClusterMessage> listener;
+
+    /**
+     * Creates a bus and joins a channel.
+     *
+     * @param channel The name of the channel shared by the nodes
+     */
+    public InJvmClusterBus(String channel) {
+        this.channel = channel;
+        CHANNELS.computeIfAbsent(channel, name -> new CopyOnWriteArraySet<>()).add(this);
+    }
+
+    @Override
+    public void publish(ClusterMessage message) {
+        for (InJvmClusterBus member : CHANNELS.getOrDefault(channel, Set.of())) {
+            Consumer<ClusterMessage> memberListener = member.listener;
+            if (member == this || memberListener == null) {
+                continue;
+            }
+            try {
+                memberListener.accept(message);
+            } catch (Exception e) {
+                logger.warn("Cluster bus member failed to handle message {}", message.id(), e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterMessage> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void close() {
+        listener = null;
+        CHANNELS.computeIfPresent(channel, (name, members) -> {
+            members.remove(this);
+            return members.isEmpty() ? null : members;
+        });
+    }
+}
@@ -0,0 +1,170 @@
+package com.muninalert.backend_munin_alert.cluster;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+
+/**
+ * Cluster bus on top of a MongoDB collection and a change stream.
+ *
+ * Every published message is inserted into the collection; every node watches the
+ * collection's inserts with a change stream and hands them to its listener. Documents
+ * are removed by a TTL index after a short time, so the collection stays small. The
+ * watcher resumes after errors from the last seen resume token, so no message is lost
+ * as long as it is still in the oplog. If it is not, the watcher logs the gap and starts
+ * over from the current end of the stream.
+ *
+ * Change streams require MongoDB to run as a replica set (a single-node replica set
+ * is enough).
+ */
+public class MongoChangeStreamClusterBus implements ClusterBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoChangeStreamClusterBus.class);
+
+    private static final long RETRY_DELAY_MILLIS = 1_000;
+
+    // ChangeStreamHistoryLost: the resume token is no longer in the oplog
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoCollection<Document> collection;
+    private final ObjectMapper objectMapper;
+
+    private volatile Consumer<ClusterMessage> listener;
+    private volatile boolean running;
+    private Thread watcher;
+    private BsonDocument resumeToken;
+
+    /**
+     * Creates a bus on a collection, creating its TTL index if needed.
+     *
+     * @param collection The collection carrying the messages
+     * @param objectMapper The mapper used to (de)serialize payloads
+     * @param messageTtl How long messages are kept in the collection
+     */
+    public MongoChangeStreamClusterBus(MongoCollection<Document> collection, ObjectMapper objectMapper, Duration messageTtl) {
+        this.collection = collection;
+        this.objectMapper = objectMapper;
+        try {
+            collection.createIndex(Indexes.ascending("createdAt"),
+                    new IndexOptions().name("createdAt_ttl").expireAfter(messageTtl.toSeconds(), TimeUnit.SECONDS));
+        } catch (Exception e) {
+            logger.warn("Failed to create TTL index on cluster bus collection {}", collection.getNamespace(), e);
+        }
+    }
+
+    @Override
+    public void publish(ClusterMessage message) {
+        try {
+            collection.insertOne(new Document("_id", message.id())
+                    .append("origin", message.originNodeId())
+                    .append("destination", message.destination())
+                    .append("user", message.user())
+                    .append("epoch", message.epoch())
+                    .append("sequence", message.sequence())
+                    .append("payload", objectMapper.writeValueAsString(message.payload()))
+                    .append("createdAt", new Date(message.timestamp())));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to publish cluster message " + message.id(), e);
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<ClusterMessage> listener) {
+        this.listener = listener;
+        if (watcher == null) {
+            running = true;
+            watcher = new Thread(this::watch, "cluster-bus-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Watches the collection's inserts until the bus is closed, reopening the change
+     * stream after errors.
+     */
+    private void watch() {
+        while (running) {
+            var changeStream = collection.watch(List.of(Aggregates.match(Filters.eq("operationType", "insert"))))
+                    .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (resumeToken != null) {
+                changeStream = changeStream.resumeAfter(resumeToken);
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changeStream.cursor()) {
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change == null) {
+                        continue;
+                    }
+                    resumeToken = change.getResumeToken();
+                    handle(change.getFullDocument());
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                if (e instanceof MongoCommandException commandException
+                        && commandException.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // Resuming would fail forever; messages published since the token are lost
+                    logger.error("Cluster bus resume token {} is no longer in the oplog, messages published "
+                            + "since then are lost; restarting the change stream from now", resumeToken, e);
+                    resumeToken = null;
+                    continue;
+                }
+                logger.warn("Cluster bus change stream failed, reopening in {} ms", RETRY_DELAY_MILLIS, e);
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handle(Document document) {
+        Consumer<ClusterMessage> currentListener = listener;
+        if (document == null || currentListener == null) {
+            return;
+        }
+        try {
+            currentListener.accept(new ClusterMessage(
+                    document.getString("_id"),
+                    document.getString("origin"),
+                    document.getString("destination"),
+                    document.getString("user"),
+                    document.getLong("epoch"),
+                    document.getLong("sequence"),
+                    objectMapper.readTree(document.getString("payload")),
+                    document.getDate("createdAt").getTime()));
+        } catch (Exception e) {
+            logger.warn("Failed to handle cluster message {}", document.get("_id"), e);
+        }
+    }
+}
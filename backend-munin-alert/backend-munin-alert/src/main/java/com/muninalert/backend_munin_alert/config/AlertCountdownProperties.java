@@ -0,0 +1,46 @@
+package com.muninalert.backend_munin_alert.config;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.Event;
+
+import lombok.Data;
+
+/**
+ * Server-side countdown before an alert is raised ({@code munin.alerts.countdown.*}).
+ * 
+ * Events of the configured types start a cancellable countdown instead of raising an
+ * alert straight away. The countdown is the shortest {@code GroupSettings.alertCountdownSeconds}
+ * of the user's groups, otherwise the default; a countdown of zero raises the alert at once.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "munin.alerts.countdown")
+public class AlertCountdownProperties {
+    
+    /** Whether alerts wait for a countdown (otherwise they are raised at once) */
+    private boolean enabled = true;
+    
+    /** Event types that start a countdown */
+    private Set<Event.EventType> eventTypes = EnumSet.of(
+            Event.EventType.FALL_DETECTED,
+            Event.EventType.COLLISION_DETECTED,
+            Event.EventType.RAPID_DECELERATION);
+    
+    /** Countdown of users who do not belong to any group */
+    private Duration defaultCountdown = Duration.ofSeconds(5);
+    
+    /** Tick of the timing wheel, i.e. the countdown resolution */
+    private Duration tick = Duration.ofMillis(250);
+    
+    /** Number of buckets per timing wheel level */
+    private int wheelSize = 512;
+    
+    /** Interval of the full rebuild that picks up countdowns of instances that went down */
+    private Duration resyncInterval = Duration.ofMinutes(1);
+}
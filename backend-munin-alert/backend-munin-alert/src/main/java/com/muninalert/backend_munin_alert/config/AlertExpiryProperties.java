@@ -0,0 +1,44 @@
+package com.muninalert.backend_munin_alert.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.Alert;
+
+import lombok.Data;
+
+/**
+ * Automatic expiry of active alerts ({@code munin.alerts.expiry.*}).
+ * 
+ * An active alert is moved to EXPIRED once it is older than the time-to-live that
+ * applies to it. The most specific setting wins: the alert's group setting
+ * ({@code GroupSettings.alertExpiryMinutes}), otherwise the per-type TTL, otherwise
+ * the default.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "munin.alerts.expiry")
+public class AlertExpiryProperties {
+    
+    /** Whether alerts are expired automatically */
+    private boolean enabled = true;
+    
+    /** Time-to-live of alerts not covered by a more specific setting */
+    private Duration defaultTtl = Duration.ofHours(24);
+    
+    /** Time-to-live per alert type */
+    private Map<Alert.AlertType, Duration> ttlByType = new LinkedHashMap<>();
+    
+    /** Tick of the timing wheel, i.e. the expiry resolution */
+    private Duration tick = Duration.ofSeconds(1);
+    
+    /** Number of buckets per timing wheel level */
+    private int wheelSize = 512;
+    
+    /** Interval of the full rebuild that picks up alerts created by other instances */
+    private Duration resyncInterval = Duration.ofMinutes(10);
+}
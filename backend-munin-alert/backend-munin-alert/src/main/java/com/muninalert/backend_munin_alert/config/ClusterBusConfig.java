@@ -0,0 +1,32 @@
+package com.muninalert.backend_munin_alert.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muninalert.backend_munin_alert.cluster.ClusterBus;
+import com.muninalert.backend_munin_alert.cluster.InJvmClusterBus;
+import com.muninalert.backend_munin_alert.cluster.MongoChangeStreamClusterBus;
+
+/**
+ * Creates the cluster bus selected by {@code munin.cluster.bus.type}. Without a bus
+ * (the default), WebSocket messages only reach the sessions of the sending node.
+ */
+@Configuration
+public class ClusterBusConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "munin.cluster.bus.type", havingValue = "in-jvm")
+    public ClusterBus inJvmClusterBus(ClusterBusProperties properties) {
+        return new InJvmClusterBus(properties.getChannel());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "munin.cluster.bus.type", havingValue = "mongo")
+    public ClusterBus mongoClusterBus(ClusterBusProperties properties, MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        return new MongoChangeStreamClusterBus(mongoTemplate.getCollection(properties.getCollection()),
+                objectMapper, properties.getMessageTtl());
+    }
+}
@@ -0,0 +1,46 @@
+package com.muninalert.backend_munin_alert.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Cross-node fan-out of WebSocket messages ({@code munin.cluster.bus.*}).
+ * 
+ * With a bus, every message sent through the WebSocket service is also published to
+ * the other nodes, which deliver it to their own sessions. This lets several nodes with
+ * the simple broker run behind a load balancer. It is not used in broker relay mode,
+ * where the external broker already reaches all nodes.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "munin.cluster.bus")
+public class ClusterBusProperties {
+    
+    /** Bus implementation: none, in-jvm or mongo (change stream, needs a replica set) */
+    private String type = "none";
+    
+    /** ID of this node (null = random per start) */
+    private String nodeId;
+    
+    /** Channel joined by the in-jvm bus */
+    private String channel = "munin";
+    
+    /** Collection carrying the messages of the mongo bus */
+    private String collection = "cluster_messages";
+    
+    /** How long the mongo bus keeps messages in its collection */
+    private Duration messageTtl = Duration.ofMinutes(1);
+    
+    /** How long a missing message holds back later ones of the same destination */
+    private Duration gapTimeout = Duration.ofSeconds(2);
+    
+    /** Per-destination streams without messages for this long are forgotten */
+    private Duration streamIdleTimeout = Duration.ofMinutes(10);
+    
+    /** Number of recent message IDs remembered for deduplication */
+    private int dedupCapacity = 10_000;
+}
@@ -0,0 +1,40 @@
+package com.muninalert.backend_munin_alert.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.Event;
+
+import lombok.Data;
+
+/**
+ * Retention policies for stored events ({@code munin.events.retention.*}).
+ * 
+ * An event is deleted once it is older than the maximum age that applies to it.
+ * The most specific policy wins: a per-user policy applies to all of that user's
+ * events, otherwise a per-type policy applies, otherwise the default.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "munin.events.retention")
+public class EventRetentionProperties {
+    
+    /** Whether the scheduled retention run is enabled */
+    private boolean enabled = false;
+    
+    /** Maximum age of events not covered by a more specific policy */
+    private Duration defaultMaxAge = Duration.ofDays(90);
+    
+    /** Maximum age per event type */
+    private Map<Event.EventType, Duration> maxAgeByType = new LinkedHashMap<>();
+    
+    /** Maximum age per user ID */
+    private Map<String, Duration> maxAgeByUser = new LinkedHashMap<>();
+    
+    /** Maximum number of events deleted per delete command */
+    private int chunkSize = 5000;
+}
@@ -0,0 +1,46 @@
+package com.muninalert.backend_munin_alert.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Coalescing of the location fan-out to {@code /topic/location/{userId}}
+ * ({@code munin.location.coalescing.*}).
+ * 
+ * Of the fixes a user reports within one window only the latest is forwarded, and
+ * only if it moved far enough from the last forwarded one (or the keep-alive has
+ * passed). Users who own an active alert get the shorter alert window.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "munin.location.coalescing")
+public class LocationCoalescingProperties {
+    
+    /** Whether updates are coalesced (otherwise every fix is forwarded at once) */
+    private boolean enabled = true;
+    
+    /** Minimum interval between two forwarded updates of a user */
+    private Duration window = Duration.ofSeconds(5);
+    
+    /** Minimum interval between two forwarded updates of a user with an active alert */
+    private Duration activeAlertWindow = Duration.ofSeconds(1);
+    
+    /** Fixes with a worse (larger) accuracy radius are dropped, in meters (0 = no limit) */
+    private double maxAccuracyMeters = 100;
+    
+    /** Fixes closer than this to the last forwarded one are suppressed, in meters */
+    private double minDistanceMeters = 10;
+    
+    /** An update is forwarded after this long even if the user has not moved */
+    private Duration keepAlive = Duration.ofSeconds(60);
+    
+    /** Interval at which pending updates are flushed */
+    private Duration tick = Duration.ofMillis(250);
+    
+    /** Users without updates for this long are forgotten */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+}
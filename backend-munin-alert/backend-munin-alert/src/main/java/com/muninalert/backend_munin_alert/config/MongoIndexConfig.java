@@ -0,0 +1,95 @@
+package com.muninalert.backend_munin_alert.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+
+/**
+ * Creates the MongoDB indexes declared on the model classes when the application starts.
+ *
+ * The indexes themselves are declared next to the fields they cover, with
+ * {@code @Indexed}, {@code @GeoSpatialIndexed} and {@code @CompoundIndex}; every derived
+ * and {@code @Query} repository method is expected to be served by one of them
+ * (see {@code QueryPlanIT}). This class resolves those declarations for every
+ * {@code @Document} entity and creates them explicitly, in one place and with logging,
+ * instead of relying on Spring Data's lazy auto index creation.
+ *
+ * Entities without index declarations are skipped, so their collections are not created
+ * here (the location history time-series collection is created by its own service).
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public MongoIndexConfig(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Creates all declared indexes once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        List<String> failed = ensureIndexes(mongoTemplate);
+        if (failed.isEmpty()) {
+            logger.info("MongoDB indexes are up to date");
+        } else {
+            logger.error("Failed to create MongoDB indexes: {}", failed);
+        }
+    }
+
+    /**
+     * Creates the indexes declared on every {@code @Document} entity known to the
+     * template's mapping context. Creating an index that already exists is a no-op.
+     *
+     * @param mongoTemplate The template to create the indexes with
+     * @return The names of the indexes that could not be created (empty on success)
+     */
+    public static List<String> ensureIndexes(MongoTemplate mongoTemplate) {
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        List<String> failed = new ArrayList<>();
+
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+
+            List<IndexDefinition> definitions = new ArrayList<>();
+            resolver.resolveIndexFor(entity.getTypeInformation()).forEach(definitions::add);
+            if (definitions.isEmpty()) {
+                continue;
+            }
+
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            for (IndexDefinition definition : definitions) {
+                try {
+                    indexOps.createIndex(definition);
+                } catch (Exception e) {
+                    String name = entity.getCollection() + "." + definition.getIndexOptions().getOrDefault("name", definition.getIndexKeys());
+                    logger.error("Failed to create index {}", name, e);
+                    failed.add(name);
+                }
+            }
+            logger.debug("Ensured {} indexes on {}", definitions.size(), entity.getCollection());
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,45 @@
+package com.muninalert.backend_munin_alert.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Location reporting intervals recommended to devices ({@code munin.location.sampling.*}).
+ * 
+ * The most urgent situation of a user decides the interval: owning an active alert,
+ * being inside or near an active risk area, reporting fixes with a poor accuracy,
+ * being inside a safe haven, or none of these (the default).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "munin.location.sampling")
+public class SamplingPolicyProperties {
+    
+    /** Whether sampling policies are pushed to devices */
+    private boolean enabled = true;
+    
+    /** Interval for users who own an active alert */
+    private Duration activeAlertInterval = Duration.ofSeconds(1);
+    
+    /** Interval for users inside or near an active risk area */
+    private Duration riskAreaInterval = Duration.ofSeconds(5);
+    
+    /** Interval for users in no particular situation */
+    private Duration defaultInterval = Duration.ofSeconds(30);
+    
+    /** Interval for users inside a safe haven */
+    private Duration safeHavenInterval = Duration.ofMinutes(5);
+    
+    /** Distance beyond a risk area's radius that still counts as near, in meters */
+    private double riskAreaMarginMeters = 500;
+    
+    /** Fixes with a larger accuracy radius are considered poor, in meters */
+    private double poorAccuracyMeters = 50;
+    
+    /** Users without location updates for this long are forgotten */
+    private Duration idleTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,16 @@
+package com.muninalert.backend_munin_alert.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables Spring's {@code @Scheduled} support for periodic background work,
+ * such as flushing buffered writes.
+ * 
+ * The tasks run on Spring Boot's scheduling pool, sized with
+ * {@code spring.task.scheduling.pool.size}.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
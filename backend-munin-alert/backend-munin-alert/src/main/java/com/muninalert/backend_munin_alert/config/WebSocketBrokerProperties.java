@@ -0,0 +1,54 @@
+package com.muninalert.backend_munin_alert.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Message broker behind the STOMP endpoint ({@code munin.websocket.broker.*}).
+ * 
+ * In SIMPLE mode (the default) subscriptions are held by an in-memory broker, so all
+ * clients must be connected to the same node. In RELAY mode {@code /topic} and
+ * {@code /queue} are relayed to an external STOMP broker (RabbitMQ, ActiveMQ Artemis),
+ * so several nodes can run behind a load balancer and a message sent on any node
+ * reaches the subscribers of all nodes. The broker must deliver {@code /topic} and
+ * {@code /queue} messages to every subscriber of the destination, as the simple broker does.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "munin.websocket.broker")
+public class WebSocketBrokerProperties {
+    
+    /** Which broker handles /topic and /queue */
+    private Mode mode = Mode.SIMPLE;
+    
+    /** Connection to the external broker (RELAY mode only) */
+    private Relay relay = new Relay();
+    
+    public enum Mode {
+        SIMPLE,
+        RELAY
+    }
+    
+    @Data
+    public static class Relay {
+        
+        /** Host of the external broker's STOMP acceptor */
+        private String host = "localhost";
+        
+        /** Port of the external broker's STOMP acceptor */
+        private int port = 61613;
+        
+        /** Credentials used for the connection of each client session */
+        private String clientLogin = "guest";
+        private String clientPasscode = "guest";
+        
+        /** Credentials of the shared connection used to send messages from the application */
+        private String systemLogin = "guest";
+        private String systemPasscode = "guest";
+        
+        /** Virtual host sent in the STOMP CONNECT frames (null = the relay host) */
+        private String virtualHost;
+    }
+}
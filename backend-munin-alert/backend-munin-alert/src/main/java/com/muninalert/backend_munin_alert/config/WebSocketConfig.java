@@ -1,11 +1,21 @@
 package com.muninalert.backend_munin_alert.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import com.muninalert.backend_munin_alert.security.StompAuthenticationInterceptor;
+import com.muninalert.backend_munin_alert.security.WebSocketSecurityConfig;
+
 /**
  * WebSocket Configuration for the Munin Alert application.
  * 
@@ -15,11 +25,32 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
  * 
  * The configuration uses STOMP (Simple Text Oriented Messaging Protocol) 
  * for WebSocket communication, which provides a structured messaging format.
+ * The broker is either in-memory or an external STOMP broker, see
+ * {@link WebSocketBrokerProperties}.
+ * 
+ * Sessions are authenticated with a JWT on CONNECT (see {@link StompAuthenticationInterceptor})
+ * and private messages use user destinations: a client subscribes to {@code /user/queue/...}
+ * and the server sends with {@code convertAndSendToUser}, which is resolved to the sessions
+ * of that user only. The interceptor runs before Spring Security's message authorization,
+ * so the CONNECT frame already carries the authenticated user.
  */
 @Configuration
 @EnableWebSocketMessageBroker
+@Order(Ordered.HIGHEST_PRECEDENCE + 99)
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
+
+    private final WebSocketBrokerProperties brokerProperties;
+    private final StompAuthenticationInterceptor stompAuthenticationInterceptor;
+
+    @Autowired
+    public WebSocketConfig(WebSocketBrokerProperties brokerProperties,
+                           StompAuthenticationInterceptor stompAuthenticationInterceptor) {
+        this.brokerProperties = brokerProperties;
+        this.stompAuthenticationInterceptor = stompAuthenticationInterceptor;
+    }
+
     /**
      * Configures the message broker for WebSocket communication.
      * 
@@ -27,14 +58,49 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple in-memory message broker with the following destination prefixes
+        // Broker destination prefixes:
         // - /topic: Used for public one-to-many messaging (e.g., broadcast alerts, group messages)
         // - /queue: Used for private one-to-one messaging (e.g., direct messages, user notifications)
-        config.enableSimpleBroker("/topic", "/queue");
+        if (brokerProperties.getMode() == WebSocketBrokerProperties.Mode.RELAY) {
+            // Relay to an external STOMP broker shared by all nodes
+            WebSocketBrokerProperties.Relay relay = brokerProperties.getRelay();
+            StompBrokerRelayRegistration registration = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relay.getHost())
+                    .setRelayPort(relay.getPort())
+                    .setClientLogin(relay.getClientLogin())
+                    .setClientPasscode(relay.getClientPasscode())
+                    .setSystemLogin(relay.getSystemLogin())
+                    .setSystemPasscode(relay.getSystemPasscode());
+            if (relay.getVirtualHost() != null) {
+                registration.setVirtualHost(relay.getVirtualHost());
+            }
+            // Share the sessions of each node's users, so user destinations resolve to
+            // sessions on any node, and hand unresolved ones to the other nodes
+            // (clients are denied access to both topics in WebSocketSecurityConfig)
+            registration.setUserRegistryBroadcast(WebSocketSecurityConfig.USER_REGISTRY_BROADCAST)
+                    .setUserDestinationBroadcast(WebSocketSecurityConfig.USER_DESTINATION_BROADCAST);
+            logger.info("Relaying STOMP broker destinations to {}:{}", relay.getHost(), relay.getPort());
+        } else {
+            // In-memory broker; subscriptions only reach clients of this node
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         
         // Set the prefix for messages bound for application handling
         // Client messages with destinations starting with /app will be routed to @MessageMapping methods
         config.setApplicationDestinationPrefixes("/app");
+        
+        // Client subscriptions to /user/queue/... are resolved to the session's own queue
+        config.setUserDestinationPrefix("/user");
+    }
+
+    /**
+     * Authenticates the CONNECT frame of each session.
+     * 
+     * @param registration The registration of the inbound client channel
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthenticationInterceptor);
     }
 
     /**
@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.muninalert.backend_munin_alert.dto.CursorPage;
 import com.muninalert.backend_munin_alert.model.Alert;
 import com.muninalert.backend_munin_alert.model.User;
 import com.muninalert.backend_munin_alert.service.AlertService;
@@ -61,6 +62,18 @@ public class AlertController {
         return ResponseEntity.ok(userAlerts);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Alert>> getAlertsPage(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "50") int limit) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        // One page of the alerts created by the current user, newest first
+        return ResponseEntity.ok(alertService.findAlertsPageByUserId(currentUser.getId(), cursor, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Alert> getAlertById(@PathVariable String id) {
         Alert alert = alertService.findAlertById(id)
@@ -68,6 +81,14 @@ public class AlertController {
         return ResponseEntity.ok(alert);
     }
 
+    @GetMapping("/{id}/responses")
+    public ResponseEntity<List<Alert.AlertResponse>> getAlertResponses(@PathVariable String id) {
+        alertService.findAlertById(id)
+                .orElseThrow(() -> new RuntimeException("Alert not found with id: " + id));
+        // Full history: responses moved out of the alert followed by the embedded ones
+        return ResponseEntity.ok(alertService.findAlertResponses(id));
+    }
+
     @GetMapping("/nearby")
     public ResponseEntity<List<Alert>> getNearbyAlerts(
             @RequestParam double latitude,
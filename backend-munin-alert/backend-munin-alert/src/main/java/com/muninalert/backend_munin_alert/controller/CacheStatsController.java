@@ -0,0 +1,58 @@
+package com.muninalert.backend_munin_alert.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.muninalert.backend_munin_alert.security.JwtTokenCache;
+import com.muninalert.backend_munin_alert.service.GroupMembershipIndex;
+import com.muninalert.backend_munin_alert.service.LocationUpdateCoalescer;
+import com.muninalert.backend_munin_alert.service.RecentEventsCache;
+import com.muninalert.backend_munin_alert.service.UserService;
+
+/**
+ * REST Controller exposing statistics of the in-process caches (admin only).
+ */
+@RestController
+@RequestMapping("/api/admin/caches")
+public class CacheStatsController {
+
+    private final UserService userService;
+    private final JwtTokenCache jwtTokenCache;
+    private final RecentEventsCache recentEventsCache;
+    private final GroupMembershipIndex groupMembershipIndex;
+    private final LocationUpdateCoalescer locationUpdateCoalescer;
+
+    public CacheStatsController(UserService userService, JwtTokenCache jwtTokenCache,
+                                RecentEventsCache recentEventsCache, GroupMembershipIndex groupMembershipIndex,
+                                LocationUpdateCoalescer locationUpdateCoalescer) {
+        this.userService = userService;
+        this.jwtTokenCache = jwtTokenCache;
+        this.recentEventsCache = recentEventsCache;
+        this.groupMembershipIndex = groupMembershipIndex;
+        this.locationUpdateCoalescer = locationUpdateCoalescer;
+    }
+
+    /**
+     * Get hit/miss statistics for the user and recent events caches, the sizes of the JWT
+     * cache and the group membership index, and the counters of the location coalescing stage.
+     *
+     * @return ResponseEntity containing the cache statistics
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", userService.getUserCacheStats());
+        stats.put("jwtTokens", Map.of("size", jwtTokenCache.size()));
+        stats.put("recentEvents", recentEventsCache.getStats());
+        stats.put("groupMembership", groupMembershipIndex.getStats());
+        stats.put("locationCoalescing", locationUpdateCoalescer.getStats());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -1,9 +1,14 @@
 package com.muninalert.backend_munin_alert.controller;
 
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -16,7 +21,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muninalert.backend_munin_alert.dto.BatchEventResponse;
+import com.muninalert.backend_munin_alert.dto.CursorPage;
 import com.muninalert.backend_munin_alert.model.Event;
 import com.muninalert.backend_munin_alert.model.User;
 import com.muninalert.backend_munin_alert.service.EventService;
@@ -34,17 +43,20 @@ public class EventController {
     
     private final EventService eventService;
     private final UserService userService;
+    private final ObjectMapper objectMapper;
     
     /**
      * Constructor for dependency injection.
      * 
      * @param eventService The service for event operations
      * @param userService The service for user operations
+     * @param objectMapper The mapper used to serialize exported events
      */
     @Autowired
-    public EventController(EventService eventService, UserService userService) {
+    public EventController(EventService eventService, UserService userService, ObjectMapper objectMapper) {
         this.eventService = eventService;
         this.userService = userService;
+        this.objectMapper = objectMapper;
     }
     
     /**
@@ -59,6 +71,57 @@ public class EventController {
         return ResponseEntity.ok(events);
     }
     
+    /**
+     * Get one page of all events, newest first, optionally filtered by user and type (admin only).
+     * 
+     * @param userId Only return events of this user (optional)
+     * @param type Only return events of this type (optional)
+     * @param cursor The cursor returned with the previous page (omit for the first page)
+     * @param limit The maximum number of items on the page (default: 50, max: 500)
+     * @return ResponseEntity containing the page of events
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<Event>> getEventsPage(@RequestParam(required = false) String userId,
+                                                           @RequestParam(required = false) Event.EventType type,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(eventService.findEventsPage(userId, type, cursor, limit));
+    }
+    
+    /**
+     * Export events as newline-delimited JSON, oldest first (admin only).
+     * 
+     * Events are written to the response one by one as they are read from the database
+     * cursor, so exports of any size run in bounded memory.
+     * 
+     * @param type Only export events of this type (optional)
+     * @param from Only export events at or after this timestamp in milliseconds (optional)
+     * @param to Only export events before this timestamp in milliseconds (optional)
+     * @param minConfidence Only export events with at least this confidence (optional)
+     * @return ResponseEntity streaming the events
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportEvents(@RequestParam(required = false) Event.EventType type,
+                                                              @RequestParam(required = false) Long from,
+                                                              @RequestParam(required = false) Long to,
+                                                              @RequestParam(required = false) Double minConfidence) {
+        StreamingResponseBody body = (OutputStream out) -> {
+            try (Stream<Event> events = eventService.streamEvents(type, from, to, minConfidence)) {
+                Iterator<Event> it = events.iterator();
+                while (it.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(it.next()));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"events.ndjson\"")
+                .body(body);
+    }
+    
     /**
      * Get a specific event by ID.
      * 
@@ -150,6 +213,22 @@ public class EventController {
         return ResponseEntity.ok(events);
     }
     
+    /**
+     * Get one page of the authenticated user's events, newest first.
+     * 
+     * @param type Only return events of this type (optional)
+     * @param cursor The cursor returned with the previous page (omit for the first page)
+     * @param limit The maximum number of items on the page (default: 50, max: 500)
+     * @return ResponseEntity containing the page of events
+     */
+    @GetMapping("/my-events/page")
+    public ResponseEntity<CursorPage<Event>> getMyEventsPage(@RequestParam(required = false) Event.EventType type,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "50") int limit) {
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(eventService.findEventsPage(currentUser.getId(), type, cursor, limit));
+    }
+    
     /**
      * Get the most recent events for the authenticated user.
      * 
@@ -166,8 +245,12 @@ public class EventController {
     /**
      * Create a new event and process it.
      * 
+     * The response is sent as soon as the event is stored; alerts and location
+     * updates triggered by the event are processed asynchronously. Returns 503
+     * with a Retry-After header when the processing pipeline is saturated.
+     * 
      * @param event The event to create
-     * @return ResponseEntity containing the created and processed event
+     * @return ResponseEntity containing the stored event
      */
     @PostMapping
     public ResponseEntity<Event> createEvent(@RequestBody Event event) {
@@ -177,9 +260,47 @@ public class EventController {
             event.setUserId(currentUser.getId());
         }
         
-        // Process the event (this will save it and take appropriate actions)
-        Event processedEvent = eventService.processNewEvent(event);
-        return ResponseEntity.status(HttpStatus.CREATED).body(processedEvent);
+        // Process the event (this will save it and queue the follow-up actions)
+        Event acceptedEvent = eventService.processNewEvent(event);
+        return ResponseEntity.status(HttpStatus.CREATED).body(acceptedEvent);
+    }
+    
+    /**
+     * Create and process a batch of events, e.g. sensor events buffered by a device while
+     * it was offline.
+     * 
+     * Events without a user ID are assigned to the authenticated user. Each event is
+     * validated on its own, so the response reports per event whether it was accepted
+     * (with its new ID) or rejected (with the reason). Returns 400 if the batch is empty
+     * or too large, and 503 with a Retry-After header when the processing pipeline is
+     * saturated.
+     * 
+     * @param events The events to create
+     * @return ResponseEntity containing the per-event results
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createEventBatch(@RequestBody List<Event> events) {
+        if (events == null || events.isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one event is required");
+        }
+        
+        // Ensure user ID is set to the authenticated user if not provided
+        String currentUserId = null;
+        for (Event event : events) {
+            if (event != null && (event.getUserId() == null || event.getUserId().isEmpty())) {
+                if (currentUserId == null) {
+                    currentUserId = getCurrentUser().getId();
+                }
+                event.setUserId(currentUserId);
+            }
+        }
+        
+        try {
+            BatchEventResponse response = eventService.processEventBatch(events);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
     
     /**
@@ -1,8 +1,11 @@
 package com.muninalert.backend_munin_alert.controller;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -16,6 +19,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.muninalert.backend_munin_alert.dto.GroupMembersRequest;
 import com.muninalert.backend_munin_alert.model.Group;
 import com.muninalert.backend_munin_alert.model.User;
 import com.muninalert.backend_munin_alert.service.GroupService;
@@ -28,6 +32,9 @@ public class GroupController {
     private final GroupService groupService;
     private final UserService userService;
 
+    @Value("${munin.groups.members.bulk.max-size:1000}")
+    private int bulkMaxSize;
+
     @Autowired
     public GroupController(GroupService groupService, UserService userService) {
         this.groupService = groupService;
@@ -41,6 +48,10 @@ public class GroupController {
         User currentUser = userService.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
+        if (!hasValidSettings(group)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
         // Set the creator of the group
         group.setOwnerId(currentUser.getId());
         // Add the creator to the members list
@@ -75,7 +86,7 @@ public class GroupController {
                 .orElseThrow(() -> new RuntimeException("Group not found with id: " + id));
         
         // Check if the user is a member of the group
-        if (!group.getMemberIds().contains(currentUser.getId())) {
+        if (!groupService.isMember(id, currentUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         
@@ -93,11 +104,14 @@ public class GroupController {
                 .orElseThrow(() -> new RuntimeException("Group not found with id: " + id));
         
         // Check if the current user is the owner or an admin of the group
-        if (!existingGroup.getOwnerId().equals(currentUser.getId()) && 
-            !existingGroup.getAdminIds().contains(currentUser.getId())) {
+        if (!groupService.isOwnerOrAdmin(id, currentUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         
+        if (!hasValidSettings(groupDetails)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
         // Preserve owner and ID
         groupDetails.setId(id);
         groupDetails.setOwnerId(existingGroup.getOwnerId());
@@ -117,8 +131,7 @@ public class GroupController {
                 .orElseThrow(() -> new RuntimeException("Group not found with id: " + id));
         
         // Check if the current user is the owner or an admin of the group
-        if (!existingGroup.getOwnerId().equals(currentUser.getId()) && 
-            !existingGroup.getAdminIds().contains(currentUser.getId())) {
+        if (!groupService.isOwnerOrAdmin(id, currentUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         
@@ -141,8 +154,7 @@ public class GroupController {
                 .orElseThrow(() -> new RuntimeException("Group not found with id: " + id));
         
         // Check if the current user is the owner/admin of the group or the user is removing themself
-        if (!existingGroup.getOwnerId().equals(currentUser.getId()) && 
-            !existingGroup.getAdminIds().contains(currentUser.getId()) && 
+        if (!groupService.isOwnerOrAdmin(id, currentUser.getId()) && 
             !userId.equals(currentUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
@@ -157,6 +169,66 @@ public class GroupController {
         return ResponseEntity.ok(updatedGroup);
     }
 
+    @PostMapping("/{id}/members/bulk")
+    public ResponseEntity<?> addMembersToGroup(@PathVariable String id, @RequestBody GroupMembersRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        groupService.findGroupById(id)
+                .orElseThrow(() -> new RuntimeException("Group not found with id: " + id));
+        
+        // Check if the current user is the owner or an admin of the group
+        if (!groupService.isOwnerOrAdmin(id, currentUser.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        Set<String> userIds = validateBulkUserIds(request);
+        if (userIds == null) {
+            return ResponseEntity.badRequest().body("Between 1 and " + bulkMaxSize + " user IDs are required");
+        }
+        
+        // Verify all users exist with a single lookup
+        Set<String> missing = new LinkedHashSet<>(userIds);
+        missing.removeAll(userService.findExistingUserIds(userIds));
+        if (!missing.isEmpty()) {
+            return ResponseEntity.badRequest().body("Users not found: " + missing);
+        }
+        
+        Group updatedGroup = groupService.addMembersToGroup(id, userIds);
+        return ResponseEntity.ok(updatedGroup);
+    }
+
+    @PostMapping("/{id}/members/bulk-remove")
+    public ResponseEntity<?> removeMembersFromGroup(@PathVariable String id, @RequestBody GroupMembersRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        User currentUser = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        Group existingGroup = groupService.findGroupById(id)
+                .orElseThrow(() -> new RuntimeException("Group not found with id: " + id));
+        
+        // Check if the current user is the owner or an admin of the group
+        if (!groupService.isOwnerOrAdmin(id, currentUser.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        Set<String> userIds = validateBulkUserIds(request);
+        if (userIds == null) {
+            return ResponseEntity.badRequest().body("Between 1 and " + bulkMaxSize + " user IDs are required");
+        }
+        
+        // Don't allow removing the owner
+        if (userIds.contains(existingGroup.getOwnerId())) {
+            return ResponseEntity.badRequest().body("The group owner cannot be removed");
+        }
+        
+        Group updatedGroup = groupService.removeMembersFromGroup(id, userIds);
+        return ResponseEntity.ok(updatedGroup);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteGroup(@PathVariable String id) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -175,4 +247,34 @@ public class GroupController {
         groupService.deleteGroup(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Helper method to check the settings of a created or updated group.
+     * 
+     * @param group The group as sent by the client
+     * @return false if the alert expiry override is set but not positive
+     */
+    private boolean hasValidSettings(Group group) {
+        Integer alertExpiryMinutes = group.getSettings() != null ? group.getSettings().getAlertExpiryMinutes() : null;
+        return alertExpiryMinutes == null || alertExpiryMinutes > 0;
+    }
+
+    /**
+     * Helper method to deduplicate the user IDs of a bulk membership request.
+     * 
+     * @param request The bulk membership request
+     * @return The distinct, non-blank user IDs, or null if there are none or too many
+     */
+    private Set<String> validateBulkUserIds(GroupMembersRequest request) {
+        if (request == null || request.getUserIds() == null) {
+            return null;
+        }
+        Set<String> userIds = new LinkedHashSet<>();
+        for (String userId : request.getUserIds()) {
+            if (userId != null && !userId.isBlank()) {
+                userIds.add(userId);
+            }
+        }
+        return userIds.isEmpty() || userIds.size() > bulkMaxSize ? null : userIds;
+    }
 }
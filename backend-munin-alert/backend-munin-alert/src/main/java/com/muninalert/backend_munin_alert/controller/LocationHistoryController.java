@@ -0,0 +1,190 @@
+package com.muninalert.backend_munin_alert.controller;
+
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.model.LocationPoint;
+import com.muninalert.backend_munin_alert.model.User;
+import com.muninalert.backend_munin_alert.service.AlertService;
+import com.muninalert.backend_munin_alert.service.GroupService;
+import com.muninalert.backend_munin_alert.service.LocationHistoryService;
+import com.muninalert.backend_munin_alert.service.UserService;
+
+/**
+ * REST Controller for replaying location history.
+ * 
+ * Tracks are streamed as newline-delimited JSON (one location point per line, oldest
+ * first) straight from the database cursor, so long tracks are never buffered in memory.
+ */
+@RestController
+@RequestMapping("/api/location-history")
+public class LocationHistoryController {
+    
+    private static final long DEFAULT_RANGE_MILLIS = 24 * 60 * 60 * 1000L;
+    
+    private final LocationHistoryService locationHistoryService;
+    private final AlertService alertService;
+    private final GroupService groupService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * Constructor for dependency injection.
+     * 
+     * @param locationHistoryService The service for location history
+     * @param alertService The service for alert operations
+     * @param groupService The service for group operations
+     * @param userService The service for user operations
+     * @param objectMapper The mapper used to serialize streamed points
+     */
+    @Autowired
+    public LocationHistoryController(LocationHistoryService locationHistoryService,
+                                     AlertService alertService,
+                                     GroupService groupService,
+                                     UserService userService,
+                                     ObjectMapper objectMapper) {
+        this.locationHistoryService = locationHistoryService;
+        this.alertService = alertService;
+        this.groupService = groupService;
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Stream the authenticated user's track.
+     * 
+     * @param from The start of the range in milliseconds (default: 24 hours ago)
+     * @param to The end of the range in milliseconds (default: now)
+     * @return ResponseEntity streaming the location points
+     */
+    @GetMapping("/me")
+    public ResponseEntity<StreamingResponseBody> getMyTrack(@RequestParam(required = false) Long from,
+                                                            @RequestParam(required = false) Long to) {
+        User currentUser = getCurrentUser();
+        return streamTrack(currentUser.getId(), from, to);
+    }
+    
+    /**
+     * Stream a user's track (the user themselves or admin only).
+     * 
+     * @param userId The ID of the user
+     * @param from The start of the range in milliseconds (default: 24 hours ago)
+     * @param to The end of the range in milliseconds (default: now)
+     * @return ResponseEntity streaming the location points, or 403 if access is denied
+     */
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<StreamingResponseBody> getUserTrack(@PathVariable String userId,
+                                                              @RequestParam(required = false) Long from,
+                                                              @RequestParam(required = false) Long to) {
+        User currentUser = getCurrentUser();
+        if (!currentUser.getId().equals(userId) && !isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return streamTrack(userId, from, to);
+    }
+    
+    /**
+     * Stream the track of the user who raised an alert, from the alert's creation until now.
+     * Available to the alert's owner, the members of the alert's group and admins.
+     * 
+     * @param alertId The ID of the alert
+     * @return ResponseEntity streaming the location points, 404 if the alert does not exist
+     *         or 403 if access is denied
+     */
+    @GetMapping("/alerts/{alertId}")
+    public ResponseEntity<StreamingResponseBody> getAlertTrack(@PathVariable String alertId) {
+        Optional<Alert> alert = alertService.findAlertById(alertId);
+        if (alert.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        User currentUser = getCurrentUser();
+        if (!canViewAlert(alert.get(), currentUser.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return stream(() -> locationHistoryService.streamTrackSinceAlert(alertId));
+    }
+    
+    /**
+     * Helper method to stream a user's track within an optional time range.
+     */
+    private ResponseEntity<StreamingResponseBody> streamTrack(String userId, Long from, Long to) {
+        long now = System.currentTimeMillis();
+        Instant start = Instant.ofEpochMilli(from != null ? from : now - DEFAULT_RANGE_MILLIS);
+        Instant end = to != null ? Instant.ofEpochMilli(to) : null;
+        return stream(() -> locationHistoryService.streamTrack(userId, start, end));
+    }
+    
+    /**
+     * Helper method to write a stream of points as newline-delimited JSON.
+     * The database cursor is opened and closed on the response thread.
+     */
+    private ResponseEntity<StreamingResponseBody> stream(Supplier<Stream<LocationPoint>> points) {
+        StreamingResponseBody body = (OutputStream out) -> {
+            try (Stream<LocationPoint> stream = points.get()) {
+                Iterator<LocationPoint> it = stream.iterator();
+                while (it.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(it.next()));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
+    /**
+     * Helper method to check if a user may view the track of an alert.
+     */
+    private boolean canViewAlert(Alert alert, String userId) {
+        if (userId.equals(alert.getUserId()) || isAdmin()) {
+            return true;
+        }
+        if (alert.getGroupId() == null) {
+            return false;
+        }
+        return groupService.isMember(alert.getGroupId(), userId);
+    }
+    
+    /**
+     * Helper method to check if the authenticated user has the admin role.
+     */
+    private boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+    
+    /**
+     * Helper method to get the currently authenticated user.
+     * 
+     * @return The current user
+     * @throws RuntimeException if the user is not found
+     */
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        return userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+}
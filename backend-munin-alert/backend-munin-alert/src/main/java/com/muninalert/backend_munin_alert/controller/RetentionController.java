@@ -0,0 +1,52 @@
+package com.muninalert.backend_munin_alert.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.muninalert.backend_munin_alert.dto.RetentionRunReport;
+import com.muninalert.backend_munin_alert.service.EventRetentionService;
+
+/**
+ * REST Controller for inspecting and triggering data retention runs (admin only).
+ */
+@RestController
+@RequestMapping("/api/admin/retention")
+public class RetentionController {
+
+    private final EventRetentionService eventRetentionService;
+
+    public RetentionController(EventRetentionService eventRetentionService) {
+        this.eventRetentionService = eventRetentionService;
+    }
+
+    /**
+     * Get the report of the last event retention run.
+     *
+     * @return ResponseEntity containing the report, or 204 if retention has not run yet
+     */
+    @GetMapping("/events")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RetentionRunReport> getLastEventRetentionReport() {
+        return eventRetentionService.getLastReport()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.noContent().build());
+    }
+
+    /**
+     * Run event retention now, regardless of whether the scheduled run is enabled.
+     *
+     * @return ResponseEntity containing the report, or 409 if a run is already in progress
+     */
+    @PostMapping("/events/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RetentionRunReport> runEventRetention() {
+        return eventRetentionService.runRetention()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.muninalert.backend_munin_alert.dto.CursorPage;
 import com.muninalert.backend_munin_alert.model.RiskAlert;
 import com.muninalert.backend_munin_alert.service.RiskAlertService;
 
@@ -52,6 +53,19 @@ public class RiskAlertController {
         return ResponseEntity.ok(riskAlerts);
     }
     
+    /**
+     * Get one page of risk alerts, newest first.
+     * 
+     * @param cursor The cursor returned with the previous page (omit for the first page)
+     * @param limit The maximum number of items on the page (default: 50, max: 500)
+     * @return ResponseEntity containing the page of risk alerts
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<RiskAlert>> getRiskAlertsPage(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(riskAlertService.findRiskAlertsPage(cursor, limit));
+    }
+    
     /**
      * Get a specific risk alert by ID.
      * 
@@ -18,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.muninalert.backend_munin_alert.dto.CursorPage;
 import com.muninalert.backend_munin_alert.model.SafeHaven;
 import com.muninalert.backend_munin_alert.model.User;
 import com.muninalert.backend_munin_alert.service.SafeHavenService;
@@ -60,6 +61,20 @@ public class SafeHavenController {
         return ResponseEntity.ok(safeHavens);
     }
     
+    /**
+     * Get one page of all safe havens, newest first (admin only).
+     * 
+     * @param cursor The cursor returned with the previous page (omit for the first page)
+     * @param limit The maximum number of items on the page (default: 50, max: 500)
+     * @return ResponseEntity containing the page of safe havens
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<SafeHaven>> getSafeHavensPage(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(safeHavenService.findSafeHavensPage(null, cursor, limit));
+    }
+    
     /**
      * Get a specific safe haven by ID.
      * 
@@ -86,6 +101,20 @@ public class SafeHavenController {
         return ResponseEntity.ok(userSafeHavens);
     }
     
+    /**
+     * Get one page of the safe havens created by the authenticated user, newest first.
+     * 
+     * @param cursor The cursor returned with the previous page (omit for the first page)
+     * @param limit The maximum number of items on the page (default: 50, max: 500)
+     * @return ResponseEntity containing the page of safe havens
+     */
+    @GetMapping("/my-safe-havens/page")
+    public ResponseEntity<CursorPage<SafeHaven>> getMySafeHavensPage(@RequestParam(required = false) String cursor,
+                                                                     @RequestParam(defaultValue = "50") int limit) {
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(safeHavenService.findSafeHavensPage(currentUser.getId(), cursor, limit));
+    }
+    
     /**
      * Get safe havens for a specific group.
      * 
@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.muninalert.backend_munin_alert.dto.ChangePasswordRequest;
 import com.muninalert.backend_munin_alert.model.User;
+import com.muninalert.backend_munin_alert.service.GeofenceService;
 import com.muninalert.backend_munin_alert.service.UserService;
 
 @RestController
@@ -22,10 +23,12 @@ public class UserController {
 
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
+    private final GeofenceService geofenceService;
 
-    public UserController(UserService userService, PasswordEncoder passwordEncoder) {
+    public UserController(UserService userService, PasswordEncoder passwordEncoder, GeofenceService geofenceService) {
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
+        this.geofenceService = geofenceService;
     }
 
     @GetMapping("/me")
@@ -109,6 +112,7 @@ public class UserController {
         }
         
         userService.deleteUser(id);
+        geofenceService.clearUserState(id);
         return ResponseEntity.ok().build();
     }
 }
@@ -7,44 +7,89 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Controller;
 
 import com.muninalert.backend_munin_alert.model.Alert;
 import com.muninalert.backend_munin_alert.model.Location;
 import com.muninalert.backend_munin_alert.service.AlertService;
+import com.muninalert.backend_munin_alert.service.GeofenceService;
+import com.muninalert.backend_munin_alert.service.LocationHistoryService;
+import com.muninalert.backend_munin_alert.service.LocationUpdateCoalescer;
+import com.muninalert.backend_munin_alert.service.PendingAlertScheduler;
+import com.muninalert.backend_munin_alert.service.SamplingPolicyService;
+import com.muninalert.backend_munin_alert.service.WebSocketService;
 
 /**
  * Controller for handling WebSocket messages in the Munin Alert application.
  * 
  * This controller handles incoming WebSocket messages from clients and routes them
- * to the appropriate services or directly back to subscribers. It provides endpoints
- * for alerts, location updates, and group messaging.
+ * to the appropriate services or back to subscribers. It provides endpoints for alerts,
+ * location updates, and group messaging. Everything sent to subscribers goes through the
+ * {@link WebSocketService}, so it reaches the sessions of all nodes.
  */
 @Controller
 public class WebSocketController {
 
     /**
-     * Messaging template for sending WebSocket messages to clients.
+     * Service for sending WebSocket messages to clients.
      */
-    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketService webSocketService;
     
     /**
      * Service for alert-related operations.
      */
     private final AlertService alertService;
+    
+    /**
+     * Service for detecting safe haven and risk area transitions.
+     */
+    private final GeofenceService geofenceService;
+    
+    /**
+     * Service for recording location history.
+     */
+    private final LocationHistoryService locationHistoryService;
+    
+    /**
+     * Scheduler running the countdown of pending alerts.
+     */
+    private final PendingAlertScheduler pendingAlertScheduler;
+    
+    /**
+     * Coalescing stage of the location fan-out.
+     */
+    private final LocationUpdateCoalescer locationUpdateCoalescer;
+    
+    /**
+     * Service recommending location reporting intervals to devices.
+     */
+    private final SamplingPolicyService samplingPolicyService;
 
     /**
      * Constructor for dependency injection.
      * 
-     * @param messagingTemplate The Spring messaging template for WebSocket communication
+     * @param webSocketService The service for sending WebSocket messages
      * @param alertService The service for alert-related operations
+     * @param geofenceService The service for geofence transitions
+     * @param locationHistoryService The service for recording location history
+     * @param pendingAlertScheduler The scheduler running alert countdowns
+     * @param locationUpdateCoalescer The coalescing stage of the location fan-out
+     * @param samplingPolicyService The service recommending location reporting intervals
      */
     @Autowired
-    public WebSocketController(SimpMessagingTemplate messagingTemplate, AlertService alertService) {
-        this.messagingTemplate = messagingTemplate;
+    public WebSocketController(WebSocketService webSocketService, AlertService alertService,
+                               GeofenceService geofenceService, LocationHistoryService locationHistoryService,
+                               PendingAlertScheduler pendingAlertScheduler,
+                               LocationUpdateCoalescer locationUpdateCoalescer,
+                               SamplingPolicyService samplingPolicyService) {
+        this.webSocketService = webSocketService;
         this.alertService = alertService;
+        this.geofenceService = geofenceService;
+        this.locationHistoryService = locationHistoryService;
+        this.pendingAlertScheduler = pendingAlertScheduler;
+        this.locationUpdateCoalescer = locationUpdateCoalescer;
+        this.samplingPolicyService = samplingPolicyService;
     }
 
     /**
@@ -55,35 +100,54 @@ public class WebSocketController {
      * 
      * @param alert The alert object sent by the client
      * @param principal The security principal representing the authenticated user
-     * @return The alert object to be broadcast to subscribers
      */
     @MessageMapping("/alert")
-    @SendTo("/topic/alerts")
-    public Alert broadcastAlert(@Payload Alert alert, Principal principal) {
+    public void broadcastAlert(@Payload Alert alert, Principal principal) {
         // The alert is already processed by the controller before being sent here
-        return alert;
+        webSocketService.sendToDestination("/topic/alerts", alert);
     }
     
     /**
      * Handles incoming location updates from clients and forwards them to subscribers.
      * 
      * This endpoint receives location updates for a specific user at /app/location/{userId}
-     * and forwards them to subscribers of /topic/location/{userId}.
+     * and forwards them to subscribers of /topic/location/{userId} through the coalescing
+     * stage, which forwards at most the latest fix per window. The location is
+     * also run through the geofence engine, which pushes ENTER/EXIT transitions for
+     * safe havens and risk areas to the user, used to update the user's sampling policy,
+     * and recorded in the location history. Users can only report their own location.
      * 
      * @param userId The ID of the user whose location is being updated
      * @param location The location object containing the user's position
+     * @param principal The security principal of the session, named by the user's ID
+     * @throws AccessDeniedException if the location is sent for another user
      */
     @MessageMapping("/location/{userId}")
-    public void updateLocation(@DestinationVariable String userId, @Payload Location location) {
-        // Send to subscribers of this user's location
-        messagingTemplate.convertAndSend("/topic/location/" + userId, location);
+    public void updateLocation(@DestinationVariable String userId, @Payload Location location, Principal principal) {
+        if (principal == null || !principal.getName().equals(userId)) {
+            throw new AccessDeniedException("Cannot report the location of another user");
+        }
+        
+        // Send to subscribers of this user's location (coalesced per window)
+        locationUpdateCoalescer.offer(userId, location);
+        
+        // Detect safe haven / risk area transitions for the new location
+        geofenceService.evaluateLocation(userId, location);
+        
+        // Recommend a new reporting interval if the user's situation changed
+        samplingPolicyService.evaluate(userId, location);
+        
+        // Append to the user's track (buffered, written in batches)
+        locationHistoryService.record(userId, location);
     }
     
     /**
      * Handles incoming responses to alerts and updates the alert's response list.
      * 
      * This endpoint receives responses to a specific alert at /app/alert/response/{alertId},
-     * updates the alert in the database, and notifies relevant subscribers.
+     * appends the response to the alert in the database, and notifies relevant subscribers.
+     * Only the most recent responses stay embedded in the alert; older ones are moved to
+     * the alert_responses collection.
      * 
      * @param alertId The ID of the alert being responded to
      * @param response The response object containing the user's response to the alert
@@ -91,25 +155,34 @@ public class WebSocketController {
      */
     @MessageMapping("/alert/response/{alertId}")
     public void respondToAlert(@DestinationVariable String alertId, @Payload Alert.AlertResponse response, Principal principal) {
-        // Update the alert with the response
-        Alert alert = alertService.findAlertById(alertId).orElse(null);
-        if (alert != null) {
-            // Add the response to the alert's responses list
-            alert.getResponses().add(response);
-            
-            // Update the alert in the database
-            Alert updatedAlert = alertService.updateAlert(alert);
-            
+        // Append the response in a single atomic write (no read-modify-write of the alert)
+        Alert updatedAlert = alertService.addResponse(alertId, response).orElse(null);
+        if (updatedAlert != null) {
             // Notify subscribers about the response
             // This sends to all subscribers tracking responses to this alert
-            messagingTemplate.convertAndSend("/topic/alerts/" + alertId + "/responses", response);
+            webSocketService.sendAlertResponse(alertId, response);
             
             // Also send to the user who created the alert (on their private channel)
             // This ensures the alert creator is always notified, even if not actively subscribed
-            messagingTemplate.convertAndSend("/queue/user/" + alert.getUserId() + "/alerts/" + alertId, updatedAlert);
+            webSocketService.sendAlertToOwner(updatedAlert);
         }
     }
     
+    /**
+     * Handles the cancellation of an alert countdown by the user it was started for.
+     * 
+     * This endpoint receives cancellations at /app/alert/cancel/{pendingAlertId}. If the
+     * countdown has not run out yet, no alert is raised and the user is sent the CANCELLED
+     * state on /user/queue/pending-alerts. Only the user's own countdowns can be cancelled.
+     * 
+     * @param pendingAlertId The ID of the pending alert to cancel
+     * @param principal The security principal of the session, named by the user's ID
+     */
+    @MessageMapping("/alert/cancel/{pendingAlertId}")
+    public void cancelPendingAlert(@DestinationVariable String pendingAlertId, Principal principal) {
+        pendingAlertScheduler.cancel(pendingAlertId, principal.getName());
+    }
+    
     /**
      * Handles incoming messages to a group and broadcasts them to all group members.
      * 
@@ -118,12 +191,10 @@ public class WebSocketController {
      * 
      * @param groupId The ID of the group to receive the message
      * @param message A map containing the message data
-     * @return The message map to be broadcast to subscribers
      */
     @MessageMapping("/group/{groupId}")
-    @SendTo("/topic/group/{groupId}")
-    public Map<String, Object> groupMessage(@DestinationVariable String groupId, @Payload Map<String, Object> message) {
+    public void groupMessage(@DestinationVariable String groupId, @Payload Map<String, Object> message) {
         // Simply broadcast the message to the group
-        return message;
+        webSocketService.sendToDestination("/topic/group/" + groupId, message);
     }
 }
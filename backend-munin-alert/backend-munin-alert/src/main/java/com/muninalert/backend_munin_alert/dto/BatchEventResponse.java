@@ -0,0 +1,19 @@
+package com.muninalert.backend_munin_alert.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response to a batch event upload, with one result per submitted event in submission order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchEventResponse {
+    private int accepted;
+    private int rejected;
+    private List<BatchEventResult> results;
+}
@@ -0,0 +1,34 @@
+package com.muninalert.backend_munin_alert.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single event within a batch upload.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchEventResult {
+    /** Position of the event in the submitted array */
+    private int index;
+    private Status status;
+    /** ID of the stored event, set only when the event was accepted */
+    private String eventId;
+    /** Reason the event was rejected, set only when the event was rejected */
+    private String error;
+
+    public enum Status {
+        ACCEPTED,
+        REJECTED
+    }
+
+    public static BatchEventResult accepted(int index, String eventId) {
+        return new BatchEventResult(index, Status.ACCEPTED, eventId, null);
+    }
+
+    public static BatchEventResult rejected(int index, String error) {
+        return new BatchEventResult(index, Status.REJECTED, null, error);
+    }
+}
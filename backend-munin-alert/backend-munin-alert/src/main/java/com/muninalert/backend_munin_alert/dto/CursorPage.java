@@ -0,0 +1,22 @@
+package com.muninalert.backend_munin_alert.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a keyset-paginated list, newest first.
+ * 
+ * Pass {@code nextCursor} back as the {@code cursor} parameter to get the following
+ * page; it is null on the last page. The cursor is opaque to clients.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,13 @@
+package com.muninalert.backend_munin_alert.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Request to add or remove many group members in one call.
+ */
+@Data
+public class GroupMembersRequest {
+    private List<String> userIds;
+}
@@ -0,0 +1,24 @@
+package com.muninalert.backend_munin_alert.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a retention run.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetentionRunReport {
+    /** Start of the run in milliseconds since epoch */
+    private long startedAt;
+    /** Duration of the run in milliseconds */
+    private long durationMs;
+    /** Total number of deleted documents */
+    private long deleted;
+    /** Number of deleted documents per policy, e.g. "default", "type:INACTIVITY" or "user:{id}" */
+    private Map<String, Long> deletedByPolicy;
+}
@@ -0,0 +1,30 @@
+package com.muninalert.backend_munin_alert.dto;
+
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import com.muninalert.backend_munin_alert.model.RiskAlert;
+import com.muninalert.backend_munin_alert.service.RiskAreaClearedEvent;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+public class RiskAreaClearedMessage extends WebSocketMessage {
+    private String riskAlertId;
+    private String title;
+    private GeoJsonPoint location;
+    private double radiusMeters;
+    private RiskAreaClearedEvent.Reason reason;
+    
+    public RiskAreaClearedMessage(RiskAlert riskAlert, RiskAreaClearedEvent.Reason reason) {
+        super("RISK_AREA_CLEARED", System.currentTimeMillis());
+        this.riskAlertId = riskAlert.getId();
+        this.title = riskAlert.getTitle();
+        this.location = riskAlert.getLocation();
+        this.radiusMeters = riskAlert.getRadiusMeters();
+        this.reason = reason;
+    }
+}
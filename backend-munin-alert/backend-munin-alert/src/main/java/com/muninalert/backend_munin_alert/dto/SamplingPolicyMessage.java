@@ -0,0 +1,48 @@
+package com.muninalert.backend_munin_alert.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Location reporting policy recommended to a user's devices.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+public class SamplingPolicyMessage extends WebSocketMessage {
+    private String userId;
+    private long intervalMs;
+    private boolean highAccuracy;
+    private Reason reason;
+    
+    public SamplingPolicyMessage(String userId, long intervalMs, boolean highAccuracy, Reason reason) {
+        super("SAMPLING_POLICY", System.currentTimeMillis());
+        this.userId = userId;
+        this.intervalMs = intervalMs;
+        this.highAccuracy = highAccuracy;
+        this.reason = reason;
+    }
+    
+    /**
+     * Returns whether another policy recommends the same reporting behaviour.
+     * 
+     * @param other The other policy (may be null)
+     * @return true if interval, accuracy mode and reason are the same
+     */
+    public boolean sameAs(SamplingPolicyMessage other) {
+        return other != null && intervalMs == other.intervalMs
+                && highAccuracy == other.highAccuracy && reason == other.reason;
+    }
+    
+    /**
+     * What the recommendation is based on, from most to least urgent.
+     */
+    public enum Reason {
+        ACTIVE_ALERT,
+        RISK_AREA,
+        POOR_ACCURACY,
+        DEFAULT,
+        SAFE_HAVEN
+    }
+}
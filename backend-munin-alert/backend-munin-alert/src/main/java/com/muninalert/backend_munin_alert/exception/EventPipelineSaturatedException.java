@@ -0,0 +1,12 @@
+package com.muninalert.backend_munin_alert.exception;
+
+/**
+ * Thrown when the event processing pipeline has no free capacity for a new event.
+ * The event has not been stored; the client should retry after a short delay.
+ */
+public class EventPipelineSaturatedException extends RuntimeException {
+
+    public EventPipelineSaturatedException(String message) {
+        super(message);
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -33,6 +34,32 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
     
+    @ExceptionHandler(EventPipelineSaturatedException.class)
+    public ResponseEntity<Map<String, String>> handlePipelineSaturated(EventPipelineSaturatedException ex) {
+        Map<String, String> error = new HashMap<>();
+        
+        logger.warn("Rejecting event, processing pipeline saturated: {}", ex.getMessage());
+        
+        error.put("error", ex.getMessage());
+        error.put("type", ex.getClass().getName());
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+    
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCursor(InvalidCursorException ex) {
+        Map<String, String> error = new HashMap<>();
+        
+        logger.warn("Rejecting request with invalid pagination cursor");
+        
+        error.put("error", ex.getMessage());
+        error.put("type", ex.getClass().getName());
+        
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+    
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGeneralExceptions(Exception ex) {
         Map<String, String> error = new HashMap<>();
@@ -0,0 +1,11 @@
+package com.muninalert.backend_munin_alert.exception;
+
+/**
+ * Thrown when a pagination cursor supplied by a client cannot be decoded.
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
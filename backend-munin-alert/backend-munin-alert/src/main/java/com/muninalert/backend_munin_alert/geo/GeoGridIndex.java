@@ -0,0 +1,221 @@
+package com.muninalert.backend_munin_alert.geo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Process-local grid index for circular areas (center point plus radius).
+ * 
+ * The world is divided into fixed-size latitude/longitude cells. Each area is
+ * registered in every cell its bounding box overlaps, so a containment query
+ * only has to look at the single cell holding the query point and run an exact
+ * distance test against the handful of areas registered there. Areas that would
+ * span more than {@link #MAX_CELLS_PER_ENTRY} cells are kept in a small
+ * "oversized" set that is checked on every query instead.
+ * 
+ * Reads are lock-free; writes are serialized since they are rare compared to
+ * containment checks.
+ *
+ * @param <T> The type of value stored for each area
+ */
+public class GeoGridIndex<T> {
+    
+    /** Upper bound on the number of cells a single entry may be registered in. */
+    static final int MAX_CELLS_PER_ENTRY = 1024;
+    
+    private final double cellSizeDegrees;
+    private final int lonCellCount;
+    
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final Set<String> oversized = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Creates an empty index.
+     * 
+     * @param cellSizeDegrees The edge length of a grid cell in degrees
+     */
+    public GeoGridIndex(double cellSizeDegrees) {
+        if (cellSizeDegrees <= 0 || cellSizeDegrees > 90) {
+            throw new IllegalArgumentException("Cell size must be in (0, 90] degrees");
+        }
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.lonCellCount = (int) Math.ceil(360 / cellSizeDegrees);
+    }
+    
+    /**
+     * Adds or replaces an area in the index.
+     * 
+     * @param id The unique identifier of the area
+     * @param value The value to return from queries
+     * @param latitude The latitude of the area center
+     * @param longitude The longitude of the area center
+     * @param radiusMeters The radius of the area in meters
+     */
+    public synchronized void put(String id, T value, double latitude, double longitude, double radiusMeters) {
+        remove(id);
+        
+        double radius = Math.max(radiusMeters, 0);
+        double latSpan = GeoUtils.metersToLatDegrees(radius);
+        double lonSpan = GeoUtils.metersToLonDegrees(radius, latitude);
+        
+        int minLat = latIndex(latitude - latSpan);
+        int maxLat = latIndex(latitude + latSpan);
+        int minLon = rawLonIndex(longitude - lonSpan);
+        int maxLon = rawLonIndex(longitude + lonSpan);
+        
+        long cellCount = (long) (maxLat - minLat + 1) * (maxLon - minLon + 1);
+        List<Long> keys = new ArrayList<>();
+        
+        if (cellCount > MAX_CELLS_PER_ENTRY) {
+            oversized.add(id);
+        } else {
+            for (int latIdx = minLat; latIdx <= maxLat; latIdx++) {
+                for (int lonIdx = minLon; lonIdx <= maxLon; lonIdx++) {
+                    long key = cellKey(latIdx, Math.floorMod(lonIdx, lonCellCount));
+                    keys.add(key);
+                    cells.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+                }
+            }
+        }
+        
+        entries.put(id, new Entry<>(value, latitude, longitude, radius, keys));
+    }
+    
+    /**
+     * Removes an area from the index.
+     * 
+     * @param id The unique identifier of the area
+     * @return The removed value, or null if the area was not indexed
+     */
+    public synchronized T remove(String id) {
+        Entry<T> entry = entries.remove(id);
+        if (entry == null) {
+            return null;
+        }
+        
+        oversized.remove(id);
+        for (Long key : entry.cellKeys) {
+            Set<String> ids = cells.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+        return entry.value;
+    }
+    
+    /**
+     * Removes every area from the index.
+     */
+    public synchronized void clear() {
+        cells.clear();
+        entries.clear();
+        oversized.clear();
+    }
+    
+    /**
+     * Finds all areas that contain a point and satisfy a filter.
+     * 
+     * @param latitude The latitude of the point
+     * @param longitude The longitude of the point
+     * @param filter Additional condition the stored value must satisfy
+     * @return The matching values, closest area center first
+     */
+    public List<T> findContaining(double latitude, double longitude, Predicate<T> filter) {
+        return findWithin(latitude, longitude, 0, filter);
+    }
+    
+    /**
+     * Finds all areas whose boundary lies within a margin of a point and satisfy a filter.
+     * A margin of zero is a plain containment check.
+     * 
+     * @param latitude The latitude of the point
+     * @param longitude The longitude of the point
+     * @param marginMeters Extra distance beyond each area's radius that still counts as a match
+     * @param filter Additional condition the stored value must satisfy
+     * @return The matching values, closest area center first
+     */
+    public List<T> findWithin(double latitude, double longitude, double marginMeters, Predicate<T> filter) {
+        List<String> candidates = new ArrayList<>(oversized);
+        
+        if (marginMeters <= 0) {
+            Set<String> ids = cells.get(cellKey(latIndex(latitude), Math.floorMod(rawLonIndex(longitude), lonCellCount)));
+            if (ids != null) {
+                candidates.addAll(ids);
+            }
+        } else {
+            double latSpan = GeoUtils.metersToLatDegrees(marginMeters);
+            double lonSpan = GeoUtils.metersToLonDegrees(marginMeters, latitude);
+            for (int latIdx = latIndex(latitude - latSpan); latIdx <= latIndex(latitude + latSpan); latIdx++) {
+                for (int lonIdx = rawLonIndex(longitude - lonSpan); lonIdx <= rawLonIndex(longitude + lonSpan); lonIdx++) {
+                    Set<String> ids = cells.get(cellKey(latIdx, Math.floorMod(lonIdx, lonCellCount)));
+                    if (ids != null) {
+                        candidates.addAll(ids);
+                    }
+                }
+            }
+        }
+        
+        List<Match<T>> matches = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String id : candidates) {
+            Entry<T> entry = entries.get(id);
+            if (entry == null || !seen.add(id)) {
+                continue;
+            }
+            double distance = GeoUtils.distanceMeters(latitude, longitude, entry.latitude, entry.longitude);
+            if (distance <= entry.radiusMeters + Math.max(marginMeters, 0) && filter.test(entry.value)) {
+                matches.add(new Match<>(entry.value, distance));
+            }
+        }
+        
+        matches.sort((a, b) -> Double.compare(a.distance, b.distance));
+        return matches.stream().map(Match::value).toList();
+    }
+    
+    /**
+     * Returns a snapshot of all indexed values.
+     * 
+     * @return The indexed values
+     */
+    public Collection<T> values() {
+        return entries.values().stream().map(entry -> entry.value).toList();
+    }
+    
+    /**
+     * Returns the number of indexed areas.
+     * 
+     * @return The number of areas
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    private int latIndex(double latitude) {
+        double clamped = Math.max(-90, Math.min(90, latitude));
+        return (int) Math.floor((clamped + 90) / cellSizeDegrees);
+    }
+    
+    private int rawLonIndex(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellSizeDegrees);
+    }
+    
+    private static long cellKey(int latIdx, int lonIdx) {
+        return ((long) latIdx << 32) | (lonIdx & 0xffffffffL);
+    }
+    
+    private record Entry<T>(T value, double latitude, double longitude, double radiusMeters, List<Long> cellKeys) {
+    }
+    
+    private record Match<T>(T value, double distance) {
+    }
+}
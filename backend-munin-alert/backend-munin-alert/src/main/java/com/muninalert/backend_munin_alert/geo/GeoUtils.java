@@ -0,0 +1,64 @@
+package com.muninalert.backend_munin_alert.geo;
+
+/**
+ * Geometry helpers shared by the in-memory geospatial indexes.
+ * 
+ * All distances are great-circle distances in meters on a spherical earth,
+ * which is accurate enough for safe haven and risk area radii.
+ */
+public final class GeoUtils {
+    
+    /** Mean earth radius in meters. */
+    public static final double EARTH_RADIUS_METERS = 6371000;
+    
+    /** Approximate length of one degree of latitude in meters. */
+    public static final double METERS_PER_DEGREE_LAT = 111320;
+    
+    private GeoUtils() {
+    }
+    
+    /**
+     * Calculates the distance between two points using the Haversine formula.
+     * 
+     * @param lat1 Latitude of point 1
+     * @param lon1 Longitude of point 1
+     * @param lat2 Latitude of point 2
+     * @param lon2 Longitude of point 2
+     * @return The distance between the points in meters
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        
+        return EARTH_RADIUS_METERS * c;
+    }
+    
+    /**
+     * Converts a distance in meters to degrees of latitude.
+     * 
+     * @param meters The distance in meters
+     * @return The equivalent span in degrees of latitude
+     */
+    public static double metersToLatDegrees(double meters) {
+        return meters / METERS_PER_DEGREE_LAT;
+    }
+    
+    /**
+     * Converts a distance in meters to degrees of longitude at a given latitude.
+     * The cosine is clamped so spans near the poles stay finite.
+     * 
+     * @param meters The distance in meters
+     * @param latitude The latitude at which the span is measured
+     * @return The equivalent span in degrees of longitude
+     */
+    public static double metersToLonDegrees(double meters, double latitude) {
+        double cos = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        return meters / (METERS_PER_DEGREE_LAT * cos);
+    }
+}
@@ -0,0 +1,204 @@
+package com.muninalert.backend_munin_alert.geo;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.RiskAlert;
+import com.muninalert.backend_munin_alert.repository.RiskAlertRepository;
+
+/**
+ * In-memory spatial index of active (non-expired) risk alert circles.
+ *
+ * The index is loaded from MongoDB once the application is ready, kept in sync by the
+ * risk alert service, and fully reloaded on a fixed schedule so risk alerts written by
+ * other instances are picked up. Writes applied while a reload reads its snapshot are
+ * recorded and replayed on top of the snapshot. Expired entries are filtered out at
+ * query time, so a risk alert stops matching as soon as its expiration time has passed
+ * even if it has not been removed yet. Until loading has finished, {@link #isReady()}
+ * returns false and callers should fall back to querying MongoDB directly; a failed
+ * first load is retried at a short interval.
+ *
+ * The index holds its own copies of the risk alerts and queries return copies.
+ */
+@Component
+public class RiskAlertSpatialIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RiskAlertSpatialIndex.class);
+
+    private final RiskAlertRepository riskAlertRepository;
+    private final double cellSizeDegrees;
+
+    private volatile GeoGridIndex<RiskAlert> index;
+
+    // Writes made while a reload is reading its snapshot, by risk alert ID (null value: removed)
+    private Map<String, RiskAlert> writesDuringLoad;
+
+    private volatile boolean ready = false;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param riskAlertRepository The repository used to load the index
+     * @param cellSizeDegrees The edge length of an index cell in degrees
+     */
+    @Autowired
+    public RiskAlertSpatialIndex(RiskAlertRepository riskAlertRepository,
+                                 @Value("${munin.geo.index.cell-size-degrees:0.01}") double cellSizeDegrees) {
+        this.riskAlertRepository = riskAlertRepository;
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.index = new GeoGridIndex<>(cellSizeDegrees);
+    }
+
+    /**
+     * Loads all active risk alerts from MongoDB, replacing the current contents.
+     * Failures are logged and keep the previous state (cold if nothing was loaded yet).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${munin.geo.index.refresh-interval-ms:300000}",
+               fixedDelayString = "${munin.geo.index.refresh-interval-ms:300000}")
+    public void load() {
+        synchronized (this) {
+            if (writesDuringLoad != null) {
+                // Another load is running
+                return;
+            }
+            writesDuringLoad = new LinkedHashMap<>();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            GeoGridIndex<RiskAlert> loaded = new GeoGridIndex<>(cellSizeDegrees);
+            riskAlertRepository.findByExpiresAtGreaterThan(start).forEach(riskAlert -> putInto(loaded, riskAlert));
+
+            synchronized (this) {
+                // The snapshot may have been read before these writes
+                writesDuringLoad.forEach((id, riskAlert) -> {
+                    if (riskAlert != null) {
+                        putInto(loaded, riskAlert);
+                    } else {
+                        loaded.remove(id);
+                    }
+                });
+                index = loaded;
+            }
+            ready = true;
+            logger.debug("Loaded {} active risk alerts into spatial index in {} ms",
+                    loaded.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Failed to load risk alert spatial index{}",
+                    ready ? ", keeping the previous contents" : ", falling back to MongoDB queries", e);
+        } finally {
+            synchronized (this) {
+                writesDuringLoad = null;
+            }
+        }
+    }
+
+    /**
+     * Retries the first load if it failed, so the index does not stay cold until the
+     * next scheduled reload.
+     */
+    @Scheduled(initialDelayString = "${munin.geo.index.retry-interval-ms:10000}",
+               fixedDelayString = "${munin.geo.index.retry-interval-ms:10000}")
+    public void retryLoad() {
+        if (!ready) {
+            load();
+        }
+    }
+
+    /**
+     * Returns whether the index has been loaded and can answer queries.
+     *
+     * @return true if the index is ready
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds or replaces a risk alert in the index.
+     * Risk alerts without a location or that have already expired are removed instead.
+     *
+     * @param riskAlert The risk alert to index
+     */
+    public synchronized void put(RiskAlert riskAlert) {
+        if (riskAlert == null || riskAlert.getId() == null) {
+            return;
+        }
+        RiskAlert copy = riskAlert.toBuilder().build();
+        if (writesDuringLoad != null) {
+            writesDuringLoad.put(copy.getId(), copy);
+        }
+        putInto(index, copy);
+    }
+
+    /**
+     * Removes a risk alert from the index.
+     *
+     * @param id The ID of the risk alert to remove
+     */
+    public synchronized void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        if (writesDuringLoad != null) {
+            writesDuringLoad.put(id, null);
+        }
+        index.remove(id);
+    }
+
+    /**
+     * Finds all active risk alerts whose area contains a point.
+     *
+     * @param latitude The latitude coordinate
+     * @param longitude The longitude coordinate
+     * @return Copies of the matching risk alerts, closest center first
+     */
+    public List<RiskAlert> findContaining(double latitude, double longitude) {
+        long now = System.currentTimeMillis();
+        return copiesOf(index.findContaining(latitude, longitude, riskAlert -> riskAlert.getExpiresAt() > now));
+    }
+
+    /**
+     * Finds all active risk alerts whose area boundary lies within a margin of a point.
+     *
+     * @param latitude The latitude coordinate
+     * @param longitude The longitude coordinate
+     * @param marginMeters Distance beyond each area's radius that still counts as near
+     * @return Copies of the matching risk alerts, closest center first
+     */
+    public List<RiskAlert> findWithin(double latitude, double longitude, double marginMeters) {
+        long now = System.currentTimeMillis();
+        return copiesOf(index.findWithin(latitude, longitude, marginMeters, riskAlert -> riskAlert.getExpiresAt() > now));
+    }
+
+    /**
+     * Helper method to add a risk alert to a grid, or remove it if it has no location or
+     * has already expired.
+     *
+     * @param grid The grid to update
+     * @param riskAlert The risk alert, owned by the index
+     */
+    private static void putInto(GeoGridIndex<RiskAlert> grid, RiskAlert riskAlert) {
+        if (riskAlert.getLocation() == null || riskAlert.getExpiresAt() <= System.currentTimeMillis()) {
+            grid.remove(riskAlert.getId());
+            return;
+        }
+        grid.put(riskAlert.getId(), riskAlert,
+                riskAlert.getLocation().getY(), riskAlert.getLocation().getX(),
+                riskAlert.getRadiusMeters());
+    }
+
+    private static List<RiskAlert> copiesOf(List<RiskAlert> riskAlerts) {
+        return riskAlerts.stream().map(riskAlert -> riskAlert.toBuilder().build()).toList();
+    }
+}
@@ -0,0 +1,189 @@
+package com.muninalert.backend_munin_alert.geo;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.SafeHaven;
+import com.muninalert.backend_munin_alert.repository.SafeHavenRepository;
+
+/**
+ * In-memory spatial index of all safe havens.
+ *
+ * The index is loaded from MongoDB once the application is ready, kept in sync by the
+ * safe haven service on create, update and delete, and fully reloaded on a fixed schedule
+ * so safe havens written by other instances are picked up. Writes applied while a reload
+ * reads its snapshot are recorded and replayed on top of the snapshot, so a reload never
+ * brings back a safe haven that was just deleted. Until loading has finished,
+ * {@link #isReady()} returns false and callers should fall back to querying MongoDB
+ * directly; a failed first load is retried at a short interval.
+ *
+ * The index holds its own copies of the safe havens and queries return copies, so
+ * callers cannot change the indexed state.
+ */
+@Component
+public class SafeHavenSpatialIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SafeHavenSpatialIndex.class);
+
+    private final SafeHavenRepository safeHavenRepository;
+    private final double cellSizeDegrees;
+
+    private volatile GeoGridIndex<SafeHaven> index;
+
+    // Writes made while a reload is reading its snapshot, by safe haven ID (null value: removed)
+    private Map<String, SafeHaven> writesDuringLoad;
+
+    private volatile boolean ready = false;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param safeHavenRepository The repository used to load the index
+     * @param cellSizeDegrees The edge length of an index cell in degrees
+     */
+    @Autowired
+    public SafeHavenSpatialIndex(SafeHavenRepository safeHavenRepository,
+                                 @Value("${munin.geo.index.cell-size-degrees:0.01}") double cellSizeDegrees) {
+        this.safeHavenRepository = safeHavenRepository;
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.index = new GeoGridIndex<>(cellSizeDegrees);
+    }
+
+    /**
+     * Loads all safe havens from MongoDB, replacing the current contents.
+     * Failures are logged and keep the previous state (cold if nothing was loaded yet).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${munin.geo.index.refresh-interval-ms:300000}",
+               fixedDelayString = "${munin.geo.index.refresh-interval-ms:300000}")
+    public void load() {
+        synchronized (this) {
+            if (writesDuringLoad != null) {
+                // Another load is running
+                return;
+            }
+            writesDuringLoad = new LinkedHashMap<>();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            GeoGridIndex<SafeHaven> loaded = new GeoGridIndex<>(cellSizeDegrees);
+            safeHavenRepository.findAll().forEach(safeHaven -> putInto(loaded, safeHaven));
+
+            synchronized (this) {
+                // The snapshot may have been read before these writes
+                writesDuringLoad.forEach((id, safeHaven) -> {
+                    if (safeHaven != null) {
+                        putInto(loaded, safeHaven);
+                    } else {
+                        loaded.remove(id);
+                    }
+                });
+                index = loaded;
+            }
+            ready = true;
+            logger.debug("Loaded {} safe havens into spatial index in {} ms",
+                    loaded.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Failed to load safe haven spatial index{}",
+                    ready ? ", keeping the previous contents" : ", falling back to MongoDB queries", e);
+        } finally {
+            synchronized (this) {
+                writesDuringLoad = null;
+            }
+        }
+    }
+
+    /**
+     * Retries the first load if it failed, so the index does not stay cold until the
+     * next scheduled reload.
+     */
+    @Scheduled(initialDelayString = "${munin.geo.index.retry-interval-ms:10000}",
+               fixedDelayString = "${munin.geo.index.retry-interval-ms:10000}")
+    public void retryLoad() {
+        if (!ready) {
+            load();
+        }
+    }
+
+    /**
+     * Returns whether the index has been loaded and can answer queries.
+     *
+     * @return true if the index is ready
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds or replaces a safe haven in the index.
+     * Safe havens without a location are removed from the index.
+     *
+     * @param safeHaven The safe haven to index
+     */
+    public synchronized void put(SafeHaven safeHaven) {
+        if (safeHaven == null || safeHaven.getId() == null) {
+            return;
+        }
+        SafeHaven copy = safeHaven.toBuilder().build();
+        if (writesDuringLoad != null) {
+            writesDuringLoad.put(copy.getId(), copy);
+        }
+        putInto(index, copy);
+    }
+
+    /**
+     * Removes a safe haven from the index.
+     *
+     * @param id The ID of the safe haven to remove
+     */
+    public synchronized void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        if (writesDuringLoad != null) {
+            writesDuringLoad.put(id, null);
+        }
+        index.remove(id);
+    }
+
+    /**
+     * Finds all indexed safe havens containing a point.
+     *
+     * @param latitude The latitude coordinate
+     * @param longitude The longitude coordinate
+     * @param filter Access filter the safe haven must satisfy
+     * @return Copies of the matching safe havens, closest center first
+     */
+    public List<SafeHaven> findContaining(double latitude, double longitude, Predicate<SafeHaven> filter) {
+        return index.findContaining(latitude, longitude, filter).stream()
+                .map(safeHaven -> safeHaven.toBuilder().build())
+                .toList();
+    }
+
+    /**
+     * Helper method to add a safe haven to a grid, or remove it if it has no location.
+     *
+     * @param grid The grid to update
+     * @param safeHaven The safe haven, owned by the index
+     */
+    private static void putInto(GeoGridIndex<SafeHaven> grid, SafeHaven safeHaven) {
+        if (safeHaven.getLocation() == null) {
+            grid.remove(safeHaven.getId());
+            return;
+        }
+        grid.put(safeHaven.getId(), safeHaven,
+                safeHaven.getLocation().getY(), safeHaven.getLocation().getX(),
+                safeHaven.getRadiusMeters());
+    }
+}
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
@@ -17,6 +19,15 @@ import lombok.Data;
  */
 @Data
 @Document(collection = "alerts")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_createdAt", def = "{'userId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "user_status", def = "{'userId': 1, 'status': 1}"),
+    @CompoundIndex(name = "group_status", def = "{'groupId': 1, 'status': 1}"),
+    // Active alerts are read in creation order to rebuild the expiry timers after a restart
+    @CompoundIndex(name = "status_createdAt", def = "{'status': 1, 'createdAt': 1}"),
+    // Location is an embedded value object, so the geo index is declared here rather than on Location itself
+    @CompoundIndex(name = "location_coordinates", def = "{'location.coordinates': '2dsphere'}")
+})
 public class Alert {
     /**
      * Unique identifier for the alert.
@@ -50,10 +61,16 @@ public class Alert {
     private AlertStatus status = AlertStatus.ACTIVE;
     
     /**
-     * List of responses from other users to this alert.
+     * The most recent responses from other users to this alert (bounded; see AlertResponseRecord).
      */
     private List<AlertResponse> responses = new ArrayList<>();
     
+    /**
+     * Total number of responses, including older responses that were moved out of
+     * {@link #responses} into the alert_responses collection.
+     */
+    private int responseCount;
+    
     /**
      * List of URLs to media files related to the alert (e.g., photos, videos).
      */
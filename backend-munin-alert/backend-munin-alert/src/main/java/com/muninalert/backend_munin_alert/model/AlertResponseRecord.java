@@ -0,0 +1,43 @@
+package com.muninalert.backend_munin_alert.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Model representing an alert response that no longer fits in the alert document.
+ * 
+ * An alert embeds only its most recent responses; older ones are moved here as
+ * they are pushed out, so the full response history of an alert is the records of
+ * this collection (oldest first) followed by the embedded responses.
+ */
+@Data
+@Document(collection = "alert_responses")
+@CompoundIndex(name = "alert_timestamp", def = "{'alertId': 1, 'response.timestamp': 1}")
+public class AlertResponseRecord {
+    /**
+     * Unique identifier for the record: the alert ID and the number of the response
+     * within the alert, so moving the same response twice stores it once.
+     */
+    @Id
+    private String id;
+    
+    /**
+     * ID of the alert the response belongs to.
+     */
+    private String alertId;
+    
+    /**
+     * The response as it was embedded in the alert.
+     */
+    private Alert.AlertResponse response;
+    
+    public static AlertResponseRecord of(String alertId, Alert.AlertResponse response) {
+        AlertResponseRecord record = new AlertResponseRecord();
+        record.setAlertId(alertId);
+        record.setResponse(response);
+        return record;
+    }
+}
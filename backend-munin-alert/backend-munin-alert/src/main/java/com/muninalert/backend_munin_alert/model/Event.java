@@ -1,6 +1,9 @@
 package com.muninalert.backend_munin_alert.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
@@ -14,6 +17,14 @@ import lombok.Data;
  */
 @Data
 @Document(collection = "events")
+// Time indexes end in _id so keyset pages (timestamp desc, _id desc) are read in index order
+@CompoundIndexes({
+    @CompoundIndex(name = "timestamp_id", def = "{'timestamp': -1, '_id': -1}"),
+    @CompoundIndex(name = "user_timestamp", def = "{'userId': 1, 'timestamp': -1, '_id': -1}"),
+    @CompoundIndex(name = "type_timestamp", def = "{'eventType': 1, 'timestamp': -1, '_id': -1}"),
+    @CompoundIndex(name = "user_type_timestamp_id", def = "{'userId': 1, 'eventType': 1, 'timestamp': -1, '_id': -1}"),
+    @CompoundIndex(name = "device_timestamp_id", def = "{'deviceId': 1, 'timestamp': -1, '_id': -1}")
+})
 public class Event {
     /**
      * Unique identifier for the event.
@@ -45,6 +56,7 @@ public class Event {
      * Confidence score for automatically detected events (0.0 to 1.0).
      * Higher values indicate higher confidence in the accuracy of the detection.
      */
+    @Indexed
     private double confidence;
     
     /**
@@ -2,6 +2,7 @@ package com.muninalert.backend_munin_alert.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,9 +16,12 @@ public class Group {
     private String name;
     private String description;
     
+    @Indexed
     private String ownerId;
     
+    @Indexed
     private List<String> adminIds = new ArrayList<>();
+    @Indexed
     private List<String> memberIds = new ArrayList<>();
     
     private GroupSettings settings = new GroupSettings();
@@ -31,5 +35,7 @@ public class Group {
         private boolean autoShareLocationOnAlert = true;
         private boolean notifyAllOnAlert = true;
         private int alertCountdownSeconds = 5;
+        // Overrides the alert time-to-live of munin.alerts.expiry for this group's alerts (null = not set)
+        private Integer alertExpiryMinutes;
     }
 }
@@ -1,9 +1,15 @@
 package com.muninalert.backend_munin_alert.model;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 
 @Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
 public class Location {
     private GeoJsonPoint coordinates;
     private long timestamp;
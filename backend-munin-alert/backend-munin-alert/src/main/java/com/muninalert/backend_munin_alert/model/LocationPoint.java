@@ -0,0 +1,88 @@
+package com.muninalert.backend_munin_alert.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import lombok.Data;
+
+/**
+ * Model representing a single point of a user's location history.
+ * 
+ * Points are stored in a MongoDB time-series collection, bucketed by the
+ * {@link Source} meta field, so a user's track over a time range is read from a
+ * few contiguous buckets. The collection is separate from the users collection and
+ * is append-only.
+ */
+@Data
+@Document(collection = "location_history")
+@TimeSeries(timeField = "timestamp", metaField = "source", granularity = Granularity.SECONDS)
+public class LocationPoint {
+    /**
+     * Unique identifier for the point.
+     */
+    @Id
+    private String id;
+    
+    /**
+     * The user and device that reported the point (time-series meta field).
+     */
+    private Source source;
+    
+    /**
+     * Time the location was measured.
+     */
+    private Instant timestamp;
+    
+    /**
+     * Geographic position of the point.
+     */
+    private GeoJsonPoint coordinates;
+    
+    /**
+     * Accuracy of the position in meters.
+     */
+    private double accuracy;
+    
+    /**
+     * How the position was determined.
+     */
+    private Location.LocationType locationType;
+    
+    /**
+     * Identifies who reported a location point.
+     */
+    @Data
+    public static class Source {
+        /** ID of the user the point belongs to */
+        private String userId;
+        /** ID of the device that measured the point */
+        private String deviceId;
+    }
+    
+    /**
+     * Creates a history point from a reported location.
+     * 
+     * @param userId The ID of the user the location belongs to
+     * @param location The reported location
+     * @return The history point
+     */
+    public static LocationPoint of(String userId, Location location) {
+        Source source = new Source();
+        source.setUserId(userId);
+        source.setDeviceId(location.getDeviceId());
+        
+        LocationPoint point = new LocationPoint();
+        point.setSource(source);
+        point.setTimestamp(Instant.ofEpochMilli(
+                location.getTimestamp() > 0 ? location.getTimestamp() : System.currentTimeMillis()));
+        point.setCoordinates(location.getCoordinates());
+        point.setAccuracy(location.getAccuracy());
+        point.setLocationType(location.getLocationType());
+        return point;
+    }
+}
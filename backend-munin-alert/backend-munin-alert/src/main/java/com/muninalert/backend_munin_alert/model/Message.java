@@ -2,12 +2,20 @@ package com.muninalert.backend_munin_alert.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
 @Document(collection = "messages")
+@CompoundIndexes({
+    @CompoundIndex(name = "group_createdAt", def = "{'groupId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "sender_recipients", def = "{'senderId': 1, 'recipientIds': 1}"),
+    @CompoundIndex(name = "recipients_isRead", def = "{'recipientIds': 1, 'isRead': 1}")
+})
 public class Message {
     @Id
     private String id;
@@ -17,6 +25,7 @@ public class Message {
     private List<String> recipientIds = new ArrayList<>();
     
     private String content;
+    @Indexed
     private MessageType messageType;
     
     private List<String> mediaUrls = new ArrayList<>();
@@ -26,6 +35,7 @@ public class Message {
     private boolean isRead = false;
     private long readAt;
     
+    @Indexed
     private long createdAt;
     
     public enum MessageType {
@@ -0,0 +1,78 @@
+package com.muninalert.backend_munin_alert.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+
+/**
+ * Model representing an alert that is waiting for its countdown to run out.
+ * 
+ * Fall and collision events do not raise an alert straight away: the user gets
+ * {@code GroupSettings.alertCountdownSeconds} to cancel it. The pending alert is
+ * stored until the countdown has run out (then it is marked FIRING, the alert is
+ * created and only then this document removed) or the user has cancelled it, so
+ * countdowns survive a restart.
+ */
+@Data
+@Document(collection = "pending_alerts")
+public class PendingAlert {
+    /**
+     * Unique identifier for the pending alert.
+     */
+    @Id
+    private String id;
+    
+    /**
+     * ID of the user the alert is raised for.
+     */
+    @Indexed
+    private String userId;
+    
+    /**
+     * ID of the event that triggered the countdown.
+     */
+    private String eventId;
+    
+    /**
+     * The alert that is created when the countdown runs out.
+     */
+    private Alert alert;
+    
+    /**
+     * Timestamp when the countdown runs out.
+     */
+    @Indexed
+    private long fireAt;
+    
+    /**
+     * Timestamp when the countdown was started.
+     */
+    private long createdAt;
+    
+    /**
+     * State of the countdown, as pushed to the user (only PENDING and FIRING are ever stored).
+     */
+    private PendingAlertStatus status = PendingAlertStatus.PENDING;
+    
+    /**
+     * Timestamp when an instance started firing the alert, while the status is FIRING.
+     */
+    private Long firingSince;
+    
+    /**
+     * ID of the created alert, once the countdown has run out.
+     */
+    private String alertId;
+    
+    /**
+     * States of a countdown.
+     */
+    public enum PendingAlertStatus {
+        PENDING,
+        FIRING,
+        CANCELLED,
+        FIRED
+    }
+}
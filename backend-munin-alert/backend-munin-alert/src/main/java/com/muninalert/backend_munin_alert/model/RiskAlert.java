@@ -1,12 +1,27 @@
 package com.muninalert.backend_munin_alert.model;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
 @Document(collection = "risk_alerts")
+@CompoundIndexes({
+    // Lets $near queries filter on expiresAt inside the geo index, so expired alerts are never fetched
+    @CompoundIndex(name = "location_expiresAt", def = "{'location': '2dsphere', 'expiresAt': 1}"),
+    @CompoundIndex(name = "createdAt_id", def = "{'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "riskType_location", def = "{'riskType': 1, 'location': '2dsphere'}")
+})
 public class RiskAlert {
     @Id
     private String id;
@@ -14,6 +29,7 @@ public class RiskAlert {
     private String title;
     private String description;
     
+    @Indexed
     private RiskLevel riskLevel;
     
     private GeoJsonPoint location;
@@ -21,9 +37,11 @@ public class RiskAlert {
     
     private RiskType riskType;
     
+    @Indexed
     private String source;
     private String sourceUrl;
     
+    @Indexed
     private long expiresAt;
     private long createdAt;
     
@@ -1,12 +1,29 @@
 package com.muninalert.backend_munin_alert.model;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
 @Document(collection = "safe_havens")
+@CompoundIndexes({
+    @CompoundIndex(name = "createdAt_id", def = "{'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "user_createdAt", def = "{'userId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "user_location", def = "{'userId': 1, 'location': '2dsphere'}"),
+    @CompoundIndex(name = "group_location", def = "{'groupId': 1, 'location': '2dsphere'}"),
+    @CompoundIndex(name = "isPublic_location", def = "{'isPublic': 1, 'location': '2dsphere'}")
+})
 public class SafeHaven {
     @Id
     private String id;
@@ -15,6 +32,7 @@ public class SafeHaven {
     private String description;
     private String address;
     
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
     private GeoJsonPoint location;
     
     private double radiusMeters;
@@ -7,9 +7,15 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
 @Document(collection = "users")
 public class User {
     @Id
@@ -28,16 +34,20 @@ public class User {
 
     private String phoneNumber;
     
+    @Builder.Default
     private List<String> roles = new ArrayList<>();
     
     private Location lastKnownLocation;
     
+    @Builder.Default
     private List<String> emergencyContacts = new ArrayList<>();
     
+    @Builder.Default
     private List<String> safeHavens = new ArrayList<>();
     
     private UserPreferences preferences;
     
+    @Builder.Default
     private boolean isActive = true;
     
     private long createdAt;
@@ -1,24 +1,46 @@
 package com.muninalert.backend_munin_alert.model;
 
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
 public class UserPreferences {
+    @Builder.Default
     private String language = "en";
+    @Builder.Default
     private boolean soundEnabled = true;
+    @Builder.Default
     private boolean vibrationEnabled = true;
+    @Builder.Default
     private boolean lightEnabled = true;
+    @Builder.Default
     private String alarmSound = "default";
+    @Builder.Default
     private String backgroundTheme = "default";
+    @Builder.Default
     private boolean usePTTButton = false;
+    @Builder.Default
     private NotificationPreferences notificationPreferences = new NotificationPreferences();
     
     @Data
+    @Builder(toBuilder = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class NotificationPreferences {
+        @Builder.Default
         private boolean pushNotificationsEnabled = true;
+        @Builder.Default
         private boolean emailNotificationsEnabled = false;
+        @Builder.Default
         private boolean locationSharingEnabled = true;
+        @Builder.Default
         private boolean aiEventDetectionEnabled = true;
+        @Builder.Default
         private boolean localRiskAlertsEnabled = true;
     }
 }
@@ -13,5 +13,10 @@ public interface AlertRepository extends MongoRepository<Alert, String> {
     List<Alert> findByGroupId(String groupId);
     List<Alert> findByUserIdAndStatus(String userId, Alert.AlertStatus status);
     List<Alert> findByGroupIdAndStatus(String groupId, Alert.AlertStatus status);
-    List<Alert> findByLocationNear(Point location, Distance distance);
+    List<Alert> findByLocationCoordinatesNear(Point location, Distance distance);
+    
+    // Alert.location is a Location value object; the geo index is on its coordinates
+    default List<Alert> findByLocationNear(Point location, Distance distance) {
+        return findByLocationCoordinatesNear(location, distance);
+    }
 }
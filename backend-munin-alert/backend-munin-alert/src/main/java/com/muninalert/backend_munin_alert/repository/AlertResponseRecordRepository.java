@@ -0,0 +1,12 @@
+package com.muninalert.backend_munin_alert.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.muninalert.backend_munin_alert.model.AlertResponseRecord;
+
+public interface AlertResponseRecordRepository extends MongoRepository<AlertResponseRecord, String> {
+    List<AlertResponseRecord> findByAlertIdOrderByResponseTimestampAsc(String alertId);
+    long deleteByAlertId(String alertId);
+}
@@ -2,8 +2,8 @@ package com.muninalert.backend_munin_alert.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.muninalert.backend_munin_alert.model.Event;
@@ -65,6 +65,15 @@ public interface EventRepository extends MongoRepository<Event, String> {
      */
     List<Event> findByUserIdAndTimestampGreaterThan(String userId, long timestamp);
     
+    /**
+     * Delete all events that occurred before a specific timestamp.
+     * Runs as a single server-side range delete on the timestamp index.
+     * 
+     * @param timestamp The timestamp in milliseconds
+     * @return The number of deleted events
+     */
+    long deleteByTimestampLessThan(long timestamp);
+    
     /**
      * Find events with confidence score above a threshold.
      * 
@@ -74,12 +83,23 @@ public interface EventRepository extends MongoRepository<Event, String> {
     List<Event> findByConfidenceGreaterThanEqual(double confidenceThreshold);
     
     /**
-     * Custom query to find the most recent events for a user, limited by count.
+     * Find the most recent events for a user, newest first, limited by count.
+     * The limit is applied by MongoDB on the (userId, timestamp desc) index.
+     * 
+     * @param userId The ID of the user
+     * @param limit The maximum number of events to return
+     * @return List of the most recent events for the user
+     */
+    List<Event> findByUserIdOrderByTimestampDescIdDesc(String userId, Limit limit);
+    
+    /**
+     * Find the most recent events for a user, limited by count.
      * 
      * @param userId The ID of the user
      * @param limit The maximum number of events to return
      * @return List of the most recent events for the user
      */
-    @Query(value = "{ 'userId': ?0 }", sort = "{ 'timestamp': -1 }")
-    List<Event> findMostRecentByUser(String userId, int limit);
+    default List<Event> findMostRecentByUser(String userId, int limit) {
+        return findByUserIdOrderByTimestampDescIdDesc(userId, Limit.of(limit));
+    }
 }
\ No newline at end of file
@@ -2,10 +2,15 @@ package com.muninalert.backend_munin_alert.repository;
 
 import com.muninalert.backend_munin_alert.model.Group;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import java.util.List;
 
 public interface GroupRepository extends MongoRepository<Group, String> {
     List<Group> findByOwnerId(String ownerId);
     List<Group> findByMemberIdsContaining(String userId);
     List<Group> findByAdminIdsContaining(String userId);
+    
+    // Only the IDs are read, so membership lookups do not load whole member lists
+    @Query(value = "{ 'memberIds': ?0 }", fields = "{ '_id': 1 }")
+    List<Group> findIdsByMemberId(String userId);
 }
@@ -0,0 +1,112 @@
+package com.muninalert.backend_munin_alert.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.dto.CursorPage;
+import com.muninalert.backend_munin_alert.exception.InvalidCursorException;
+
+/**
+ * Keyset (seek) pagination over any collection, newest first.
+ * 
+ * Documents are ordered by a numeric time field descending, with {@code _id} descending
+ * as the tie-breaker. A page is fetched with a range condition on {@code (time, _id)}
+ * relative to the last item of the previous page instead of a skip, so every page costs
+ * the same index seek plus {@code limit} reads however deep the client pages. The
+ * collection needs an index ending in {@code {time: -1, _id: -1}} after any equality
+ * filter fields for this to hold.
+ * 
+ * The cursor is the URL-safe Base64 encoding of the last item's time and ID.
+ */
+@Component
+public class KeysetPager {
+    
+    /** Upper bound for the page size; larger limits are reduced to this value */
+    public static final int MAX_LIMIT = 500;
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Autowired
+    public KeysetPager(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+    
+    /**
+     * Fetches one page of documents.
+     * 
+     * @param type The document class
+     * @param filter Criteria the documents must match, or null for all documents
+     * @param timeField The name of the numeric time field to order by
+     * @param timeOf Extracts the time field from a document
+     * @param idOf Extracts the ID from a document
+     * @param cursor The cursor returned with the previous page, or null for the first page
+     * @param limit The maximum number of items on the page (1 to {@link #MAX_LIMIT})
+     * @return The page
+     * @throws InvalidCursorException if the cursor is malformed
+     */
+    public <T> CursorPage<T> page(Class<T> type, Criteria filter, String timeField,
+                                  Function<T, Long> timeOf, Function<T, String> idOf,
+                                  String cursor, int limit) {
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<Criteria> conditions = new ArrayList<>();
+        if (filter != null) {
+            conditions.add(filter);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            Position after = decode(cursor);
+            conditions.add(new Criteria().orOperator(
+                    Criteria.where(timeField).lt(after.time()),
+                    Criteria.where(timeField).is(after.time()).and("_id").lt(after.id())));
+        }
+        
+        Query query = new Query();
+        if (!conditions.isEmpty()) {
+            query.addCriteria(conditions.size() == 1
+                    ? conditions.get(0)
+                    : new Criteria().andOperator(conditions.toArray(new Criteria[0])));
+        }
+        // Fetch one extra item to learn whether there is a next page
+        query.with(Sort.by(Sort.Order.desc(timeField), Sort.Order.desc("_id"))).limit(limit + 1);
+        
+        List<T> items = mongoTemplate.find(query, type);
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items = items.subList(0, limit);
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            T last = items.get(items.size() - 1);
+            nextCursor = encode(timeOf.apply(last), idOf.apply(last));
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+    
+    private static String encode(long time, String id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((time + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static Position decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new Position(Long.parseLong(decoded.substring(0, separator)), decoded.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+    }
+    
+    private record Position(long time, String id) {
+    }
+}
@@ -2,6 +2,7 @@ package com.muninalert.backend_munin_alert.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -84,6 +85,16 @@ public interface MessageRepository extends MongoRepository<Message, String> {
     @Query("{ $or: [ { 'senderId': ?0, 'recipientIds': ?1 }, { 'senderId': ?1, 'recipientIds': ?0 } ] }")
     List<Message> findMessagesBetweenUsers(String userId1, String userId2);
     
+    /**
+     * Find the most recent messages in a group, newest first, limited by count.
+     * The limit is applied by MongoDB on the (groupId, createdAt desc) index.
+     * 
+     * @param groupId The ID of the group
+     * @param limit The maximum number of messages to return
+     * @return List of the most recent messages in the group
+     */
+    List<Message> findByGroupIdOrderByCreatedAtDescIdDesc(String groupId, Limit limit);
+    
     /**
      * Find the most recent messages in a group, limited by count.
      * 
@@ -91,6 +102,7 @@ public interface MessageRepository extends MongoRepository<Message, String> {
      * @param limit The maximum number of messages to return
      * @return List of the most recent messages in the group
      */
-    @Query(value = "{ 'groupId': ?0 }", sort = "{ 'createdAt': -1 }")
-    List<Message> findMostRecentGroupMessages(String groupId, int limit);
+    default List<Message> findMostRecentGroupMessages(String groupId, int limit) {
+        return findByGroupIdOrderByCreatedAtDescIdDesc(groupId, Limit.of(limit));
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.muninalert.backend_munin_alert.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Point;
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -69,6 +70,15 @@ public interface RiskAlertRepository extends MongoRepository<RiskAlert, String>
      */
     List<RiskAlert> findByExpiresAtGreaterThan(long currentTime);
     
+    /**
+     * Find expired risk alerts, oldest expiration first, one page at a time.
+     * 
+     * @param currentTime The current time in milliseconds
+     * @param pageable The page (chunk) to return
+     * @return List of expired risk alerts
+     */
+    List<RiskAlert> findByExpiresAtLessThanEqualOrderByExpiresAtAsc(long currentTime, Pageable pageable);
+    
     /**
      * Find active risk alerts (not expired) near a specific point within a specified distance.
      * 
@@ -1,5 +1,6 @@
 package com.muninalert.backend_munin_alert.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.geo.Distance;
@@ -83,9 +84,9 @@ public interface SafeHavenRepository extends MongoRepository<SafeHaven, String>
      * Custom query to find safe havens within a user's access (personal, group, or public).
      * 
      * @param userId The ID of the user
-     * @param groupIds List of group IDs the user belongs to
+     * @param groupIds IDs of the groups the user belongs to
      * @return List of safe havens accessible to the user
      */
     @Query("{ $or: [ { 'userId': ?0 }, { 'groupId': { $in: ?1 } }, { 'isPublic': true } ] }")
-    List<SafeHaven> findAccessibleSafeHavens(String userId, List<String> groupIds);
+    List<SafeHaven> findAccessibleSafeHavens(String userId, Collection<String> groupIds);
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.muninalert.backend_munin_alert.repository;
 
 import com.muninalert.backend_munin_alert.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends MongoRepository<User, String> {
@@ -9,4 +12,8 @@ public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+    
+    // Only the IDs are read, to check many users for existence in one query
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ '_id': 1 }")
+    List<User> findIdsByIdIn(Collection<String> ids);
 }
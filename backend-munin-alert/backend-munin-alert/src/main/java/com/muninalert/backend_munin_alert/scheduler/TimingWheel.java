@@ -0,0 +1,216 @@
+package com.muninalert.backend_munin_alert.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel for a large number of keyed deadlines.
+ *
+ * The lowest level has {@code wheelSize} buckets of {@code tickMillis} each; every
+ * further level is created on demand and covers {@code wheelSize} times the span of
+ * the level below, so deadlines far in the future cost no more than near ones.
+ * Scheduling and cancelling are O(1). Only non-empty buckets are queued by their
+ * start time, so advancing the clock costs O(log b) per bucket that comes due (not
+ * per timer, and nothing for idle ticks). When a bucket of a higher level comes due,
+ * its timers are cascaded into the finer levels below.
+ *
+ * Deadlines have a resolution of one tick: a key may come due up to one tick early.
+ * Scheduling a key that is already scheduled replaces its deadline.
+ *
+ * This class is not thread-safe; callers must synchronize access.
+ *
+ * @param <K> The type of the keys (e.g. alert IDs)
+ */
+public class TimingWheel<K> {
+
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    private final PriorityQueue<Bucket<K>> dueQueue = new PriorityQueue<>((a, b) -> Long.compare(a.expiration, b.expiration));
+    private final List<K> overdue = new ArrayList<>();
+    private final Level<K> root;
+
+    /**
+     * Creates a timing wheel.
+     *
+     * @param tickMillis The length of one tick of the lowest level in milliseconds
+     * @param wheelSize The number of buckets per level
+     * @param startMillis The current time in milliseconds
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("Timing wheel needs a positive tick and at least two buckets");
+        }
+        this.root = new Level<>(tickMillis, wheelSize, startMillis, dueQueue);
+    }
+
+    /**
+     * Schedules a key, replacing any deadline it already has. A deadline that is
+     * already due is returned by the next call to {@link #advance(long)}.
+     *
+     * @param key The key
+     * @param deadlineMillis The deadline in milliseconds since epoch
+     */
+    public void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        Timer<K> timer = new Timer<>(key, deadlineMillis);
+        timers.put(key, timer);
+        if (!root.add(timer)) {
+            timers.remove(key);
+            overdue.add(key);
+        }
+    }
+
+    /**
+     * Cancels a key.
+     *
+     * @param key The key
+     * @return true if the key was scheduled
+     */
+    public boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer == null) {
+            return overdue.remove(key);
+        }
+        if (timer.bucket != null) {
+            timer.bucket.timers.remove(timer);
+            timer.bucket = null;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the deadline of a key.
+     *
+     * @param key The key
+     * @return The deadline in milliseconds, or null if the key is not scheduled
+     */
+    public Long deadlineOf(K key) {
+        Timer<K> timer = timers.get(key);
+        return timer != null ? timer.deadline : null;
+    }
+
+    /**
+     * Returns the number of scheduled keys.
+     *
+     * @return The number of pending keys
+     */
+    public int size() {
+        return timers.size() + overdue.size();
+    }
+
+    /**
+     * Advances the clock and removes all keys that have come due.
+     *
+     * @param nowMillis The current time in milliseconds
+     * @return The keys that have come due, roughly in deadline order
+     */
+    public List<K> advance(long nowMillis) {
+        List<K> due = new ArrayList<>(overdue);
+        overdue.clear();
+
+        Bucket<K> bucket;
+        while ((bucket = dueQueue.peek()) != null && bucket.expiration <= nowMillis) {
+            dueQueue.poll();
+            root.advanceClock(bucket.expiration);
+
+            List<Timer<K>> flushed = new ArrayList<>(bucket.timers);
+            bucket.timers.clear();
+            bucket.expiration = -1;
+
+            for (Timer<K> timer : flushed) {
+                timer.bucket = null;
+                // Cascade into a finer level, or report the key if it is now due
+                if (!root.add(timer)) {
+                    timers.remove(timer.key);
+                    due.add(timer.key);
+                }
+            }
+        }
+        root.advanceClock(nowMillis);
+        return due;
+    }
+
+    /**
+     * One level of the wheel.
+     */
+    private static class Level<K> {
+
+        private final long tickMillis;
+        private final int wheelSize;
+        private final long interval;
+        private final List<Bucket<K>> buckets;
+        private final PriorityQueue<Bucket<K>> dueQueue;
+
+        private long currentTime;
+        private Level<K> overflow;
+
+        Level(long tickMillis, int wheelSize, long startMillis, PriorityQueue<Bucket<K>> dueQueue) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.interval = tickMillis * wheelSize;
+            this.dueQueue = dueQueue;
+            this.currentTime = startMillis - (startMillis % tickMillis);
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new Bucket<>());
+            }
+        }
+
+        /**
+         * Adds a timer to this level or a coarser one.
+         *
+         * @return false if the timer is already due
+         */
+        boolean add(Timer<K> timer) {
+            if (timer.deadline < currentTime + tickMillis) {
+                return false;
+            }
+            if (timer.deadline < currentTime + interval) {
+                long virtualId = timer.deadline / tickMillis;
+                Bucket<K> bucket = buckets.get((int) (virtualId % wheelSize));
+                bucket.timers.add(timer);
+                timer.bucket = bucket;
+
+                long expiration = virtualId * tickMillis;
+                if (bucket.expiration != expiration) {
+                    bucket.expiration = expiration;
+                    dueQueue.offer(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level<>(interval, wheelSize, currentTime, dueQueue);
+            }
+            return overflow.add(timer);
+        }
+
+        void advanceClock(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - (timeMillis % tickMillis);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    private static class Bucket<K> {
+        private final Set<Timer<K>> timers = new HashSet<>();
+        private long expiration = -1;
+    }
+
+    private static class Timer<K> {
+        private final K key;
+        private final long deadline;
+        private Bucket<K> bucket;
+
+        Timer(K key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -32,18 +32,18 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     private UserDetailsService userDetailsService;
     
     @Autowired
-    private JwtUtil jwtUtil;
+    private JwtTokenCache jwtTokenCache;
 
     /**
      * Core filter method that processes each HTTP request.
      * 
      * This method:
      * 1. Extracts the JWT token from the Authorization header
-     * 2. Validates the token and extracts the username
+     * 2. Resolves the username through the verified-token cache, so the signature
+     *    and expiration are checked at most once per token
      * 3. Loads the user details for the extracted username
-     * 4. Validates the token against the user details
-     * 5. If valid, sets up the authentication in the security context
-     * 6. Passes the request to the next filter in the chain
+     * 4. Sets up the authentication in the security context
+     * 5. Passes the request to the next filter in the chain
      * 
      * @param request The HTTP request being processed
      * @param response The HTTP response
@@ -58,23 +58,21 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         final String authorizationHeader = request.getHeader("Authorization");
 
         String username = null;
-        String jwt = null;
 
-        // Extract JWT token from the Authorization header
+        // Extract JWT token from the Authorization header; the cache verifies it on first use
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(jwt);
-            } catch (Exception e) {
-                logger.error("Error extracting username from token", e);
+            String jwt = authorizationHeader.substring(7);
+            username = jwtTokenCache.resolveUsername(jwt).orElse(null);
+            if (username == null) {
+                logger.debug("Rejected invalid or expired JWT token");
             }
         }
 
-        // Validate token and set up authentication if token is valid
+        // The token is already verified, so set up authentication for its subject
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (username.equals(userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 usernamePasswordAuthenticationToken
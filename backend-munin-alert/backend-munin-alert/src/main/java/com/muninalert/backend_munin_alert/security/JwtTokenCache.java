@@ -0,0 +1,119 @@
+package com.muninalert.backend_munin_alert.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Cache of already verified JWT tokens.
+ *
+ * Each bearer token is verified (signature, subject and expiration) once; the result is
+ * then cached under the SHA-256 hash of the token, so raw tokens are never kept in memory.
+ * A cached entry never outlives the token's own {@code exp} claim, and is additionally
+ * capped by a configurable TTL. The cache is bounded: when it is full, expired entries are
+ * purged first and then arbitrary entries are dropped until there is room again.
+ */
+@Component
+public class JwtTokenCache {
+
+    private final JwtUtil jwtUtil;
+    private final int maxEntries;
+    private final long maxTtlMillis;
+
+    private final Map<String, VerifiedToken> cache = new ConcurrentHashMap<>();
+
+    public JwtTokenCache(JwtUtil jwtUtil,
+                         @Value("${jwt.cache.max-entries:10000}") int maxEntries,
+                         @Value("${jwt.cache.max-ttl-ms:300000}") long maxTtlMillis) {
+        this.jwtUtil = jwtUtil;
+        this.maxEntries = maxEntries;
+        this.maxTtlMillis = maxTtlMillis;
+    }
+
+    /**
+     * Resolves the username of a token, verifying the token only on a cache miss.
+     *
+     * @param token The compact JWT
+     * @return The username, or empty if the token is invalid or expired
+     */
+    public Optional<String> resolveUsername(String token) {
+        long now = System.currentTimeMillis();
+        String key = hash(token);
+
+        VerifiedToken cached = cache.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return Optional.of(cached.username());
+            }
+            cache.remove(key, cached);
+        }
+
+        Claims claims;
+        try {
+            claims = jwtUtil.extractAllClaims(token);
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+
+        String username = claims.getSubject();
+        if (username == null || claims.getExpiration() == null || claims.getExpiration().getTime() <= now) {
+            return Optional.empty();
+        }
+
+        long expiresAt = Math.min(claims.getExpiration().getTime(), now + maxTtlMillis);
+        makeRoom(now);
+        cache.put(key, new VerifiedToken(username, expiresAt));
+        return Optional.of(username);
+    }
+
+    /**
+     * Drops all cached tokens, e.g. after the signing secret has been rotated.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Returns the number of cached tokens.
+     *
+     * @return The cache size
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    private void makeRoom(long now) {
+        if (cache.size() < maxEntries) {
+            return;
+        }
+        cache.values().removeIf(entry -> entry.expiresAt() <= now);
+
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record VerifiedToken(String username, long expiresAt) {
+    }
+}
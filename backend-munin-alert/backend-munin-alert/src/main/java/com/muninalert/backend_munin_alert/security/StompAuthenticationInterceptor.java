@@ -0,0 +1,66 @@
+package com.muninalert.backend_munin_alert.security;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.User;
+import com.muninalert.backend_munin_alert.service.UserService;
+
+/**
+ * Authenticates STOMP sessions with the JWT sent in the CONNECT frame.
+ * 
+ * Clients send the same token as for the REST API in an {@code Authorization: Bearer ...}
+ * header of the CONNECT frame. The token is verified through the {@link JwtTokenCache}, and
+ * the session's user is set to an authentication whose name is the user's ID, so user
+ * destinations ({@code /user/queue/...}, {@code convertAndSendToUser}) are keyed by user ID.
+ * A CONNECT without a valid token is rejected with an ERROR frame.
+ */
+@Component
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenCache jwtTokenCache;
+    private final UserService userService;
+
+    @Autowired
+    public StompAuthenticationInterceptor(JwtTokenCache jwtTokenCache, @Lazy UserService userService) {
+        this.jwtTokenCache = jwtTokenCache;
+        this.userService = userService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+
+        String authorizationHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+            throw new BadCredentialsException("Missing JWT token in STOMP CONNECT");
+        }
+        String username = jwtTokenCache.resolveUsername(authorizationHeader.substring(BEARER_PREFIX.length()))
+                .orElseThrow(() -> new BadCredentialsException("Invalid or expired JWT token"));
+        User user = userService.findByUsername(username)
+                .orElseThrow(() -> new BadCredentialsException("User not found"));
+
+        List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+        accessor.setUser(new UsernamePasswordAuthenticationToken(user.getId(), null, authorities));
+        return message;
+    }
+}
@@ -8,12 +8,29 @@ import org.springframework.security.config.annotation.web.socket.AbstractSecurit
 @Configuration
 public class WebSocketSecurityConfig extends AbstractSecurityWebSocketMessageBrokerConfigurer {
 
+    /**
+     * Topic on which the nodes share the sessions of their users (relay mode).
+     */
+    public static final String USER_REGISTRY_BROADCAST = "/topic/simp-user-registry";
+
+    /**
+     * Topic on which the nodes hand each other user messages they cannot resolve (relay mode).
+     */
+    public static final String USER_DESTINATION_BROADCAST = "/topic/unresolved-user-destination";
+
     @Override
     protected void configureInbound(MessageSecurityMetadataSourceRegistry messages) {
         messages
                 .simpTypeMatchers(SimpMessageType.CONNECT, SimpMessageType.HEARTBEAT, SimpMessageType.UNSUBSCRIBE, SimpMessageType.DISCONNECT).permitAll()
                 .simpDestMatchers("/app/**").authenticated()
-                .simpSubscribeDestMatchers("/topic/**", "/queue/**").authenticated()
+                // Node-to-node channels of the user registry in relay mode: they carry the
+                // private messages and sessions of all users, so clients may not touch them
+                .simpDestMatchers(USER_REGISTRY_BROADCAST, USER_DESTINATION_BROADCAST).denyAll()
+                // Private queues are only reachable through the session's own user destinations
+                .simpSubscribeDestMatchers("/user/queue/**", "/topic/**").authenticated()
+                .simpSubscribeDestMatchers("/queue/**", "/user/**").denyAll()
+                // Clients cannot send into topics or private queues, only the server does
+                .simpMessageDestMatchers("/topic/**", "/queue/**", "/user/**").denyAll()
                 .anyMessage().authenticated();
     }
 
@@ -0,0 +1,10 @@
+package com.muninalert.backend_munin_alert.service;
+
+/**
+ * Application event published when a user starts or stops owning an active alert.
+ *
+ * @param userId The ID of the user
+ * @param active Whether the user now owns at least one active alert
+ */
+public record ActiveAlertChangedEvent(String userId, boolean active) {
+}
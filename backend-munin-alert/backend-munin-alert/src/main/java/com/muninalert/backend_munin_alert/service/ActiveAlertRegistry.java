@@ -0,0 +1,209 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.Alert;
+
+/**
+ * In-memory registry of the users who own at least one ACTIVE alert.
+ *
+ * MongoDB stays the source of truth. The alert service and the expiry scheduler report
+ * every alert they write, and the registry is fully reloaded once the application is
+ * ready and on a fixed schedule, which picks up alerts changed by other instances.
+ * Alerts reported while a reload reads its snapshot are recorded and replayed on top of
+ * the snapshot, so a reload never brings back an alert that was just resolved.
+ * Lookups are constant time, so hot paths such as the location fan-out can give users
+ * in an emergency a different treatment without querying MongoDB. Whenever a user starts
+ * or stops owning an active alert, an {@link ActiveAlertChangedEvent} is published.
+ */
+@Component
+public class ActiveAlertRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveAlertRegistry.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Alert ID to the ID of the user who owns it, for active alerts only
+    private final Map<String, String> ownerByAlert = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> alertsByUser = new ConcurrentHashMap<>();
+
+    // Alerts reported while a reload is reading its snapshot, to their owner (null value: removed)
+    private Map<String, String> writesDuringLoad;
+
+    @Autowired
+    public ActiveAlertRegistry(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Loads the owners of all active alerts from MongoDB, replacing the current contents.
+     * Only the user IDs are read. Failures are logged and keep the previous state.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${munin.alerts.active-registry.refresh-interval-ms:60000}",
+               fixedDelayString = "${munin.alerts.active-registry.refresh-interval-ms:60000}")
+    public void load() {
+        synchronized (this) {
+            writesDuringLoad = new LinkedHashMap<>();
+        }
+        try {
+            Query query = Query.query(Criteria.where("status").is(Alert.AlertStatus.ACTIVE));
+            query.fields().include("userId", "status");
+            List<Alert> alerts = mongoTemplate.find(query, Alert.class);
+
+            Map<String, String> owners = new HashMap<>();
+            alerts.stream()
+                    .filter(alert -> alert.getUserId() != null)
+                    .forEach(alert -> owners.put(alert.getId(), alert.getUserId()));
+            Set<String> before;
+            Set<String> after;
+            synchronized (this) {
+                Map<String, String> writes = writesDuringLoad;
+                writesDuringLoad = null;
+                // The snapshot may have been read before these writes
+                writes.forEach((alertId, userId) -> {
+                    if (userId != null) {
+                        owners.put(alertId, userId);
+                    } else {
+                        owners.remove(alertId);
+                    }
+                });
+                before = new HashSet<>(alertsByUser.keySet());
+                ownerByAlert.clear();
+                alertsByUser.clear();
+                ownerByAlert.putAll(owners);
+                ownerByAlert.forEach((alertId, userId) -> alertsOf(userId).add(alertId));
+                after = new HashSet<>(alertsByUser.keySet());
+            }
+            before.stream().filter(userId -> !after.contains(userId)).forEach(userId -> publish(userId, false));
+            after.stream().filter(userId -> !before.contains(userId)).forEach(userId -> publish(userId, true));
+            logger.debug("Loaded {} active alerts of {} users", ownerByAlert.size(), alertsByUser.size());
+        } catch (Exception e) {
+            logger.error("Failed to load active alert registry", e);
+        } finally {
+            synchronized (this) {
+                writesDuringLoad = null;
+            }
+        }
+    }
+
+    /**
+     * Records the current state of an alert.
+     *
+     * @param alert The alert as stored in MongoDB
+     */
+    public void track(Alert alert) {
+        if (alert == null || alert.getId() == null) {
+            return;
+        }
+        if (alert.getStatus() != Alert.AlertStatus.ACTIVE || alert.getUserId() == null) {
+            remove(alert.getId());
+            return;
+        }
+        String userId = alert.getUserId();
+        String previousOwner;
+        boolean previousOwnerCleared = false;
+        boolean activated;
+        synchronized (this) {
+            if (writesDuringLoad != null) {
+                writesDuringLoad.put(alert.getId(), userId);
+            }
+            previousOwner = ownerByAlert.put(alert.getId(), userId);
+            if (previousOwner != null && !previousOwner.equals(userId)) {
+                previousOwnerCleared = dropAlertOf(previousOwner, alert.getId());
+            }
+            activated = !alertsByUser.containsKey(userId);
+            alertsOf(userId).add(alert.getId());
+        }
+        if (previousOwnerCleared) {
+            publish(previousOwner, false);
+        }
+        if (activated) {
+            publish(userId, true);
+        }
+    }
+
+    /**
+     * Removes an alert from the registry.
+     *
+     * @param alertId The ID of the deleted or no longer active alert
+     */
+    public void remove(String alertId) {
+        String userId;
+        boolean cleared = false;
+        synchronized (this) {
+            if (writesDuringLoad != null) {
+                writesDuringLoad.put(alertId, null);
+            }
+            userId = ownerByAlert.remove(alertId);
+            if (userId != null) {
+                cleared = dropAlertOf(userId, alertId);
+            }
+        }
+        if (cleared) {
+            publish(userId, false);
+        }
+    }
+
+    /**
+     * Returns whether a user owns at least one active alert.
+     *
+     * @param userId The ID of the user
+     * @return true if the user has an active alert
+     */
+    public boolean hasActiveAlert(String userId) {
+        return userId != null && alertsByUser.containsKey(userId);
+    }
+
+    /**
+     * Returns the number of users with an active alert.
+     *
+     * @return The number of users
+     */
+    public int getUserCount() {
+        return alertsByUser.size();
+    }
+
+    private Set<String> alertsOf(String userId) {
+        return alertsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * @return true if this was the user's last active alert
+     */
+    private boolean dropAlertOf(String userId, String alertId) {
+        Set<String> remaining = alertsByUser.computeIfPresent(userId, (id, alertIds) -> {
+            alertIds.remove(alertId);
+            return alertIds.isEmpty() ? null : alertIds;
+        });
+        return remaining == null;
+    }
+
+    private void publish(String userId, boolean active) {
+        try {
+            eventPublisher.publishEvent(new ActiveAlertChangedEvent(userId, active));
+        } catch (Exception e) {
+            logger.warn("Failed to publish active alert change of user {}", userId, e);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.config.AlertExpiryProperties;
+import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.scheduler.TimingWheel;
+
+/**
+ * Moves active alerts to EXPIRED once their time-to-live has passed.
+ *
+ * Every active alert has a deadline in an in-process {@link TimingWheel}, so hundreds of
+ * thousands of pending alerts cost a few hundred bytes each and no database polling.
+ * The alert service registers alerts when they are created or updated and cancels them
+ * when they are deleted. On every tick each alert that came due is expired with a
+ * {@code findAndModify} guarded by {@code status: ACTIVE}, so alerts resolved in the
+ * meantime are left alone and exactly the alerts this instance expired are broadcast with
+ * {@link WebSocketService#sendAlertStatusUpdate(Alert)}.
+ *
+ * Group TTL overrides are read from the group membership index, so scheduling an alert
+ * does not load its group.
+ *
+ * The wheel is rebuilt from the {@code status_createdAt} index when the application starts
+ * and at a fixed interval afterwards, which also picks up alerts created by other instances.
+ * Deadlines that passed while the application was down expire on the first tick.
+ */
+@Component
+public class AlertExpiryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertExpiryScheduler.class);
+
+    private static final long RETRY_DELAY_MILLIS = 60_000;
+
+    private final AlertExpiryProperties properties;
+    private final MongoTemplate mongoTemplate;
+    private final GroupService groupService;
+    private final WebSocketService webSocketService;
+    private final ActiveAlertRegistry activeAlertRegistry;
+    private final TimingWheel<String> wheel;
+
+    @Autowired
+    public AlertExpiryScheduler(AlertExpiryProperties properties,
+                                MongoTemplate mongoTemplate,
+                                GroupService groupService,
+                                WebSocketService webSocketService,
+                                ActiveAlertRegistry activeAlertRegistry) {
+        this.properties = properties;
+        this.mongoTemplate = mongoTemplate;
+        this.groupService = groupService;
+        this.webSocketService = webSocketService;
+        this.activeAlertRegistry = activeAlertRegistry;
+        this.wheel = new TimingWheel<>(properties.getTick().toMillis(), properties.getWheelSize(),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Schedules an alert's expiry if it is active, or cancels it otherwise.
+     *
+     * @param alert The alert as stored in MongoDB
+     */
+    public void track(Alert alert) {
+        if (!properties.isEnabled() || alert == null || alert.getId() == null) {
+            return;
+        }
+        if (alert.getStatus() != Alert.AlertStatus.ACTIVE) {
+            cancel(alert.getId());
+            return;
+        }
+        long deadline = alert.getCreatedAt() + ttlOf(alert, new HashMap<>()).toMillis();
+        synchronized (wheel) {
+            wheel.schedule(alert.getId(), deadline);
+        }
+    }
+
+    /**
+     * Cancels the expiry of an alert.
+     *
+     * @param alertId The ID of the alert
+     */
+    public void cancel(String alertId) {
+        synchronized (wheel) {
+            wheel.cancel(alertId);
+        }
+    }
+
+    /**
+     * Returns the number of alerts with a pending expiry.
+     *
+     * @return The number of pending timers
+     */
+    public int getPendingCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Schedules the expiry of every active alert, reading them in creation order with
+     * only the fields needed to compute their deadline.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "#{@alertExpiryProperties.resyncInterval.toMillis()}",
+               fixedDelayString = "#{@alertExpiryProperties.resyncInterval.toMillis()}")
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Query query = Query.query(Criteria.where("status").is(Alert.AlertStatus.ACTIVE))
+                    .with(Sort.by(Sort.Direction.ASC, "createdAt"));
+            query.fields().include("alertType", "groupId", "status", "createdAt");
+
+            Map<String, Optional<Duration>> groupTtls = new HashMap<>();
+            int count = 0;
+            try (Stream<Alert> alerts = mongoTemplate.stream(query, Alert.class)) {
+                for (Alert alert : (Iterable<Alert>) alerts::iterator) {
+                    long deadline = alert.getCreatedAt() + ttlOf(alert, groupTtls).toMillis();
+                    synchronized (wheel) {
+                        wheel.schedule(alert.getId(), deadline);
+                    }
+                    count++;
+                }
+            }
+            logger.info("Scheduled expiry of {} active alerts in {} ms", count, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Failed to rebuild alert expiry timers", e);
+        }
+    }
+
+    /**
+     * Expires the alerts whose deadline has passed.
+     */
+    @Scheduled(fixedDelayString = "#{@alertExpiryProperties.tick.toMillis()}")
+    public void expireDue() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<String> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+
+        int expiredCount = expire(due);
+        if (expiredCount > 0) {
+            logger.info("Expired {} alerts", expiredCount);
+        }
+    }
+
+    /**
+     * Helper method to expire alerts and broadcast them.
+     *
+     * @param alertIds The IDs of the alerts that came due
+     * @return The number of alerts that were expired
+     */
+    private int expire(List<String> alertIds) {
+        int expiredCount = 0;
+        for (int i = 0; i < alertIds.size(); i++) {
+            long now = System.currentTimeMillis();
+            try {
+                // Returns the alert only if this update expired it
+                Alert expired = mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(alertIds.get(i)).and("status").is(Alert.AlertStatus.ACTIVE)),
+                        new Update().set("status", Alert.AlertStatus.EXPIRED).set("updatedAt", now),
+                        FindAndModifyOptions.options().returnNew(true),
+                        Alert.class);
+                if (expired != null) {
+                    activeAlertRegistry.track(expired);
+                    webSocketService.sendAlertStatusUpdate(expired);
+                    expiredCount++;
+                }
+            } catch (Exception e) {
+                List<String> remaining = alertIds.subList(i, alertIds.size());
+                logger.error("Failed to expire {} alerts, retrying in {} ms", remaining.size(), RETRY_DELAY_MILLIS, e);
+                synchronized (wheel) {
+                    remaining.forEach(alertId -> wheel.schedule(alertId, now + RETRY_DELAY_MILLIS));
+                }
+                break;
+            }
+        }
+        return expiredCount;
+    }
+
+    /**
+     * Helper method to resolve the time-to-live of an alert.
+     *
+     * @param alert The alert
+     * @param groupTtls Group TTL overrides already looked up, by group ID
+     * @return The time-to-live
+     */
+    private Duration ttlOf(Alert alert, Map<String, Optional<Duration>> groupTtls) {
+        if (alert.getGroupId() != null) {
+            Optional<Duration> groupTtl = groupTtls.computeIfAbsent(alert.getGroupId(), groupId ->
+                    groupService.findAlertSettings(groupId)
+                            .map(GroupMembershipIndex.AlertSettings::expiryMinutes)
+                            .filter(minutes -> minutes > 0)
+                            .map(Duration::ofMinutes));
+            if (groupTtl.isPresent()) {
+                return groupTtl.get();
+            }
+        }
+        return properties.getTtlByType().getOrDefault(alert.getAlertType(), properties.getDefaultTtl());
+    }
+}
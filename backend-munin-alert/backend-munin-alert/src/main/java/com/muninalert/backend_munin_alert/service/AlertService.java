@@ -3,6 +3,7 @@ package com.muninalert.backend_munin_alert.service;
 import java.util.List;
 import java.util.Optional;
 
+import com.muninalert.backend_munin_alert.dto.CursorPage;
 import com.muninalert.backend_munin_alert.model.Alert;
 
 /**
@@ -43,6 +44,17 @@ public interface AlertService {
      */
     List<Alert> findAlertsByUserId(String userId);
     
+    /**
+     * Retrieves one page of a user's alerts, newest first, using keyset pagination.
+     * 
+     * @param userId The unique identifier of the user
+     * @param cursor The cursor of the previous page, or null for the first page
+     * @param limit The maximum number of alerts on the page
+     * @return The page of alerts
+     * @throws com.muninalert.backend_munin_alert.exception.InvalidCursorException if the cursor is malformed
+     */
+    CursorPage<Alert> findAlertsPageByUserId(String userId, String cursor, int limit);
+    
     /**
      * Finds all alerts shared with a specific group.
      * 
@@ -63,6 +75,8 @@ public interface AlertService {
     
     /**
      * Updates an existing alert with new information.
+     * All fields are replaced (null fields are cleared) except the responses and the
+     * response count, which are only changed by {@link #addResponse}.
      * 
      * @param alert The alert object with updated information
      * @return The updated alert
@@ -78,6 +92,25 @@ public interface AlertService {
      */
     Alert updateAlertStatus(String id, Alert.AlertStatus status);
     
+    /**
+     * Appends a response to an alert atomically.
+     * Only the most recent responses stay embedded in the alert; older ones are moved
+     * to the alert_responses collection.
+     * 
+     * @param alertId The unique identifier of the alert
+     * @param response The response to append
+     * @return The updated alert with its embedded responses, or empty if the alert does not exist
+     */
+    Optional<Alert> addResponse(String alertId, Alert.AlertResponse response);
+    
+    /**
+     * Retrieves the full response history of an alert, oldest first.
+     * 
+     * @param alertId The unique identifier of the alert
+     * @return The responses moved out of the alert followed by the embedded ones
+     */
+    List<Alert.AlertResponse> findAlertResponses(String alertId);
+    
     /**
      * Deletes an alert from the system.
      * 
@@ -0,0 +1,26 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.util.Optional;
+
+import com.muninalert.backend_munin_alert.dto.RetentionRunReport;
+
+/**
+ * Service interface for enforcing the event retention policies.
+ */
+public interface EventRetentionService {
+    
+    /**
+     * Deletes all events that are older than their retention policy allows.
+     * If a run is already in progress, returns without deleting anything.
+     * 
+     * @return The report of this run, or empty if another run was in progress
+     */
+    Optional<RetentionRunReport> runRetention();
+    
+    /**
+     * Returns the report of the most recent completed run.
+     * 
+     * @return The last report, or empty if retention has not run yet
+     */
+    Optional<RetentionRunReport> getLastReport();
+}
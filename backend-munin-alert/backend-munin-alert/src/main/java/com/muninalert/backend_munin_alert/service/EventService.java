@@ -2,7 +2,10 @@ package com.muninalert.backend_munin_alert.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import com.muninalert.backend_munin_alert.dto.BatchEventResponse;
+import com.muninalert.backend_munin_alert.dto.CursorPage;
 import com.muninalert.backend_munin_alert.model.Event;
 
 /**
@@ -103,15 +106,61 @@ public interface EventService {
      */
     List<Event> findMostRecentEventsByUser(String userId, int limit);
     
+    /**
+     * Retrieves one page of events, newest first, using keyset pagination.
+     * 
+     * @param userId Only return events of this user, or null for all users
+     * @param eventType Only return events of this type, or null for all types
+     * @param cursor The cursor of the previous page, or null for the first page
+     * @param limit The maximum number of events on the page
+     * @return The page of events
+     * @throws com.muninalert.backend_munin_alert.exception.InvalidCursorException if the cursor is malformed
+     */
+    CursorPage<Event> findEventsPage(String userId, Event.EventType eventType, String cursor, int limit);
+    
+    /**
+     * Streams events matching the given filters, oldest first, directly from a database
+     * cursor. Memory use is bounded by the cursor batch size regardless of the number of
+     * matching events. The returned stream holds the cursor and must be closed.
+     * 
+     * @param eventType Only return events of this type, or null for all types
+     * @param from Only return events at or after this timestamp in milliseconds, or null
+     * @param to Only return events before this timestamp in milliseconds, or null
+     * @param minConfidence Only return events with at least this confidence, or null
+     * @return A stream of matching events
+     */
+    Stream<Event> streamEvents(Event.EventType eventType, Long from, Long to, Double minConfidence);
+    
     /**
      * Processes a new event and takes appropriate actions based on the event type.
      * This may include generating alerts, sending notifications, or updating user status.
      * 
+     * The event is stored before this method returns; the follow-up actions run
+     * asynchronously, in order per user.
+     * 
      * @param event The event to process
-     * @return The processed event
+     * @return The stored event
+     * @throws com.muninalert.backend_munin_alert.exception.EventPipelineSaturatedException
+     *         if the processing pipeline is at capacity (the event is not stored)
      */
     Event processNewEvent(Event event);
     
+    /**
+     * Processes a batch of events uploaded at once, e.g. by a device that was offline.
+     * 
+     * Every event is validated individually; the valid ones are stored with a single
+     * bulk insert and processed like {@link #processNewEvent(Event)}, except that each
+     * user's last known location is updated once, from their latest event, rather than
+     * once per event. Invalid events are reported and skipped.
+     * 
+     * @param events The events to process
+     * @return The per-event results, in submission order
+     * @throws IllegalArgumentException if the batch exceeds the configured maximum size
+     * @throws com.muninalert.backend_munin_alert.exception.EventPipelineSaturatedException
+     *         if the processing pipeline is at capacity (no event is stored)
+     */
+    BatchEventResponse processEventBatch(List<Event> events);
+    
     /**
      * Deletes an event from the system.
      * 
@@ -0,0 +1,52 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.util.List;
+
+import com.muninalert.backend_munin_alert.model.Event;
+import com.muninalert.backend_munin_alert.model.Location;
+
+/**
+ * Service interface for server-side geofencing in the Munin Alert system.
+ * 
+ * The geofence engine keeps track of which safe havens and active risk areas each
+ * user is currently inside. Every location update is compared against that state,
+ * and ENTER/EXIT events are generated for the areas that changed, so devices no
+ * longer need to poll for safe haven or risk area membership themselves.
+ */
+public interface GeofenceService {
+    
+    /**
+     * Evaluates a new location for a user and records any geofence transitions.
+     * Transition events are persisted and pushed to the user over WebSocket.
+     * A location older than the last one evaluated for the user is ignored.
+     * 
+     * @param userId The ID of the user
+     * @param location The user's new location
+     * @return The transition events generated for this update (may be empty)
+     */
+    List<Event> evaluateLocation(String userId, Location location);
+    
+    /**
+     * Forgets the geofence state of a user, e.g. when the account is deleted.
+     * 
+     * @param userId The ID of the user
+     */
+    void clearUserState(String userId);
+    
+    /**
+     * Returns whether a user was inside at least one safe haven at their last evaluated location.
+     * 
+     * @param userId The ID of the user
+     * @return true if the user is inside a safe haven
+     */
+    boolean isInsideSafeHaven(String userId);
+    
+    /**
+     * Removes a risk area from all users' geofence state. Users who were inside the
+     * area receive an EXIT_RISK_AREA transition at their last evaluated location.
+     * 
+     * @param riskAlertId The ID of the risk alert that is no longer active
+     * @return The generated EXIT transitions (may be empty)
+     */
+    List<Event> clearRiskArea(String riskAlertId);
+}
@@ -0,0 +1,268 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.Group;
+
+/**
+ * In-memory index of group membership in both directions: user ID to the IDs of the
+ * groups the user belongs to, and group ID to its members, admins and owner. It also
+ * keeps the alert settings of each group (countdown and expiry), which are read every
+ * time an alert is raised or changed.
+ *
+ * MongoDB stays the source of truth. The index is loaded once the application is ready,
+ * kept in sync by {@link GroupService} after each successful write, and fully reloaded on
+ * a fixed schedule so changes made by other instances are picked up. Until the first load
+ * has finished, {@link #isReady()} returns false and callers should query MongoDB instead.
+ * Groups created or changed on another node are only picked up by the next reload, so
+ * {@link GroupService} confirms a denied access check against MongoDB and puts the result.
+ * Writes applied while a reload reads its snapshot are recorded and replayed on top of
+ * the snapshot, so a reload never brings back a membership that was just changed. A group
+ * is only replaced by a document with the same or a newer {@code updatedAt}, so results of
+ * concurrent writes that arrive out of order cannot roll the index back.
+ *
+ * Lookups are constant time and return unmodifiable views.
+ */
+@Component
+public class GroupMembershipIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupMembershipIndex.class);
+
+    /**
+     * The group fields the index is built from; documents read to refresh the index must
+     * include all of them.
+     */
+    public static final String[] FIELDS = { "ownerId", "adminIds", "memberIds", "updatedAt",
+            "settings.alertCountdownSeconds", "settings.alertExpiryMinutes" };
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, Membership> byGroup = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> groupsByUser = new ConcurrentHashMap<>();
+
+    // Writes made while a reload is reading its snapshot, by group ID (null value: removed)
+    private Map<String, Group> writesDuringLoad;
+
+    private volatile boolean ready = false;
+
+    @Autowired
+    public GroupMembershipIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Loads the membership of all groups from MongoDB, replacing the current contents.
+     * Only the membership fields are read. Failures are logged and keep the previous state.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${munin.groups.membership.refresh-interval-ms:300000}",
+               fixedDelayString = "${munin.groups.membership.refresh-interval-ms:300000}")
+    public void load() {
+        synchronized (this) {
+            writesDuringLoad = new LinkedHashMap<>();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Query query = new Query();
+            query.fields().include(FIELDS);
+            List<Group> groups = mongoTemplate.find(query, Group.class);
+
+            synchronized (this) {
+                Map<String, Group> writes = writesDuringLoad;
+                writesDuringLoad = null;
+                byGroup.clear();
+                groupsByUser.clear();
+                groups.forEach(this::put);
+                // The snapshot may have been read before these writes
+                writes.forEach((groupId, group) -> {
+                    if (group != null) {
+                        put(group);
+                    } else {
+                        removeGroup(groupId);
+                    }
+                });
+            }
+            ready = true;
+            logger.debug("Loaded membership of {} groups in {} ms", groups.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Failed to load group membership index", e);
+        } finally {
+            synchronized (this) {
+                writesDuringLoad = null;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the index has been loaded and can serve lookups.
+     *
+     * @return true once the first load has succeeded
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds or replaces the membership of a group, unless the indexed membership comes
+     * from a newer document.
+     *
+     * @param group The group as stored in MongoDB
+     */
+    public synchronized void put(Group group) {
+        if (group == null || group.getId() == null) {
+            return;
+        }
+        if (writesDuringLoad != null) {
+            writesDuringLoad.merge(group.getId(), group,
+                    (recorded, newer) -> recorded != null && recorded.getUpdatedAt() > newer.getUpdatedAt() ? recorded : newer);
+        }
+        Membership indexed = byGroup.get(group.getId());
+        if (indexed != null && indexed.updatedAt() > group.getUpdatedAt()) {
+            return;
+        }
+        unindex(group.getId());
+
+        Set<String> members = ConcurrentHashMap.newKeySet();
+        if (group.getMemberIds() != null) {
+            members.addAll(group.getMemberIds());
+        }
+        Set<String> admins = ConcurrentHashMap.newKeySet();
+        if (group.getAdminIds() != null) {
+            admins.addAll(group.getAdminIds());
+        }
+        AlertSettings alertSettings = group.getSettings() != null
+                ? new AlertSettings(group.getSettings().getAlertCountdownSeconds(), group.getSettings().getAlertExpiryMinutes())
+                : null;
+        byGroup.put(group.getId(), new Membership(group.getOwnerId(), members, admins, alertSettings, group.getUpdatedAt()));
+        members.forEach(userId -> groupsOf(userId).add(group.getId()));
+    }
+
+    /**
+     * Removes a group from the index.
+     *
+     * @param groupId The ID of the deleted group
+     */
+    public synchronized void removeGroup(String groupId) {
+        if (writesDuringLoad != null) {
+            writesDuringLoad.put(groupId, null);
+        }
+        unindex(groupId);
+    }
+
+    /**
+     * Returns the IDs of the groups a user belongs to.
+     *
+     * @param userId The ID of the user
+     * @return An unmodifiable view of the group IDs (empty if none)
+     */
+    public Set<String> getGroupIds(String userId) {
+        Set<String> groupIds = userId != null ? groupsByUser.get(userId) : null;
+        return groupIds != null ? Collections.unmodifiableSet(groupIds) : Set.of();
+    }
+
+    /**
+     * Returns whether a user is a member of a group.
+     *
+     * @param groupId The ID of the group
+     * @param userId The ID of the user
+     * @return true if the user is a member
+     */
+    public boolean isMember(String groupId, String userId) {
+        Membership membership = groupId != null ? byGroup.get(groupId) : null;
+        return membership != null && userId != null && membership.members().contains(userId);
+    }
+
+    /**
+     * Returns whether a user owns or administers a group.
+     *
+     * @param groupId The ID of the group
+     * @param userId The ID of the user
+     * @return true if the user is the owner or an admin
+     */
+    public boolean isOwnerOrAdmin(String groupId, String userId) {
+        Membership membership = groupId != null ? byGroup.get(groupId) : null;
+        return membership != null && userId != null
+                && (userId.equals(membership.ownerId()) || membership.admins().contains(userId));
+    }
+
+    /**
+     * Returns whether a group is in the index.
+     *
+     * @param groupId The ID of the group
+     * @return true if the group is indexed
+     */
+    public boolean contains(String groupId) {
+        return groupId != null && byGroup.containsKey(groupId);
+    }
+
+    /**
+     * Returns the alert settings of a group.
+     *
+     * @param groupId The ID of the group
+     * @return The alert settings, or empty if the group is not indexed or has no settings
+     */
+    public Optional<AlertSettings> getAlertSettings(String groupId) {
+        Membership membership = groupId != null ? byGroup.get(groupId) : null;
+        return membership != null ? Optional.ofNullable(membership.alertSettings()) : Optional.empty();
+    }
+
+    /**
+     * Returns size statistics for the index.
+     *
+     * @return A map of statistic names to values
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("groups", byGroup.size());
+        stats.put("users", groupsByUser.size());
+        return stats;
+    }
+
+    private void unindex(String groupId) {
+        Membership removed = byGroup.remove(groupId);
+        if (removed != null) {
+            removed.members().forEach(userId -> dropGroupOf(userId, groupId));
+        }
+    }
+
+    private Set<String> groupsOf(String userId) {
+        return groupsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet());
+    }
+
+    private void dropGroupOf(String userId, String groupId) {
+        groupsByUser.computeIfPresent(userId, (id, groupIds) -> {
+            groupIds.remove(groupId);
+            return groupIds.isEmpty() ? null : groupIds;
+        });
+    }
+
+    /**
+     * The settings of a group that apply to its alerts.
+     *
+     * @param countdownSeconds The countdown before an alert is raised
+     * @param expiryMinutes The alert time-to-live override, or null if not set
+     */
+    public record AlertSettings(int countdownSeconds, Integer expiryMinutes) {
+    }
+
+    private record Membership(String ownerId, Set<String> members, Set<String> admins,
+                              AlertSettings alertSettings, long updatedAt) {
+    }
+}
@@ -1,7 +1,9 @@
 package com.muninalert.backend_munin_alert.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import com.muninalert.backend_munin_alert.model.Group;
 
@@ -14,13 +16,25 @@ public interface GroupService {
     
     List<Group> findGroupsByMemberId(String memberId);
     
+    Set<String> findGroupIdsByMemberId(String memberId);
+    
+    boolean isMember(String groupId, String userId);
+    
+    boolean isOwnerOrAdmin(String groupId, String userId);
+    
+    Optional<GroupMembershipIndex.AlertSettings> findAlertSettings(String groupId);
+    
     List<Group> findGroupsByOwnerId(String ownerId);
     
     Group updateGroup(Group group);
     
     Group addMemberToGroup(String groupId, String userId);
     
+    Group addMembersToGroup(String groupId, Collection<String> userIds);
+    
     Group removeMemberFromGroup(String groupId, String userId);
     
+    Group removeMembersFromGroup(String groupId, Collection<String> userIds);
+    
     void deleteGroup(String id);
 }
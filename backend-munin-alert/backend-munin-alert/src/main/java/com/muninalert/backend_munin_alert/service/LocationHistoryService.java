@@ -0,0 +1,46 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import com.muninalert.backend_munin_alert.model.Location;
+import com.muninalert.backend_munin_alert.model.LocationPoint;
+
+/**
+ * Service interface for recording and replaying users' location history.
+ * 
+ * Recorded locations are buffered and written in batches, so recording never
+ * blocks on the database. Queries return lazily streamed results so that long
+ * tracks are never held in memory at once.
+ */
+public interface LocationHistoryService {
+    
+    /**
+     * Records a location in the user's history. The write is buffered; if the
+     * buffer is full the point is dropped.
+     * 
+     * @param userId The ID of the user
+     * @param location The reported location
+     */
+    void record(String userId, Location location);
+    
+    /**
+     * Streams a user's track within a time range, oldest point first.
+     * The returned stream holds a database cursor and must be closed.
+     * 
+     * @param userId The ID of the user
+     * @param from The start of the range (inclusive)
+     * @param to The end of the range (exclusive), or null for no upper bound
+     * @return A stream of location points
+     */
+    Stream<LocationPoint> streamTrack(String userId, Instant from, Instant to);
+    
+    /**
+     * Streams the track of the user who raised an alert, from the moment the alert
+     * was created until now. The returned stream holds a database cursor and must be closed.
+     * 
+     * @param alertId The ID of the alert
+     * @return A stream of location points, or an empty stream if the alert does not exist
+     */
+    Stream<LocationPoint> streamTrackSinceAlert(String alertId);
+}
@@ -0,0 +1,214 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.cluster.ClusterFanout;
+import com.muninalert.backend_munin_alert.config.LocationCoalescingProperties;
+import com.muninalert.backend_munin_alert.geo.GeoUtils;
+import com.muninalert.backend_munin_alert.model.Location;
+
+/**
+ * Coalescing stage in front of the location fan-out to {@code /topic/location/{userId}}.
+ *
+ * Devices report fixes far more often than watchers need them, and every forwarded fix
+ * is sent to every subscriber. Instead of forwarding each fix, only the latest pending
+ * fix of a user is kept and flushed on a tick, at most once per window. A flushed fix is
+ * suppressed if the user has not moved at least the minimum distance since the last
+ * forwarded fix, and fixes with a poor accuracy are dropped while a good one is recent,
+ * so a stationary user costs one update per keep-alive interval.
+ *
+ * Users who own an active alert (see {@link ActiveAlertRegistry}) are flushed with the
+ * shorter alert window so their watchers can follow them closely.
+ */
+@Component
+public class LocationUpdateCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationUpdateCoalescer.class);
+
+    private final LocationCoalescingProperties properties;
+    private final ClusterFanout clusterFanout;
+    private final ActiveAlertRegistry activeAlertRegistry;
+
+    private final Map<String, UserState> states = new ConcurrentHashMap<>();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder inaccurate = new LongAdder();
+    private final LongAdder unmoved = new LongAdder();
+
+    @Autowired
+    public LocationUpdateCoalescer(LocationCoalescingProperties properties,
+                                   ClusterFanout clusterFanout,
+                                   ActiveAlertRegistry activeAlertRegistry) {
+        this.properties = properties;
+        this.clusterFanout = clusterFanout;
+        this.activeAlertRegistry = activeAlertRegistry;
+    }
+
+    /**
+     * Queues a location fix of a user for the fan-out, replacing any older pending fix.
+     *
+     * @param userId The ID of the user
+     * @param location The user's new location
+     */
+    public void offer(String userId, Location location) {
+        if (userId == null || location == null) {
+            return;
+        }
+        received.increment();
+        if (!properties.isEnabled()) {
+            send(userId, location);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        while (true) {
+            UserState state = states.computeIfAbsent(userId, id -> new UserState());
+            synchronized (state) {
+                if (state.evicted) {
+                    // Evicted by a concurrent flush; retry with a fresh state
+                    continue;
+                }
+                state.lastSeenAt = now;
+                if (isInaccurate(location) && state.lastSent != null
+                        && now - state.lastSentAt < properties.getKeepAlive().toMillis()) {
+                    inaccurate.increment();
+                    return;
+                }
+                if (state.pending == null) {
+                    state.pending = location;
+                } else {
+                    superseded.increment();
+                    if (location.getTimestamp() >= state.pending.getTimestamp()) {
+                        state.pending = location;
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forwards the pending fixes whose window has passed.
+     */
+    @Scheduled(fixedDelayString = "#{@locationCoalescingProperties.tick.toMillis()}")
+    public void flush() {
+        flush(System.currentTimeMillis());
+    }
+
+    /**
+     * Forwards the pending fixes whose window has passed at the given time.
+     *
+     * @param now The current time in milliseconds
+     */
+    void flush(long now) {
+        List<Map.Entry<String, Location>> batch = new ArrayList<>();
+        for (Map.Entry<String, UserState> entry : states.entrySet()) {
+            Location due = takeDue(entry.getKey(), entry.getValue(), now);
+            if (due != null) {
+                batch.add(Map.entry(entry.getKey(), due));
+            }
+        }
+
+        for (Map.Entry<String, Location> entry : batch) {
+            try {
+                send(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                logger.warn("Failed to send location update of user {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns counters of the fixes received and what became of them.
+     *
+     * @return A map of statistic names to values
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", states.size());
+        stats.put("received", received.sum());
+        stats.put("forwarded", forwarded.sum());
+        stats.put("superseded", superseded.sum());
+        stats.put("inaccurate", inaccurate.sum());
+        stats.put("unmoved", unmoved.sum());
+        return stats;
+    }
+
+    /**
+     * Helper method to take the pending fix of a user if it is due to be forwarded.
+     *
+     * @param userId The ID of the user
+     * @param state The coalescing state of the user
+     * @param now The current time in milliseconds
+     * @return The fix to forward, or null if none
+     */
+    private Location takeDue(String userId, UserState state, long now) {
+        synchronized (state) {
+            if (state.pending == null) {
+                if (now - state.lastSeenAt >= properties.getIdleTimeout().toMillis()) {
+                    state.evicted = true;
+                    states.remove(userId, state);
+                }
+                return null;
+            }
+
+            long window = activeAlertRegistry.hasActiveAlert(userId)
+                    ? properties.getActiveAlertWindow().toMillis()
+                    : properties.getWindow().toMillis();
+            if (state.lastSent != null && now - state.lastSentAt < window) {
+                return null;
+            }
+
+            Location candidate = state.pending;
+            state.pending = null;
+            if (state.lastSent != null
+                    && now - state.lastSentAt < properties.getKeepAlive().toMillis()
+                    && distanceMeters(state.lastSent, candidate) < properties.getMinDistanceMeters()) {
+                unmoved.increment();
+                return null;
+            }
+            state.lastSent = candidate;
+            state.lastSentAt = now;
+            return candidate;
+        }
+    }
+
+    private void send(String userId, Location location) {
+        clusterFanout.send("/topic/location/" + userId, location);
+        forwarded.increment();
+    }
+
+    private boolean isInaccurate(Location location) {
+        return properties.getMaxAccuracyMeters() > 0 && location.getAccuracy() > properties.getMaxAccuracyMeters();
+    }
+
+    private static double distanceMeters(Location from, Location to) {
+        if (from.getCoordinates() == null || to.getCoordinates() == null) {
+            // Not comparable; treat as moved so the fix is not lost
+            return Double.MAX_VALUE;
+        }
+        return GeoUtils.distanceMeters(from.getCoordinates().getY(), from.getCoordinates().getX(),
+                to.getCoordinates().getY(), to.getCoordinates().getX());
+    }
+
+    private static class UserState {
+        private Location pending;
+        private Location lastSent;
+        private long lastSentAt;
+        private long lastSeenAt;
+        private boolean evicted;
+    }
+}
@@ -0,0 +1,121 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.Location;
+import com.muninalert.backend_munin_alert.model.User;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind buffer for users' last known locations.
+ *
+ * Location updates only replace the pending entry of a user, so however many fixes
+ * arrive between two flushes, each user costs at most one write per flush. A flush
+ * sends a single unordered bulk of targeted {@code $set lastKnownLocation} updates
+ * instead of rewriting whole user documents.
+ *
+ * Pending locations are lost if the process dies between flushes; this is acceptable
+ * because devices keep reporting their location. On a normal shutdown the buffer is
+ * flushed one last time.
+ */
+@Component
+public class LocationWriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationWriteBehindBuffer.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, Location> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LocationWriteBehindBuffer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Buffers a location for a user, replacing any older pending location.
+     * A location older than the pending one is ignored.
+     *
+     * @param userId The ID of the user
+     * @param location The user's new location
+     */
+    public void record(String userId, Location location) {
+        if (userId == null || location == null) {
+            return;
+        }
+        pending.merge(userId, location, LocationWriteBehindBuffer::latest);
+    }
+
+    /**
+     * Returns the number of users with a location waiting to be written.
+     *
+     * @return The number of pending locations
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Writes all pending locations to MongoDB in one bulk operation.
+     * If the write fails, the locations are put back (unless a newer one arrived
+     * in the meantime) and retried on the next flush.
+     */
+    @Scheduled(fixedDelayString = "${munin.location.write-behind.flush-interval-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Take the current entries out; updates arriving meanwhile go to the next flush
+        List<Map.Entry<String, Location>> batch = new ArrayList<>();
+        for (String userId : pending.keySet()) {
+            Location location = pending.remove(userId);
+            if (location != null) {
+                batch.add(Map.entry(userId, location));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            for (Map.Entry<String, Location> entry : batch) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(entry.getKey())),
+                        Update.update("lastKnownLocation", entry.getValue()));
+            }
+            bulk.execute();
+            logger.debug("Flushed {} buffered user locations", batch.size());
+        } catch (Exception e) {
+            logger.warn("Failed to flush {} buffered user locations, will retry", batch.size(), e);
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), LocationWriteBehindBuffer::latest));
+        }
+    }
+
+    /**
+     * Flushes the remaining locations before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static Location latest(Location current, Location candidate) {
+        return candidate.getTimestamp() >= current.getTimestamp() ? candidate : current;
+    }
+}
@@ -0,0 +1,326 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.config.AlertCountdownProperties;
+import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.model.Event;
+import com.muninalert.backend_munin_alert.model.PendingAlert;
+import com.muninalert.backend_munin_alert.scheduler.TimingWheel;
+
+/**
+ * Runs the countdown of alerts raised by fall and collision events.
+ *
+ * Instead of raising the alert, the event service hands it to {@link #start(Event, Alert)}:
+ * the alert is stored in the {@code pending_alerts} collection, the user is told on
+ * {@code /user/queue/pending-alerts} how long they have to cancel it, and the
+ * deadline goes into an in-process {@link TimingWheel}. All countdowns are advanced by
+ * one periodic tick on the shared scheduling pool ({@code spring.task.scheduling.pool.size}),
+ * so many concurrent countdowns cost no threads or polling.
+ *
+ * Firing first marks the pending alert FIRING with one {@code findAndModify}, creates the
+ * alert and only then removes the pending alert; cancelling removes a PENDING one with one
+ * {@code findAndRemove}, so exactly one of them wins, also across instances. The alert gets
+ * the ID of the pending alert, so firing again after a crash does not create a second one.
+ * The wheel is rebuilt from MongoDB when the application starts and at a fixed interval, so
+ * countdowns survive a restart and the countdowns of an instance that went down are fired by
+ * the others. Countdowns that ran out while no instance was running fire on the first tick,
+ * and alerts left FIRING by an instance that went down fire again once their lease is over.
+ */
+@Component
+public class PendingAlertScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingAlertScheduler.class);
+
+    private static final long RETRY_DELAY_MILLIS = 5_000;
+
+    private static final long FIRING_LEASE_MILLIS = 60_000;
+
+    private final AlertCountdownProperties properties;
+    private final MongoTemplate mongoTemplate;
+    private final AlertService alertService;
+    private final GroupService groupService;
+    private final WebSocketService webSocketService;
+    private final TimingWheel<String> wheel;
+
+    @Autowired
+    public PendingAlertScheduler(AlertCountdownProperties properties,
+                                 MongoTemplate mongoTemplate,
+                                 AlertService alertService,
+                                 GroupService groupService,
+                                 WebSocketService webSocketService) {
+        this.properties = properties;
+        this.mongoTemplate = mongoTemplate;
+        this.alertService = alertService;
+        this.groupService = groupService;
+        this.webSocketService = webSocketService;
+        this.wheel = new TimingWheel<>(properties.getTick().toMillis(), properties.getWheelSize(),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Returns whether an event should start a countdown instead of raising its alert at once.
+     *
+     * @param event The event that raises an alert
+     * @return true if the event type is subject to a countdown
+     */
+    public boolean appliesTo(Event event) {
+        return properties.isEnabled() && properties.getEventTypes().contains(event.getEventType());
+    }
+
+    /**
+     * Starts the countdown of an alert, or raises it at once if the user's countdown is zero.
+     *
+     * @param event The event that raised the alert
+     * @param alert The alert to create when the countdown runs out (not yet saved)
+     * @return The stored pending alert, or empty if the alert was raised at once
+     */
+    public Optional<PendingAlert> start(Event event, Alert alert) {
+        long countdownMillis = countdownMillisOf(event.getUserId());
+        if (countdownMillis <= 0) {
+            raise(alert);
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        PendingAlert pending = new PendingAlert();
+        pending.setUserId(event.getUserId());
+        pending.setEventId(event.getId());
+        pending.setAlert(alert);
+        pending.setCreatedAt(now);
+        pending.setFireAt(now + countdownMillis);
+
+        PendingAlert saved = mongoTemplate.insert(pending);
+        schedule(saved);
+        webSocketService.sendPendingAlertUpdate(saved);
+        return Optional.of(saved);
+    }
+
+    /**
+     * Cancels a countdown before it runs out.
+     *
+     * @param pendingAlertId The ID of the pending alert
+     * @param userId The ID of the user cancelling it, or null if the caller is not known
+     * @return true if the countdown was cancelled, false if it is unknown or has already fired
+     */
+    public boolean cancel(String pendingAlertId, String userId) {
+        Criteria criteria = Criteria.where("_id").is(pendingAlertId)
+                .and("status").is(PendingAlert.PendingAlertStatus.PENDING);
+        if (userId != null) {
+            criteria.and("userId").is(userId);
+        }
+        PendingAlert cancelled = mongoTemplate.findAndRemove(Query.query(criteria), PendingAlert.class);
+        if (cancelled == null) {
+            return false;
+        }
+        synchronized (wheel) {
+            wheel.cancel(pendingAlertId);
+        }
+        cancelled.setStatus(PendingAlert.PendingAlertStatus.CANCELLED);
+        webSocketService.sendPendingAlertUpdate(cancelled);
+        logger.info("Alert countdown {} cancelled by user {}", pendingAlertId, cancelled.getUserId());
+        return true;
+    }
+
+    /**
+     * Returns the number of running countdowns.
+     *
+     * @return The number of pending timers
+     */
+    public int getPendingCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Schedules every stored countdown, reading only the fields needed for its deadline.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "#{@alertCountdownProperties.resyncInterval.toMillis()}",
+               fixedDelayString = "#{@alertCountdownProperties.resyncInterval.toMillis()}")
+    public void rebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            Query query = new Query().with(Sort.by(Sort.Direction.ASC, "fireAt"));
+            query.fields().include("fireAt").include("status").include("firingSince");
+
+            int count = 0;
+            try (Stream<PendingAlert> pendingAlerts = mongoTemplate.stream(query, PendingAlert.class)) {
+                for (PendingAlert pending : (Iterable<PendingAlert>) pendingAlerts::iterator) {
+                    schedule(pending);
+                    count++;
+                }
+            }
+            logger.info("Scheduled {} pending alert countdowns in {} ms", count, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Failed to rebuild pending alert countdowns", e);
+        }
+    }
+
+    /**
+     * Raises the alerts whose countdown has run out.
+     */
+    @Scheduled(fixedDelayString = "#{@alertCountdownProperties.tick.toMillis()}")
+    public void fireDue() {
+        List<String> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        due.forEach(this::fire);
+    }
+
+    /**
+     * Helper method to raise the alert of a countdown that has run out, unless it was
+     * cancelled or is being fired by another instance. The pending alert is only removed
+     * once the alert exists and has been broadcast, so a crash in between leaves it FIRING
+     * and it is fired again when the lease is over; an alert that already exists is
+     * broadcast again rather than created. Only if creating the alert fails does the
+     * pending alert go back to PENDING, where it can still be cancelled.
+     *
+     * @param pendingAlertId The ID of the pending alert
+     */
+    private void fire(String pendingAlertId) {
+        try {
+            long now = System.currentTimeMillis();
+            Query query = Query.query(Criteria.where("_id").is(pendingAlertId).orOperator(
+                    Criteria.where("status").is(PendingAlert.PendingAlertStatus.PENDING),
+                    Criteria.where("status").is(PendingAlert.PendingAlertStatus.FIRING)
+                            .and("firingSince").lte(now - FIRING_LEASE_MILLIS)));
+            Update update = new Update()
+                    .set("status", PendingAlert.PendingAlertStatus.FIRING)
+                    .set("firingSince", now);
+            PendingAlert pending = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), PendingAlert.class);
+            if (pending == null) {
+                return;
+            }
+
+            // An alert created by an earlier attempt is kept as it is (it may have responses)
+            Alert saved = alertService.findAlertById(pending.getId()).orElse(null);
+            if (saved == null) {
+                Alert alert = pending.getAlert();
+                alert.setId(pending.getId());
+                try {
+                    saved = create(alert);
+                } catch (RuntimeException e) {
+                    // No alert exists, so hand the countdown back: it is retried and can still be cancelled
+                    updateFiring(pendingAlertId,
+                            new Update().set("status", PendingAlert.PendingAlertStatus.PENDING).unset("firingSince"));
+                    throw e;
+                }
+            }
+            try {
+                // Until the pending alert is removed the alert may not have been announced yet
+                webSocketService.broadcastAlert(saved);
+            } catch (RuntimeException e) {
+                // The alert exists, so the countdown stays FIRING and cannot be cancelled any more;
+                // end the lease so the retry can take it over at once
+                updateFiring(pendingAlertId, new Update().set("firingSince", 0L));
+                throw e;
+            }
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(pendingAlertId)), PendingAlert.class);
+
+            pending.setAlertId(saved.getId());
+            pending.setStatus(PendingAlert.PendingAlertStatus.FIRED);
+            webSocketService.sendPendingAlertUpdate(pending);
+        } catch (Exception e) {
+            logger.error("Failed to fire pending alert {}, retrying in {} ms", pendingAlertId, RETRY_DELAY_MILLIS, e);
+            synchronized (wheel) {
+                wheel.schedule(pendingAlertId, System.currentTimeMillis() + RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Helper method to create and broadcast an alert.
+     *
+     * @param alert The alert to raise
+     * @return The saved alert
+     */
+    private Alert raise(Alert alert) {
+        Alert saved = create(alert);
+        webSocketService.broadcastAlert(saved);
+        return saved;
+    }
+
+    /**
+     * Helper method to create an alert.
+     *
+     * @param alert The alert to create
+     * @return The saved alert
+     */
+    private Alert create(Alert alert) {
+        long now = System.currentTimeMillis();
+        alert.setCreatedAt(now);
+        alert.setUpdatedAt(now);
+        return alertService.createAlert(alert);
+    }
+
+    /**
+     * Helper method to update a pending alert that is being fired, best effort (if it
+     * fails, the lease runs out and the alert is fired again).
+     *
+     * @param pendingAlertId The ID of the pending alert
+     * @param update The update to apply
+     */
+    private void updateFiring(String pendingAlertId, Update update) {
+        try {
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(pendingAlertId)
+                            .and("status").is(PendingAlert.PendingAlertStatus.FIRING)),
+                    update, PendingAlert.class);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to update firing pending alert {}", pendingAlertId, e);
+        }
+    }
+
+    /**
+     * Helper method to add a countdown to the wheel. The wheel may report a key up to one
+     * tick early, so the deadline is pushed back by one tick. A pending alert that is being
+     * fired is due again when its lease is over.
+     *
+     * @param pending The pending alert
+     */
+    private void schedule(PendingAlert pending) {
+        long deadline = pending.getStatus() == PendingAlert.PendingAlertStatus.FIRING && pending.getFiringSince() != null
+                ? pending.getFiringSince() + FIRING_LEASE_MILLIS
+                : pending.getFireAt();
+        synchronized (wheel) {
+            wheel.schedule(pending.getId(), deadline + properties.getTick().toMillis());
+        }
+    }
+
+    /**
+     * Helper method to resolve the countdown of a user: the shortest countdown of the
+     * groups the user belongs to, otherwise the default. The settings come from the
+     * group membership index.
+     *
+     * @param userId The ID of the user
+     * @return The countdown in milliseconds
+     */
+    private long countdownMillisOf(String userId) {
+        return groupService.findGroupIdsByMemberId(userId).stream()
+                .map(groupService::findAlertSettings)
+                .flatMap(Optional::stream)
+                .mapToLong(settings -> Math.max(0, settings.countdownSeconds()) * 1000L)
+                .min()
+                .orElse(properties.getDefaultCountdown().toMillis());
+    }
+}
@@ -0,0 +1,200 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.Event;
+
+/**
+ * Bounded cache of each user's most recent events, newest first.
+ *
+ * For every cached user the cache holds up to {@code perUser} events, loaded with a
+ * single limited query on a miss. New events are merged in as they are stored, so a
+ * "recent events" read is answered from memory in O(limit). Requests for more events
+ * than the cache holds per user go straight to the database.
+ *
+ * Deletions are not tracked individually: callers invalidate the affected user (or
+ * the whole cache) after deleting, and the TTL bounds staleness for anything that is missed.
+ * Cached events are shared and must not be modified by callers.
+ *
+ * Every write (merge or invalidation) bumps a stamp of the user's stripe. A load only
+ * caches its result if the stamp did not change while it ran, so events stored or deleted
+ * during a load are never lost from, or kept in, the cache. Merged events replace cached
+ * events with the same ID, so an event is never listed twice.
+ */
+@Component
+public class RecentEventsCache {
+
+    // Same order as the database query (timestamp, then ID, descending)
+    private static final Comparator<Event> NEWEST_FIRST =
+            Comparator.comparingLong(Event::getTimestamp).reversed()
+                    .thenComparing(Event::getId, Comparator.reverseOrder());
+
+    private static final int STAMP_STRIPES = 1024;
+
+    private final int perUser;
+    private final int maxUsers;
+    private final long ttlMillis;
+
+    private final Map<String, CachedEvents> byUser = new ConcurrentHashMap<>();
+    private final AtomicLongArray writeStamps = new AtomicLongArray(STAMP_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public RecentEventsCache(@Value("${munin.cache.recent-events.per-user:50}") int perUser,
+                             @Value("${munin.cache.recent-events.max-users:10000}") int maxUsers,
+                             @Value("${munin.cache.recent-events.ttl-ms:60000}") long ttlMillis) {
+        this.perUser = perUser;
+        this.maxUsers = maxUsers;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns a user's most recent events, loading them on a cache miss.
+     *
+     * @param userId The ID of the user
+     * @param limit The maximum number of events to return
+     * @param loader Loads up to the given number of most recent events from the database
+     * @return Up to {@code limit} events, newest first
+     */
+    public List<Event> getRecent(String userId, int limit, IntFunction<List<Event>> loader) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        if (userId == null || limit > perUser) {
+            return loader.apply(limit);
+        }
+
+        CachedEvents cached = byUser.get(userId);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            hits.increment();
+            return cached.events().subList(0, Math.min(limit, cached.events().size()));
+        }
+
+        misses.increment();
+        int stripe = stripeOf(userId);
+        long stamp = writeStamps.get(stripe);
+        List<Event> loaded = List.copyOf(loader.apply(perUser));
+        makeRoom();
+
+        long now = System.currentTimeMillis();
+        CachedEvents fresh = new CachedEvents(loaded, now + ttlMillis);
+        byUser.compute(userId, (key, existing) -> {
+            if (existing != null && existing.expiresAt() > now) {
+                // Loaded concurrently and kept up to date since; never overwrite it
+                return existing;
+            }
+            // A write during the load may be missing from (or still in) the loaded events
+            return writeStamps.get(stripe) == stamp ? fresh : null;
+        });
+        return loaded.subList(0, Math.min(limit, loaded.size()));
+    }
+
+    /**
+     * Merges newly stored events into the cached lists of their users, replacing cached
+     * events with the same ID. Users that are not cached are left alone; they are loaded
+     * on their next read.
+     *
+     * @param events The stored events
+     */
+    public void addAll(List<Event> events) {
+        for (Event event : events) {
+            if (event.getUserId() == null) {
+                continue;
+            }
+            // Bump before merging, so a load that misses this event is not cached
+            writeStamps.incrementAndGet(stripeOf(event.getUserId()));
+            byUser.computeIfPresent(event.getUserId(), (userId, cached) -> {
+                List<Event> merged = new ArrayList<>(cached.events().size() + 1);
+                for (Event cachedEvent : cached.events()) {
+                    if (event.getId() == null || !Objects.equals(cachedEvent.getId(), event.getId())) {
+                        merged.add(cachedEvent);
+                    }
+                }
+                merged.add(event);
+                merged.sort(NEWEST_FIRST);
+                if (merged.size() > perUser) {
+                    merged = merged.subList(0, perUser);
+                }
+                return new CachedEvents(List.copyOf(merged), cached.expiresAt());
+            });
+        }
+    }
+
+    /**
+     * Removes a user's events from the cache.
+     *
+     * @param userId The ID of the user
+     */
+    public void invalidate(String userId) {
+        if (userId != null) {
+            writeStamps.incrementAndGet(stripeOf(userId));
+            byUser.remove(userId);
+        }
+    }
+
+    /**
+     * Removes all users from the cache, e.g. after a bulk delete.
+     */
+    public void invalidateAll() {
+        for (int stripe = 0; stripe < STAMP_STRIPES; stripe++) {
+            writeStamps.incrementAndGet(stripe);
+        }
+        byUser.clear();
+    }
+
+    /**
+     * Returns hit/miss statistics for the cache.
+     *
+     * @return A map of statistic names to values
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", byUser.size());
+        stats.put("maxUsers", maxUsers);
+        stats.put("perUser", perUser);
+        stats.put("ttlMs", ttlMillis);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    private void makeRoom() {
+        if (byUser.size() < maxUsers) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<CachedEvents> it = byUser.values().iterator();
+        while (it.hasNext()) {
+            CachedEvents cached = it.next();
+            if (cached.expiresAt() <= now || byUser.size() >= maxUsers) {
+                it.remove();
+            }
+        }
+    }
+
+    private static int stripeOf(String userId) {
+        return Math.floorMod(userId.hashCode(), STAMP_STRIPES);
+    }
+
+    private record CachedEvents(List<Event> events, long expiresAt) {
+    }
+}
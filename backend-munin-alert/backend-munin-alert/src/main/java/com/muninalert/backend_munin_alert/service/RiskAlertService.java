@@ -3,6 +3,7 @@ package com.muninalert.backend_munin_alert.service;
 import java.util.List;
 import java.util.Optional;
 
+import com.muninalert.backend_munin_alert.dto.CursorPage;
 import com.muninalert.backend_munin_alert.model.RiskAlert;
 
 /**
@@ -37,6 +38,16 @@ public interface RiskAlertService {
      */
     List<RiskAlert> findAllRiskAlerts();
     
+    /**
+     * Retrieves one page of risk alerts, newest first, using keyset pagination.
+     * 
+     * @param cursor The cursor of the previous page, or null for the first page
+     * @param limit The maximum number of risk alerts on the page
+     * @return The page of risk alerts
+     * @throws com.muninalert.backend_munin_alert.exception.InvalidCursorException if the cursor is malformed
+     */
+    CursorPage<RiskAlert> findRiskAlertsPage(String cursor, int limit);
+    
     /**
      * Finds all risk alerts of a specific type.
      * 
@@ -91,6 +102,26 @@ public interface RiskAlertService {
      */
     List<RiskAlert> findActiveRiskAlertsByLevelNearLocation(RiskAlert.RiskLevel minRiskLevel, double latitude, double longitude, double radiusMeters);
     
+    /**
+     * Finds all active risk alerts whose area (center plus radius) contains a location.
+     * 
+     * @param latitude The latitude coordinate
+     * @param longitude The longitude coordinate
+     * @return A list of active risk alerts covering the location
+     */
+    List<RiskAlert> findActiveRiskAlertsContainingLocation(double latitude, double longitude);
+    
+    /**
+     * Finds all active risk alerts whose area boundary lies within a margin of a location,
+     * i.e. areas the location is inside of or close to.
+     * 
+     * @param latitude The latitude coordinate
+     * @param longitude The longitude coordinate
+     * @param marginMeters Distance beyond each area's radius that still counts as near
+     * @return A list of active risk alerts near the location
+     */
+    List<RiskAlert> findActiveRiskAlertsWithinMargin(double latitude, double longitude, double marginMeters);
+    
     /**
      * Updates an existing risk alert with new information.
      * 
@@ -101,6 +132,7 @@ public interface RiskAlertService {
     
     /**
      * Deletes a risk alert from the system.
+     * Subscribers are notified that the risk area was cleared.
      * 
      * @param id The unique identifier of the risk alert to delete
      */
@@ -110,6 +142,10 @@ public interface RiskAlertService {
      * Expires all risk alerts that have passed their expiration time.
      * This is typically called by a scheduled task.
      * 
+     * Expired alerts are found through the expiresAt index and deleted in bulk chunks.
+     * They are removed from the in-memory spatial index, and subscribers are notified
+     * that each risk area was cleared.
+     * 
      * @return The number of risk alerts that were deleted
      */
     int expireOldRiskAlerts();
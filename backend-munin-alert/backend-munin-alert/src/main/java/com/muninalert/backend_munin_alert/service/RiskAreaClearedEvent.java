@@ -0,0 +1,18 @@
+package com.muninalert.backend_munin_alert.service;
+
+import com.muninalert.backend_munin_alert.model.RiskAlert;
+
+/**
+ * Application event published when a risk area stops being active, either because
+ * the risk alert expired or because it was deleted.
+ *
+ * @param riskAlert The risk alert that was removed
+ * @param reason Why the risk area was cleared
+ */
+public record RiskAreaClearedEvent(RiskAlert riskAlert, Reason reason) {
+
+    public enum Reason {
+        EXPIRED,
+        DELETED
+    }
+}
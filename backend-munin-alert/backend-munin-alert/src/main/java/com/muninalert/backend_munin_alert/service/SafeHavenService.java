@@ -3,6 +3,7 @@ package com.muninalert.backend_munin_alert.service;
 import java.util.List;
 import java.util.Optional;
 
+import com.muninalert.backend_munin_alert.dto.CursorPage;
 import com.muninalert.backend_munin_alert.model.SafeHaven;
 
 /**
@@ -44,6 +45,17 @@ public interface SafeHavenService {
      */
     List<SafeHaven> findSafeHavensByUserId(String userId);
     
+    /**
+     * Retrieves one page of safe havens, newest first, using keyset pagination.
+     * 
+     * @param userId Only return safe havens created by this user, or null for all safe havens
+     * @param cursor The cursor of the previous page, or null for the first page
+     * @param limit The maximum number of safe havens on the page
+     * @return The page of safe havens
+     * @throws com.muninalert.backend_munin_alert.exception.InvalidCursorException if the cursor is malformed
+     */
+    CursorPage<SafeHaven> findSafeHavensPage(String userId, String cursor, int limit);
+    
     /**
      * Finds all safe havens shared with a specific group.
      * 
@@ -81,6 +93,8 @@ public interface SafeHavenService {
     
     /**
      * Finds safe havens for a user near a specific location within a specified distance.
+     * Only safe havens the user can access (personal, group, or public) are returned,
+     * nearest first and capped at a configured maximum.
      * 
      * @param userId The ID of the user
      * @param latitude The latitude coordinate
@@ -122,4 +136,14 @@ public interface SafeHavenService {
      * @return The safe haven the location is within, or empty if not within any safe haven
      */
     Optional<SafeHaven> isLocationInSafeHaven(String userId, double latitude, double longitude);
+    
+    /**
+     * Finds all safe havens accessible to a user that contain a location.
+     * 
+     * @param userId The ID of the user
+     * @param latitude The latitude coordinate
+     * @param longitude The longitude coordinate
+     * @return The safe havens the location is within, closest center first
+     */
+    List<SafeHaven> findSafeHavensContainingLocation(String userId, double latitude, double longitude);
 }
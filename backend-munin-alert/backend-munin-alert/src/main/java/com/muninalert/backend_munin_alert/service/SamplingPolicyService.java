@@ -0,0 +1,35 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.util.Optional;
+
+import com.muninalert.backend_munin_alert.dto.SamplingPolicyMessage;
+import com.muninalert.backend_munin_alert.model.Location;
+
+/**
+ * Service interface for the adaptive location sampling policy.
+ * 
+ * Instead of every device reporting at the same fixed rate, the server recommends a
+ * reporting interval per user based on their situation (active alert, nearby risk
+ * area, safe haven, fix accuracy) and pushes it to the user's devices whenever it
+ * changes, so the location ingest load follows the actual risk.
+ */
+public interface SamplingPolicyService {
+    
+    /**
+     * Re-evaluates the policy of a user after a location update, which must already have
+     * been run through the geofence engine, and pushes it if it changed.
+     * 
+     * @param userId The ID of the user
+     * @param location The user's new location
+     * @return The current policy of the user
+     */
+    SamplingPolicyMessage evaluate(String userId, Location location);
+    
+    /**
+     * Returns the policy last pushed to a user.
+     * 
+     * @param userId The ID of the user
+     * @return The current policy, or empty if none was pushed yet
+     */
+    Optional<SamplingPolicyMessage> getCurrentPolicy(String userId);
+}
@@ -0,0 +1,274 @@
+package com.muninalert.backend_munin_alert.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.model.Location;
+import com.muninalert.backend_munin_alert.model.User;
+import com.muninalert.backend_munin_alert.model.UserPreferences;
+
+/**
+ * Bounded, TTL-evicting cache of users keyed by username (with a secondary ID index).
+ *
+ * The cache sits behind {@link UserService}, so the JWT filter's
+ * {@code loadUserByUsername} and the controllers' {@code findByUsername} calls share
+ * the same entry and an authenticated request does at most one MongoDB user lookup.
+ * Callers always receive a copy, so mutating a returned user (e.g. clearing the
+ * password before serializing it) never corrupts the cached entry.
+ *
+ * Entries are invalidated by {@link UserService#updateUser(User)} (which also covers
+ * password changes) and {@link UserService#deleteUser(String)}. Every invalidation bumps
+ * a generation counter; a load that was started before an invalidation is returned to its
+ * caller but not cached, so a user read before an update cannot be put back afterwards.
+ */
+@Component
+public class UserCache {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final Map<String, CachedUser> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, String> usernameById = new ConcurrentHashMap<>();
+
+    // Bumped by every invalidation; guarded by this for the check-and-put of loads
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UserCache(@Value("${munin.cache.users.ttl-ms:300000}") long ttlMillis,
+                     @Value("${munin.cache.users.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the user with the given username, loading it on a cache miss.
+     *
+     * @param username The username to look up
+     * @param loader Loads the user from the database on a miss
+     * @return A copy of the user, or empty if no such user exists
+     */
+    public Optional<User> getByUsername(String username, Supplier<Optional<User>> loader) {
+        if (username == null) {
+            return Optional.empty();
+        }
+
+        CachedUser cached = byUsername.get(username);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            hits.increment();
+            return Optional.of(copyOf(cached.user()));
+        }
+
+        misses.increment();
+        long loadGeneration = generation.get();
+        Optional<User> loaded = loader.get();
+        loaded.ifPresent(user -> putIfCurrent(user, loadGeneration));
+        return loaded.map(UserCache::copyOf);
+    }
+
+    /**
+     * Returns the user with the given ID, loading it on a cache miss.
+     *
+     * @param id The user ID to look up
+     * @param loader Loads the user from the database on a miss
+     * @return A copy of the user, or empty if no such user exists
+     */
+    public Optional<User> getById(String id, Supplier<Optional<User>> loader) {
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        String username = usernameById.get(id);
+        CachedUser cached = username != null ? byUsername.get(username) : null;
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            hits.increment();
+            return Optional.of(copyOf(cached.user()));
+        }
+
+        misses.increment();
+        long loadGeneration = generation.get();
+        Optional<User> loaded = loader.get();
+        loaded.ifPresent(user -> putIfCurrent(user, loadGeneration));
+        return loaded.map(UserCache::copyOf);
+    }
+
+    /**
+     * Updates the last known location of a cached user in place, so that location
+     * updates do not force the whole user to be reloaded. Does nothing if the user
+     * is not cached.
+     *
+     * @param id The ID of the user
+     * @param location The user's new location
+     */
+    public void updateLocation(String id, Location location) {
+        if (id == null) {
+            return;
+        }
+        String username = usernameById.get(id);
+        if (username == null) {
+            return;
+        }
+        byUsername.computeIfPresent(username, (key, cached) -> {
+            User updated = copyOf(cached.user());
+            updated.setLastKnownLocation(copyOf(location));
+            return new CachedUser(updated, cached.expiresAt());
+        });
+    }
+
+    /**
+     * Removes a user from the cache by ID.
+     *
+     * @param id The ID of the user to evict
+     */
+    public synchronized void invalidateById(String id) {
+        if (id == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        String username = usernameById.remove(id);
+        if (username != null) {
+            byUsername.remove(username);
+        }
+    }
+
+    /**
+     * Removes a user from the cache by username.
+     *
+     * @param username The username of the user to evict
+     */
+    public synchronized void invalidateByUsername(String username) {
+        if (username == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        CachedUser cached = byUsername.remove(username);
+        if (cached != null && cached.user().getId() != null) {
+            usernameById.remove(cached.user().getId(), username);
+        }
+    }
+
+    /**
+     * Removes all users from the cache.
+     */
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        byUsername.clear();
+        usernameById.clear();
+    }
+
+    /**
+     * Returns hit/miss statistics for the cache.
+     *
+     * @return A map of statistic names to values
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", byUsername.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMs", ttlMillis);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    /**
+     * Caches a loaded user unless the cache was invalidated while it was being loaded.
+     *
+     * @param user The loaded user
+     * @param loadGeneration The generation read before the load started
+     */
+    private synchronized void putIfCurrent(User user, long loadGeneration) {
+        if (user.getUsername() == null || generation.get() != loadGeneration) {
+            return;
+        }
+        makeRoom();
+
+        // Drop a stale entry left behind if the user was renamed
+        String previousUsername = user.getId() != null ? usernameById.get(user.getId()) : null;
+        if (previousUsername != null && !previousUsername.equals(user.getUsername())) {
+            byUsername.remove(previousUsername);
+        }
+
+        byUsername.put(user.getUsername(), new CachedUser(copyOf(user), System.currentTimeMillis() + ttlMillis));
+        if (user.getId() != null) {
+            usernameById.put(user.getId(), user.getUsername());
+        }
+    }
+
+    private void makeRoom() {
+        if (byUsername.size() < maxEntries) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, CachedUser>> it = byUsername.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, CachedUser> entry = it.next();
+            if (entry.getValue().expiresAt() <= now || byUsername.size() >= maxEntries) {
+                it.remove();
+                evictions.increment();
+                if (entry.getValue().user().getId() != null) {
+                    usernameById.remove(entry.getValue().user().getId(), entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a copy of a user so that cached entries cannot be mutated by callers.
+     * Collections, preferences and the last known location are copied as well.
+     *
+     * @param user The user to copy
+     * @return The copy
+     */
+    private static User copyOf(User user) {
+        // toBuilder copies every field; the mutable ones get copies of their own
+        return user.toBuilder()
+                .roles(copyOf(user.getRoles()))
+                .lastKnownLocation(copyOf(user.getLastKnownLocation()))
+                .emergencyContacts(copyOf(user.getEmergencyContacts()))
+                .safeHavens(copyOf(user.getSafeHavens()))
+                .preferences(copyOf(user.getPreferences()))
+                .build();
+    }
+
+    private static List<String> copyOf(List<String> values) {
+        return values != null ? new ArrayList<>(values) : null;
+    }
+
+    private static Location copyOf(Location location) {
+        // GeoJsonPoint is immutable and can be shared
+        return location != null ? location.toBuilder().build() : null;
+    }
+
+    private static UserPreferences copyOf(UserPreferences preferences) {
+        if (preferences == null) {
+            return null;
+        }
+        UserPreferences.NotificationPreferences notifications = preferences.getNotificationPreferences();
+        return preferences.toBuilder()
+                .notificationPreferences(notifications != null ? notifications.toBuilder().build() : null)
+                .build();
+    }
+
+    private record CachedUser(User user, long expiresAt) {
+    }
+}
@@ -1,8 +1,11 @@
 package com.muninalert.backend_munin_alert.service;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -12,6 +15,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.muninalert.backend_munin_alert.model.Location;
 import com.muninalert.backend_munin_alert.model.User;
 import com.muninalert.backend_munin_alert.model.UserPreferences;
 import com.muninalert.backend_munin_alert.repository.UserRepository;
@@ -21,15 +25,21 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final LocationWriteBehindBuffer locationWriteBehindBuffer;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserCache userCache,
+                       LocationWriteBehindBuffer locationWriteBehindBuffer) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userCache = userCache;
+        this.locationWriteBehindBuffer = locationWriteBehindBuffer;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        // Shares the cached entry with findByUsername, so the filter and controllers hit Mongo once
+        User user = findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
         Collection<SimpleGrantedAuthority> authorities = user.getRoles().stream()
@@ -64,7 +74,7 @@ public class UserService implements UserDetailsService {
     }
 
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userCache.getByUsername(username, () -> userRepository.findByUsername(username));
     }
 
     /**
@@ -91,15 +101,53 @@ public class UserService implements UserDetailsService {
     }
 
     public Optional<User> getUserById(String id) {
-        return userRepository.findById(id);
+        return userCache.getById(id, () -> userRepository.findById(id));
+    }
+
+    /**
+     * Returns which of the given user IDs belong to existing users, in one query.
+     *
+     * @param ids The user IDs to check
+     * @return The IDs of the users that exist
+     */
+    public Set<String> findExistingUserIds(Collection<String> ids) {
+        Set<String> existing = new HashSet<>();
+        userRepository.findIdsByIdIn(ids).forEach(user -> existing.add(user.getId()));
+        return existing;
     }
 
     public User updateUser(User user) {
         user.setUpdatedAt(System.currentTimeMillis());
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        // Covers profile edits, renames and password changes
+        userCache.invalidateById(savedUser.getId());
+        userCache.invalidateByUsername(savedUser.getUsername());
+        return savedUser;
+    }
+
+    /**
+     * Records a user's last known location. The cached user is updated immediately;
+     * the database write is buffered and coalesced with later updates for the same user.
+     *
+     * @param id The ID of the user
+     * @param location The user's new location
+     */
+    public void updateLastKnownLocation(String id, Location location) {
+        userCache.updateLocation(id, location);
+        locationWriteBehindBuffer.record(id, location);
     }
 
     public void deleteUser(String id) {
         userRepository.deleteById(id);
+        userCache.invalidateById(id);
+    }
+
+    /**
+     * Returns hit/miss statistics of the user cache.
+     *
+     * @return A map of statistic names to values
+     */
+    public Map<String, Object> getUserCacheStats() {
+        return userCache.getStats();
     }
 }
@@ -1,8 +1,12 @@
 package com.muninalert.backend_munin_alert.service;
 
+import com.muninalert.backend_munin_alert.dto.RiskAreaClearedMessage;
+import com.muninalert.backend_munin_alert.dto.SamplingPolicyMessage;
 import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.model.Event;
 import com.muninalert.backend_munin_alert.model.Location;
 import com.muninalert.backend_munin_alert.model.Message;
+import com.muninalert.backend_munin_alert.model.PendingAlert;
 
 /**
  * Service interface for WebSocket communication in the Munin Alert application.
@@ -47,6 +51,14 @@ public interface WebSocketService {
      */
     void sendAlertStatusUpdate(Alert alert);
     
+    /**
+     * Sends the current state of an alert to the user who created it through their
+     * private channel, e.g. after someone responded to it.
+     *
+     * @param alert The updated alert object
+     */
+    void sendAlertToOwner(Alert alert);
+    
     /**
      * Sends a message to a specific group.
      * This enables group chat functionality for communication among group members.
@@ -94,4 +106,35 @@ public interface WebSocketService {
      * @param payload The object to be sent as the payload
      */
     void sendToDestination(String destination, Object payload);
+    
+    /**
+     * Sends a geofence transition (entering or leaving a safe haven or risk area) to the
+     * user it concerns through their private channel.
+     *
+     * @param transition The ENTER/EXIT event generated by the geofence engine
+     */
+    void sendGeofenceTransition(Event transition);
+    
+    /**
+     * Notifies all subscribers that a risk area is no longer active.
+     *
+     * @param message The message describing the cleared risk area
+     */
+    void sendRiskAreaCleared(RiskAreaClearedMessage message);
+    
+    /**
+     * Sends the state of an alert countdown (started, cancelled or fired) to the user
+     * it concerns through their private channel.
+     *
+     * @param pendingAlert The pending alert with its current status
+     */
+    void sendPendingAlertUpdate(PendingAlert pendingAlert);
+    
+    /**
+     * Sends the recommended location reporting policy to the devices of the user it
+     * concerns through their private channel.
+     *
+     * @param policy The sampling policy of the user
+     */
+    void sendSamplingPolicy(SamplingPolicyMessage policy);
 }
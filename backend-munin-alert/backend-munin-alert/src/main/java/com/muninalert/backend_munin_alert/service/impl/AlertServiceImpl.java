@@ -1,32 +1,71 @@
 package com.muninalert.backend_munin_alert.service.impl;
 
+import com.muninalert.backend_munin_alert.dto.CursorPage;
 import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.model.AlertResponseRecord;
 import com.muninalert.backend_munin_alert.repository.AlertRepository;
+import com.muninalert.backend_munin_alert.repository.AlertResponseRecordRepository;
+import com.muninalert.backend_munin_alert.repository.KeysetPager;
+import com.muninalert.backend_munin_alert.service.ActiveAlertRegistry;
+import com.muninalert.backend_munin_alert.service.AlertExpiryScheduler;
 import com.muninalert.backend_munin_alert.service.AlertService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Metrics;
 import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class AlertServiceImpl implements AlertService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AlertServiceImpl.class);
+
     private final AlertRepository alertRepository;
+    private final AlertResponseRecordRepository alertResponseRecordRepository;
+    private final KeysetPager keysetPager;
+    private final MongoTemplate mongoTemplate;
+    private final AlertExpiryScheduler alertExpiryScheduler;
+    private final ActiveAlertRegistry activeAlertRegistry;
+
+    @Value("${munin.alerts.responses.embedded-limit:50}")
+    private int embeddedResponseLimit;
 
     @Autowired
-    public AlertServiceImpl(AlertRepository alertRepository) {
+    public AlertServiceImpl(AlertRepository alertRepository,
+                            AlertResponseRecordRepository alertResponseRecordRepository,
+                            KeysetPager keysetPager,
+                            MongoTemplate mongoTemplate,
+                            AlertExpiryScheduler alertExpiryScheduler,
+                            ActiveAlertRegistry activeAlertRegistry) {
         this.alertRepository = alertRepository;
+        this.alertResponseRecordRepository = alertResponseRecordRepository;
+        this.keysetPager = keysetPager;
+        this.mongoTemplate = mongoTemplate;
+        this.alertExpiryScheduler = alertExpiryScheduler;
+        this.activeAlertRegistry = activeAlertRegistry;
     }
 
     @Override
     public Alert createAlert(Alert alert) {
         alert.setCreatedAt(System.currentTimeMillis());
         alert.setUpdatedAt(System.currentTimeMillis());
-        return alertRepository.save(alert);
+        Alert savedAlert = alertRepository.save(alert);
+        alertExpiryScheduler.track(savedAlert);
+        activeAlertRegistry.track(savedAlert);
+        return savedAlert;
     }
 
     @Override
@@ -44,6 +83,12 @@ public class AlertServiceImpl implements AlertService {
         return alertRepository.findByUserId(userId);
     }
 
+    @Override
+    public CursorPage<Alert> findAlertsPageByUserId(String userId, String cursor, int limit) {
+        return keysetPager.page(Alert.class, Criteria.where("userId").is(userId), "createdAt",
+                Alert::getCreatedAt, Alert::getId, cursor, limit);
+    }
+
     @Override
     public List<Alert> findAlertsByGroupId(String groupId) {
         return alertRepository.findByGroupId(groupId);
@@ -59,21 +104,164 @@ public class AlertServiceImpl implements AlertService {
     @Override
     public Alert updateAlert(Alert alert) {
         alert.setUpdatedAt(System.currentTimeMillis());
-        return alertRepository.save(alert);
+        
+        // Replace every field except the responses, so concurrent responses are never overwritten:
+        // $set the fields that have a value and $unset the ones that are null
+        Document fields = new Document();
+        mongoTemplate.getConverter().write(alert, fields);
+        fields.remove("_id");
+        fields.remove("_class");
+        fields.remove("responses");
+        fields.remove("responseCount");
+        Update update = Update.fromDocument(new Document("$set", fields));
+        mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(Alert.class)
+                .forEach(property -> {
+                    String field = property.getFieldName();
+                    if (!property.isIdProperty() && !fields.containsKey(field)
+                            && !field.equals("responses") && !field.equals("responseCount")) {
+                        update.unset(field);
+                    }
+                });
+        return modifyAlert(alert.getId(), update);
     }
 
     @Override
     public Alert updateAlertStatus(String id, Alert.AlertStatus status) {
-        Alert alert = alertRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Alert not found with id: " + id));
+        Update update = new Update()
+                .set("status", status)
+                .set("updatedAt", System.currentTimeMillis());
+        return modifyAlert(id, update);
+    }
+
+    @Override
+    public Optional<Alert> addResponse(String alertId, Alert.AlertResponse response) {
+        long now = System.currentTimeMillis();
+        if (response.getTimestamp() == 0) {
+            response.setTimestamp(now);
+        }
+        int limit = Math.max(1, embeddedResponseLimit);
         
-        alert.setStatus(status);
-        alert.setUpdatedAt(System.currentTimeMillis());
-        return alertRepository.save(alert);
+        // One atomic append; the responses are only trimmed once the overflow is stored
+        Update update = new Update()
+                .push("responses", response)
+                .inc("responseCount", 1)
+                .set("updatedAt", now);
+        Alert updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(alertId)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Alert.class);
+        if (updated == null) {
+            return Optional.empty();
+        }
+        
+        List<Alert.AlertResponse> responses = updated.getResponses();
+        int overflow = responses.size() - limit;
+        if (overflow > 0) {
+            moveOverflow(updated, overflow, limit);
+            updated.setResponses(new ArrayList<>(responses.subList(overflow, responses.size())));
+        }
+        return Optional.of(updated);
+    }
+
+    @Override
+    public List<Alert.AlertResponse> findAlertResponses(String alertId) {
+        Optional<Alert> alert = alertRepository.findById(alertId);
+        // Responses moved out but not yet trimmed (see moveOverflow) are listed once, as embedded
+        long firstEmbedded = alert.map(found -> (long) found.getResponseCount() - found.getResponses().size())
+                .orElse(Long.MAX_VALUE);
+        
+        List<Alert.AlertResponse> history = new ArrayList<>();
+        alertResponseRecordRepository.findByAlertIdOrderByResponseTimestampAsc(alertId).forEach(record -> {
+            if (responseNumberOf(record) < firstEmbedded) {
+                history.add(record.getResponse());
+            }
+        });
+        alert.ifPresent(found -> history.addAll(found.getResponses()));
+        return history;
     }
 
     @Override
     public void deleteAlert(String id) {
         alertRepository.deleteById(id);
+        alertResponseRecordRepository.deleteByAlertId(id);
+        alertExpiryScheduler.cancel(id);
+        activeAlertRegistry.remove(id);
+    }
+
+    /**
+     * Helper method to move the oldest embedded responses of an alert to alert_responses.
+     * 
+     * The embedded responses are always the latest responses of the alert, so the one at
+     * index i is response number {@code responseCount - size + i}. That number is the
+     * record ID, which makes storing the same overflow again (after a failed trim, or by a
+     * concurrent responder) idempotent. The embedded array is only trimmed after the
+     * overflow is stored, and only if no response was added in the meantime; otherwise
+     * the newer responder moves it. Failures are logged and leave the responses embedded,
+     * so they are moved by the next response instead of being lost.
+     *
+     * @param alert The alert as returned by the append
+     * @param overflow The number of responses beyond the embedded limit
+     * @param limit The embedded limit
+     */
+    private void moveOverflow(Alert alert, int overflow, int limit) {
+        List<Alert.AlertResponse> responses = alert.getResponses();
+        long firstNumber = (long) alert.getResponseCount() - responses.size();
+        List<AlertResponseRecord> moved = new ArrayList<>(overflow);
+        for (int i = 0; i < overflow; i++) {
+            AlertResponseRecord record = AlertResponseRecord.of(alert.getId(), responses.get(i));
+            record.setId(alert.getId() + ":" + (firstNumber + i));
+            moved.add(record);
+        }
+        try {
+            alertResponseRecordRepository.saveAll(moved);
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(alert.getId()).and("responseCount").is(alert.getResponseCount())),
+                    new Update().push("responses").slice(-limit).each(),
+                    Alert.class);
+        } catch (Exception e) {
+            logger.error("Failed to move {} responses of alert {} to alert_responses, retrying with the next response",
+                    moved.size(), alert.getId(), e);
+        }
+    }
+
+    /**
+     * Helper method to read the number of a moved response from its record ID.
+     *
+     * @param record The record
+     * @return The number of the response within its alert, or Long.MIN_VALUE if the ID carries none
+     */
+    private static long responseNumberOf(AlertResponseRecord record) {
+        String id = record.getId();
+        int separator = id != null ? id.lastIndexOf(':') : -1;
+        if (separator < 0) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Long.parseLong(id.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Helper method to apply an update to an alert in a single findAndModify.
+     *
+     * @param id The ID of the alert
+     * @param update The update to apply
+     * @return The alert after the update
+     */
+    private Alert modifyAlert(String id, Update update) {
+        Alert updatedAlert = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Alert.class);
+        if (updatedAlert == null) {
+            throw new RuntimeException("Alert not found with id: " + id);
+        }
+        alertExpiryScheduler.track(updatedAlert);
+        activeAlertRegistry.track(updatedAlert);
+        return updatedAlert;
     }
 }
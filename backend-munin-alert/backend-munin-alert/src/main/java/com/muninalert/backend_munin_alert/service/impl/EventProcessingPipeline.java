@@ -0,0 +1,332 @@
+package com.muninalert.backend_munin_alert.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.muninalert.backend_munin_alert.exception.EventPipelineSaturatedException;
+import com.muninalert.backend_munin_alert.model.Event;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bounded, per-user ordered execution pipeline for incoming events.
+ *
+ * An event is accepted in two steps: the persist stage runs on the calling (HTTP)
+ * thread so the event is durably stored before the device gets its response, and
+ * the remaining stages (classification, alert fan-out, location update) are handed
+ * to a worker. Work is striped by user ID over single-threaded workers, which keeps
+ * the events of one user in order without a global lock.
+ *
+ * There are two lanes with separate capacity: manual and fall alerts use the priority
+ * lane and all other events use the standard lane. Each lane has a fixed capacity of
+ * in-flight events; when it is exhausted, new events are rejected with an
+ * {@link EventPipelineSaturatedException} before anything is stored. Both lanes run on
+ * the same stripes, where priority work is taken before standard work so it is never
+ * queued behind other users' bulk sensor traffic. A priority event does not overtake
+ * its own user's earlier events, though: those run first, so later stages (such as the
+ * last known location) always see a user's events in the order they were accepted.
+ */
+@Component
+public class EventProcessingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventProcessingPipeline.class);
+
+    private final Lane standardLane;
+    private final Lane priorityLane;
+    private final List<Stripe> stripes = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final long acquireTimeoutMillis;
+
+    public EventProcessingPipeline(@Value("${munin.events.pipeline.stripes:4}") int stripes,
+                                   @Value("${munin.events.pipeline.capacity:10000}") int capacity,
+                                   @Value("${munin.events.pipeline.priority-capacity:1000}") int priorityCapacity,
+                                   @Value("${munin.events.pipeline.acquire-timeout-ms:50}") long acquireTimeoutMillis) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Event pipeline needs at least one stripe");
+        }
+        this.standardLane = new Lane("event-pipeline", capacity);
+        this.priorityLane = new Lane("event-pipeline-priority", priorityCapacity);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        for (int i = 1; i <= stripes; i++) {
+            this.stripes.add(new Stripe("event-pipeline-" + i));
+        }
+    }
+
+    /**
+     * Accepts an event: reserves pipeline capacity, runs the persist stage on the calling
+     * thread and schedules the remaining stages on the user's worker.
+     *
+     * @param event The incoming event (used to choose the lane and the worker)
+     * @param persist Stores the event and returns the stored instance
+     * @param process The remaining stages, run asynchronously with the stored event
+     * @return The stored event
+     * @throws EventPipelineSaturatedException if the lane has no free capacity
+     */
+    public Event accept(Event event, Supplier<Event> persist, Consumer<Event> process) {
+        Lane lane = isPriority(event) ? priorityLane : standardLane;
+        lane.reserve(1, acquireTimeoutMillis);
+
+        Event savedEvent;
+        try {
+            savedEvent = persist.get();
+        } catch (RuntimeException e) {
+            lane.release(1);
+            throw e;
+        }
+
+        submit(event.getUserId(), lane, () -> process.accept(savedEvent));
+        return savedEvent;
+    }
+
+    /**
+     * Accepts a batch of events. Capacity is reserved per user rather than per event,
+     * because each user's events are processed together as one unit of work on the
+     * user's worker. The batch goes to the priority lane for a user if any of that
+     * user's events qualifies for it.
+     *
+     * @param events The incoming events (used to choose lanes and workers)
+     * @param persist Stores all events and returns the stored instances
+     * @param process The remaining stages, run asynchronously with one user's stored events
+     * @return The stored events
+     * @throws EventPipelineSaturatedException if a lane has no free capacity (nothing is stored)
+     */
+    public List<Event> acceptAll(List<Event> events, Supplier<List<Event>> persist, Consumer<List<Event>> process) {
+        Map<String, Lane> laneByUser = new LinkedHashMap<>();
+        for (Event event : events) {
+            Lane lane = isPriority(event) ? priorityLane : standardLane;
+            laneByUser.merge(event.getUserId(), lane, (current, next) -> current == priorityLane ? current : next);
+        }
+        int standardPermits = (int) laneByUser.values().stream().filter(lane -> lane == standardLane).count();
+        int priorityPermits = laneByUser.size() - standardPermits;
+
+        standardLane.reserve(standardPermits, acquireTimeoutMillis);
+        try {
+            priorityLane.reserve(priorityPermits, acquireTimeoutMillis);
+        } catch (RuntimeException e) {
+            standardLane.release(standardPermits);
+            throw e;
+        }
+
+        List<Event> savedEvents;
+        try {
+            savedEvents = persist.get();
+        } catch (RuntimeException e) {
+            standardLane.release(standardPermits);
+            priorityLane.release(priorityPermits);
+            throw e;
+        }
+
+        Map<String, List<Event>> savedByUser = new LinkedHashMap<>();
+        for (Event saved : savedEvents) {
+            savedByUser.computeIfAbsent(saved.getUserId(), id -> new ArrayList<>()).add(saved);
+        }
+        laneByUser.forEach((userId, lane) -> {
+            List<Event> userEvents = savedByUser.getOrDefault(userId, List.of());
+            submit(userId, lane, () -> process.accept(userEvents));
+        });
+        return savedEvents;
+    }
+
+    /**
+     * Returns the number of events currently queued or being processed.
+     *
+     * @return The number of in-flight events across both lanes
+     */
+    public int getInFlightCount() {
+        return standardLane.inFlight() + priorityLane.inFlight();
+    }
+
+    /**
+     * Stops accepting work and waits for queued events to finish processing.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stripes.forEach(Stripe::stop);
+        for (Stripe stripe : stripes) {
+            stripe.await(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void submit(String userId, Lane lane, Runnable work) {
+        Stripe stripe = stripes.get(Math.floorMod(userId != null ? userId.hashCode() : 0, stripes.size()));
+        try {
+            stripe.add(new Task(userId, sequence.incrementAndGet(), lane, work));
+        } catch (RuntimeException e) {
+            lane.release(1);
+            throw e;
+        }
+    }
+
+    private static boolean isPriority(Event event) {
+        return event.getEventType() == Event.EventType.MANUAL_ALERT
+                || event.getEventType() == Event.EventType.FALL_DETECTED;
+    }
+
+    /**
+     * A capacity limit for in-flight events.
+     */
+    private class Lane {
+
+        private final String name;
+        private final int capacity;
+        private final Semaphore permits;
+
+        Lane(String name, int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Pipeline lane " + name + " needs at least one slot");
+            }
+            this.name = name;
+            this.capacity = capacity;
+            this.permits = new Semaphore(capacity);
+        }
+
+        void reserve(int count, long timeoutMillis) {
+            if (count == 0) {
+                return;
+            }
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(count, timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                throw new EventPipelineSaturatedException("Event pipeline " + name + " is at capacity (" + capacity + ")");
+            }
+        }
+
+        void release(int count) {
+            permits.release(count);
+        }
+
+        boolean isPriority() {
+            return this == priorityLane;
+        }
+
+        int inFlight() {
+            return capacity - permits.availablePermits();
+        }
+    }
+
+    /**
+     * Work for one user, holding one permit of its lane until it has run.
+     */
+    private record Task(String userId, long sequence, Lane lane, Runnable work) {
+
+        void run() {
+            try {
+                work.run();
+            } catch (Exception e) {
+                logger.error("Event processing failed in {} for user {}", lane.name, userId, e);
+            } finally {
+                lane.release(1);
+            }
+        }
+    }
+
+    /**
+     * A single worker thread with a priority and a standard queue.
+     */
+    private static class Stripe implements Runnable {
+
+        private final Deque<Task> priority = new ArrayDeque<>();
+        private final Deque<Task> standard = new ArrayDeque<>();
+        private final Thread thread;
+        private boolean stopped;
+
+        Stripe(String name) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        synchronized void add(Task task) {
+            if (stopped) {
+                throw new RejectedExecutionException("Event pipeline " + thread.getName() + " is shut down");
+            }
+            (task.lane().isPriority() ? priority : standard).add(task);
+            notifyAll();
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Task> tasks;
+                while ((tasks = next()) != null) {
+                    tasks.forEach(Task::run);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Helper method to wait for the next work: the oldest priority task, preceded by
+         * its user's standard tasks that were queued before it, or else the oldest
+         * standard task.
+         *
+         * @return The tasks to run in order, or null once stopped and drained
+         */
+        private synchronized List<Task> next() throws InterruptedException {
+            while (priority.isEmpty() && standard.isEmpty()) {
+                if (stopped) {
+                    return null;
+                }
+                wait();
+            }
+            if (priority.isEmpty()) {
+                return List.of(standard.poll());
+            }
+            Task urgent = priority.poll();
+            List<Task> tasks = new ArrayList<>();
+            for (Iterator<Task> it = standard.iterator(); it.hasNext(); ) {
+                Task task = it.next();
+                if (task.sequence() > urgent.sequence()) {
+                    break;
+                }
+                if (Objects.equals(task.userId(), urgent.userId())) {
+                    tasks.add(task);
+                    it.remove();
+                }
+            }
+            tasks.add(urgent);
+            return tasks;
+        }
+
+        synchronized void stop() {
+            stopped = true;
+            notifyAll();
+        }
+
+        void await(long timeout, TimeUnit unit) {
+            try {
+                thread.join(unit.toMillis(timeout));
+                if (thread.isAlive()) {
+                    logger.warn("Event pipeline {} did not drain within {} {}", thread.getName(), timeout, unit);
+                    thread.interrupt();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                thread.interrupt();
+            }
+        }
+    }
+}
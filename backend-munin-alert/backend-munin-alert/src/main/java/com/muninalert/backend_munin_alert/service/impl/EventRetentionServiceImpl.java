@@ -0,0 +1,161 @@
+package com.muninalert.backend_munin_alert.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.muninalert.backend_munin_alert.config.EventRetentionProperties;
+import com.muninalert.backend_munin_alert.dto.RetentionRunReport;
+import com.muninalert.backend_munin_alert.model.Event;
+import com.muninalert.backend_munin_alert.service.EventRetentionService;
+import com.muninalert.backend_munin_alert.service.RecentEventsCache;
+
+/**
+ * Implementation of the EventRetentionService interface.
+ * 
+ * Each policy is enforced with index-backed range deletes on {@code timestamp}
+ * (combined with {@code userId} or {@code eventType} for the specific policies).
+ * Deletes run in chunks of at most {@code chunkSize} documents, so one run never
+ * holds a long-running delete on the collection. Nothing is loaded onto the heap
+ * apart from the IDs of one chunk.
+ */
+@Service
+public class EventRetentionServiceImpl implements EventRetentionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EventRetentionServiceImpl.class);
+    
+    private final MongoTemplate mongoTemplate;
+    private final EventRetentionProperties properties;
+    private final RecentEventsCache recentEventsCache;
+    
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile RetentionRunReport lastReport;
+    
+    /**
+     * Constructor for dependency injection.
+     * 
+     * @param mongoTemplate The template used for the range deletes
+     * @param properties The configured retention policies
+     * @param recentEventsCache The cache of each user's most recent events
+     */
+    @Autowired
+    public EventRetentionServiceImpl(MongoTemplate mongoTemplate, EventRetentionProperties properties,
+                                     RecentEventsCache recentEventsCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.recentEventsCache = recentEventsCache;
+    }
+    
+    /**
+     * Runs retention on the configured schedule if it is enabled.
+     */
+    @Scheduled(cron = "${munin.events.retention.cron:0 15 3 * * *}")
+    public void scheduledRun() {
+        if (properties.isEnabled()) {
+            runRetention();
+        }
+    }
+    
+    @Override
+    public Optional<RetentionRunReport> runRetention() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Event retention run skipped, another run is in progress");
+            return Optional.empty();
+        }
+        
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, Long> deletedByPolicy = new LinkedHashMap<>();
+            List<String> userIds = new ArrayList<>(properties.getMaxAgeByUser().keySet());
+            List<Event.EventType> eventTypes = new ArrayList<>(properties.getMaxAgeByType().keySet());
+            
+            // Per-user policies cover all of that user's events
+            properties.getMaxAgeByUser().forEach((userId, maxAge) ->
+                deletedByPolicy.put("user:" + userId, deleteInChunks(
+                    Criteria.where("userId").is(userId)
+                        .and("timestamp").lt(cutoff(start, maxAge)))));
+            
+            // Per-type policies cover all other users' events of that type
+            properties.getMaxAgeByType().forEach((eventType, maxAge) ->
+                deletedByPolicy.put("type:" + eventType, deleteInChunks(
+                    excludingUsers(Criteria.where("eventType").is(eventType), userIds)
+                        .and("timestamp").lt(cutoff(start, maxAge)))));
+            
+            // The default policy covers everything else
+            Criteria defaultCriteria = excludingUsers(new Criteria(), userIds);
+            if (!eventTypes.isEmpty()) {
+                defaultCriteria = defaultCriteria.and("eventType").nin(eventTypes);
+            }
+            deletedByPolicy.put("default", deleteInChunks(
+                defaultCriteria.and("timestamp").lt(cutoff(start, properties.getDefaultMaxAge()))));
+            
+            long deleted = deletedByPolicy.values().stream().mapToLong(Long::longValue).sum();
+            if (deleted > 0) {
+                recentEventsCache.invalidateAll();
+            }
+            RetentionRunReport report = new RetentionRunReport(
+                start, System.currentTimeMillis() - start, deleted, deletedByPolicy);
+            lastReport = report;
+            logger.info("Event retention deleted {} events in {} ms {}", deleted, report.getDurationMs(), deletedByPolicy);
+            return Optional.of(report);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    @Override
+    public Optional<RetentionRunReport> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+    
+    /**
+     * Helper method to delete all events matching the criteria, oldest first, in chunks.
+     * 
+     * @param criteria The criteria of the events to delete
+     * @return The number of deleted events
+     */
+    private long deleteInChunks(Criteria criteria) {
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        long deleted = 0;
+        while (true) {
+            Query idQuery = Query.query(criteria)
+                    .with(Sort.by(Sort.Direction.ASC, "timestamp"))
+                    .limit(chunkSize);
+            idQuery.fields().include("_id");
+            List<Object> ids = mongoTemplate.find(idQuery, Event.class).stream()
+                    .map(event -> (Object) event.getId())
+                    .toList();
+            if (ids.isEmpty()) {
+                return deleted;
+            }
+            
+            deleted += mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), Event.class)
+                    .getDeletedCount();
+            if (ids.size() < chunkSize) {
+                return deleted;
+            }
+        }
+    }
+    
+    private static Criteria excludingUsers(Criteria criteria, List<String> userIds) {
+        return userIds.isEmpty() ? criteria : criteria.and("userId").nin(userIds);
+    }
+    
+    private static long cutoff(long now, Duration maxAge) {
+        return now - maxAge.toMillis();
+    }
+}
@@ -1,18 +1,35 @@
 package com.muninalert.backend_munin_alert.service.impl;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import com.muninalert.backend_munin_alert.dto.BatchEventResponse;
+import com.muninalert.backend_munin_alert.dto.BatchEventResult;
+import com.muninalert.backend_munin_alert.dto.CursorPage;
 import com.muninalert.backend_munin_alert.model.Alert;
 import com.muninalert.backend_munin_alert.model.Event;
 import com.muninalert.backend_munin_alert.model.Location;
 import com.muninalert.backend_munin_alert.model.User;
 import com.muninalert.backend_munin_alert.repository.EventRepository;
+import com.muninalert.backend_munin_alert.repository.KeysetPager;
 import com.muninalert.backend_munin_alert.service.AlertService;
 import com.muninalert.backend_munin_alert.service.EventService;
+import com.muninalert.backend_munin_alert.service.GeofenceService;
+import com.muninalert.backend_munin_alert.service.LocationHistoryService;
+import com.muninalert.backend_munin_alert.service.PendingAlertScheduler;
+import com.muninalert.backend_munin_alert.service.RecentEventsCache;
+import com.muninalert.backend_munin_alert.service.SamplingPolicyService;
 import com.muninalert.backend_munin_alert.service.UserService;
 import com.muninalert.backend_munin_alert.service.WebSocketService;
 
@@ -30,6 +47,17 @@ public class EventServiceImpl implements EventService {
     private final AlertService alertService;
     private final UserService userService;
     private final WebSocketService webSocketService;
+    private final GeofenceService geofenceService;
+    private final EventProcessingPipeline eventProcessingPipeline;
+    private final LocationHistoryService locationHistoryService;
+    private final KeysetPager keysetPager;
+    private final RecentEventsCache recentEventsCache;
+    private final MongoTemplate mongoTemplate;
+    private final PendingAlertScheduler pendingAlertScheduler;
+    private final SamplingPolicyService samplingPolicyService;
+    
+    @Value("${munin.events.batch.max-size:500}")
+    private int maxBatchSize;
     
     /**
      * Constructor for dependency injection.
@@ -38,16 +66,40 @@ public class EventServiceImpl implements EventService {
      * @param alertService The service for alert operations
      * @param userService The service for user operations
      * @param webSocketService The service for WebSocket operations
+     * @param geofenceService The service for geofence transitions
+     * @param eventProcessingPipeline The pipeline running event processing stages
+     * @param locationHistoryService The service for recording location history
+     * @param keysetPager The helper for keyset pagination
+     * @param recentEventsCache The cache of each user's most recent events
+     * @param mongoTemplate The template used for streaming queries
+     * @param pendingAlertScheduler The scheduler running alert countdowns
+     * @param samplingPolicyService The service recommending location reporting intervals
      */
     @Autowired
     public EventServiceImpl(EventRepository eventRepository, 
                           AlertService alertService,
                           UserService userService,
-                          WebSocketService webSocketService) {
+                          WebSocketService webSocketService,
+                          GeofenceService geofenceService,
+                          EventProcessingPipeline eventProcessingPipeline,
+                          LocationHistoryService locationHistoryService,
+                          KeysetPager keysetPager,
+                          RecentEventsCache recentEventsCache,
+                          MongoTemplate mongoTemplate,
+                          PendingAlertScheduler pendingAlertScheduler,
+                          SamplingPolicyService samplingPolicyService) {
         this.eventRepository = eventRepository;
         this.alertService = alertService;
         this.userService = userService;
         this.webSocketService = webSocketService;
+        this.geofenceService = geofenceService;
+        this.eventProcessingPipeline = eventProcessingPipeline;
+        this.locationHistoryService = locationHistoryService;
+        this.keysetPager = keysetPager;
+        this.recentEventsCache = recentEventsCache;
+        this.mongoTemplate = mongoTemplate;
+        this.pendingAlertScheduler = pendingAlertScheduler;
+        this.samplingPolicyService = samplingPolicyService;
     }
     
     @Override
@@ -57,7 +109,9 @@ public class EventServiceImpl implements EventService {
             event.setTimestamp(System.currentTimeMillis());
         }
         
-        return eventRepository.save(event);
+        Event savedEvent = eventRepository.save(event);
+        recentEventsCache.addAll(List.of(savedEvent));
+        return savedEvent;
     }
     
     @Override
@@ -107,76 +161,256 @@ public class EventServiceImpl implements EventService {
     
     @Override
     public List<Event> findMostRecentEventsByUser(String userId, int limit) {
-        return eventRepository.findMostRecentByUser(userId, limit);
+        return recentEventsCache.getRecent(userId, limit, count -> eventRepository.findMostRecentByUser(userId, count));
+    }
+    
+    @Override
+    public CursorPage<Event> findEventsPage(String userId, Event.EventType eventType, String cursor, int limit) {
+        Criteria filter = new Criteria();
+        if (userId != null) {
+            filter = filter.and("userId").is(userId);
+        }
+        if (eventType != null) {
+            filter = filter.and("eventType").is(eventType);
+        }
+        return keysetPager.page(Event.class, filter, "timestamp", Event::getTimestamp, Event::getId, cursor, limit);
+    }
+    
+    @Override
+    public Stream<Event> streamEvents(Event.EventType eventType, Long from, Long to, Double minConfidence) {
+        Criteria filter = new Criteria();
+        if (eventType != null) {
+            filter = filter.and("eventType").is(eventType);
+        }
+        if (from != null || to != null) {
+            Criteria timeRange = filter.and("timestamp");
+            if (from != null) {
+                timeRange = timeRange.gte(from);
+            }
+            if (to != null) {
+                timeRange = timeRange.lt(to);
+            }
+            filter = timeRange;
+        }
+        if (minConfidence != null) {
+            filter = filter.and("confidence").gte(minConfidence);
+        }
+        
+        // Oldest first along the (eventType,) timestamp, _id indexes; the cursor fetches in batches
+        Query query = Query.query(filter)
+                .with(Sort.by(Sort.Order.asc("timestamp"), Sort.Order.asc("_id")))
+                .cursorBatchSize(1000);
+        return mongoTemplate.stream(query, Event.class);
     }
     
     @Override
     public Event processNewEvent(Event event) {
-        // Save the event first
-        Event savedEvent = createEvent(event);
+        // Persist on the caller's thread; the remaining stages run asynchronously in per-user order
+        return eventProcessingPipeline.accept(event, () -> createEvent(event), this::processAcceptedEvent);
+    }
+    
+    @Override
+    public BatchEventResponse processEventBatch(List<Event> events) {
+        if (events.size() > maxBatchSize) {
+            throw new IllegalArgumentException(
+                "Batch contains " + events.size() + " events, the maximum is " + maxBatchSize);
+        }
         
-        // Process based on event type using modern switch expression
-        switch (event.getEventType()) {
-            case FALL_DETECTED, COLLISION_DETECTED, RAPID_DECELERATION -> {
-                // For critical safety events, generate an alert if confidence is high enough
-                if (event.getConfidence() >= 0.7) {
-                    generateAlertFromEvent(event);
-                }
+        // Validate every event up front; only the valid ones are stored
+        BatchEventResult[] results = new BatchEventResult[events.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        List<Event> validEvents = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            String error = validateEvent(event);
+            if (error != null) {
+                results[i] = BatchEventResult.rejected(i, error);
+                continue;
             }
-                
-            case UNUSUAL_MOVEMENT, INACTIVITY -> {
-                // For potential safety issues, generate an alert if confidence is very high
-                if (event.getConfidence() >= 0.9) {
-                    generateAlertFromEvent(event);
-                }
+            if (event.getTimestamp() == 0) {
+                event.setTimestamp(System.currentTimeMillis());
+            }
+            validIndexes.add(i);
+            validEvents.add(event);
+        }
+        
+        if (!validEvents.isEmpty()) {
+            // One bulk insert for the whole batch, then one unit of follow-up work per user
+            List<Event> savedEvents = eventProcessingPipeline.acceptAll(
+                validEvents, () -> insertEvents(validEvents), this::processAcceptedUserEvents);
+            for (int i = 0; i < savedEvents.size(); i++) {
+                int index = validIndexes.get(i);
+                results[index] = BatchEventResult.accepted(index, savedEvents.get(i).getId());
             }
-                
-            case MANUAL_ALERT -> 
-                // Always generate an alert for manual triggers
-                generateAlertFromEvent(event);
-                
-            case ENTER_RISK_AREA -> 
-                // Send notification but don't generate alert
-                notifyUserOfRiskArea(event);
-                
-            case ENTER_SAFEHAVEN, EXIT_SAFEHAVEN, EXIT_RISK_AREA -> 
-                // Just record these events, no immediate action needed
-                {}
         }
         
+        int rejected = events.size() - validEvents.size();
+        return new BatchEventResponse(validEvents.size(), rejected, List.of(results));
+    }
+    
+    /**
+     * Helper method to store a batch of events with a single bulk insert.
+     * 
+     * @param events The validated events
+     * @return The stored events, in the same order
+     */
+    private List<Event> insertEvents(List<Event> events) {
+        List<Event> savedEvents = eventRepository.insert(events);
+        recentEventsCache.addAll(savedEvents);
+        return savedEvents;
+    }
+    
+    /**
+     * Runs the asynchronous stages for an event that has already been stored:
+     * classification, alert fan-out and location update.
+     * 
+     * @param event The stored event
+     */
+    private void processAcceptedEvent(Event event) {
+        fanOutEvent(event);
+        
         // Update user's last known location if available
         if (event.getLocation() != null) {
             updateUserLocation(event.getUserId(), event.getLocation());
         }
+    }
+    
+    /**
+     * Runs the asynchronous stages for one user's events from a batch. Alerts and
+     * notifications are handled per event, but the location is only updated once,
+     * from the latest event that carries one.
+     * 
+     * @param userEvents The stored events of a single user
+     */
+    private void processAcceptedUserEvents(List<Event> userEvents) {
+        userEvents.stream()
+                .sorted(Comparator.comparingLong(Event::getTimestamp))
+                .forEach(this::fanOutEvent);
         
-        return savedEvent;
+        userEvents.stream()
+                .filter(event -> event.getLocation() != null)
+                .max(Comparator.comparingLong(Event::getTimestamp))
+                .ifPresent(latest -> updateUserLocation(latest.getUserId(), latest.getLocation()));
+    }
+    
+    /**
+     * Helper method to record an event's location in the history, classify the event and
+     * fan out the resulting alert or notification.
+     * 
+     * @param event The stored event
+     */
+    private void fanOutEvent(Event event) {
+        // Every located event is part of the user's track, not just the latest one
+        if (event.getLocation() != null) {
+            locationHistoryService.record(event.getUserId(), event.getLocation());
+        }
+        
+        switch (classifyEvent(event)) {
+            case ALERT -> generateAlertFromEvent(event);
+            case NOTIFY_RISK_AREA -> notifyUserOfRiskArea(event);
+            case RECORD_ONLY -> {}
+        }
+    }
+    
+    /**
+     * Helper method to check that an uploaded event can be stored.
+     * 
+     * @param event The event to check
+     * @return A description of the problem, or null if the event is valid
+     */
+    private String validateEvent(Event event) {
+        if (event == null) {
+            return "Event is empty";
+        }
+        if (event.getUserId() == null || event.getUserId().isBlank()) {
+            return "userId is required";
+        }
+        if (event.getEventType() == null) {
+            return "eventType is required";
+        }
+        if (event.getConfidence() < 0.0 || event.getConfidence() > 1.0) {
+            return "confidence must be between 0.0 and 1.0";
+        }
+        if (event.getTimestamp() < 0) {
+            return "timestamp must not be negative";
+        }
+        if (event.getId() != null) {
+            return "id must not be set";
+        }
+        return null;
+    }
+    
+    /**
+     * Helper method to decide what follow-up action an event needs.
+     * 
+     * @param event The event to classify
+     * @return The action to take for the event
+     */
+    private EventAction classifyEvent(Event event) {
+        // Classify based on event type using modern switch expression
+        return switch (event.getEventType()) {
+            // For critical safety events, generate an alert if confidence is high enough
+            case FALL_DETECTED, COLLISION_DETECTED, RAPID_DECELERATION ->
+                event.getConfidence() >= 0.7 ? EventAction.ALERT : EventAction.RECORD_ONLY;
+            
+            // For potential safety issues, generate an alert if confidence is very high
+            case UNUSUAL_MOVEMENT, INACTIVITY ->
+                event.getConfidence() >= 0.9 ? EventAction.ALERT : EventAction.RECORD_ONLY;
+            
+            // Always generate an alert for manual triggers
+            case MANUAL_ALERT -> EventAction.ALERT;
+            
+            // Send notification but don't generate alert
+            case ENTER_RISK_AREA -> EventAction.NOTIFY_RISK_AREA;
+            
+            // Just record these events, no immediate action needed
+            case ENTER_SAFEHAVEN, EXIT_SAFEHAVEN, EXIT_RISK_AREA -> EventAction.RECORD_ONLY;
+        };
     }
     
     @Override
     public void deleteEvent(String id) {
+        // Invalidate after the delete, so a concurrent read cannot cache the deleted event again
+        Optional<Event> event = eventRepository.findById(id);
         eventRepository.deleteById(id);
+        event.ifPresent(deleted -> recentEventsCache.invalidate(deleted.getUserId()));
     }
     
     @Override
     public int deleteEventsOlderThan(long timestamp) {
-        List<Event> oldEvents = eventRepository.findAll().stream()
-                .filter(event -> event.getTimestamp() < timestamp)
-                .toList();
-        
-        if (!oldEvents.isEmpty()) {
-            eventRepository.deleteAll(oldEvents);
+        // Single indexed range delete on the server instead of loading the collection
+        int deletedCount = (int) eventRepository.deleteByTimestampLessThan(timestamp);
+        if (deletedCount > 0) {
+            recentEventsCache.invalidateAll();
         }
-        
-        return oldEvents.size();
+        return deletedCount;
     }
     
     /**
-     * Helper method to generate an alert from an event.
+     * Helper method to generate an alert from an event. Events subject to a countdown
+     * (falls and collisions) start a cancellable countdown instead of raising the alert.
      * 
      * @param event The event to generate an alert from
-     * @return The generated alert
      */
-    private Alert generateAlertFromEvent(Event event) {
+    private void generateAlertFromEvent(Event event) {
+        Alert alert = buildAlertFromEvent(event);
+        if (pendingAlertScheduler.appliesTo(event)) {
+            pendingAlertScheduler.start(event, alert);
+            return;
+        }
+        
+        // Save and broadcast the alert
+        Alert savedAlert = alertService.createAlert(alert);
+        webSocketService.broadcastAlert(savedAlert);
+    }
+    
+    /**
+     * Helper method to build the (unsaved) alert for an event.
+     * 
+     * @param event The event to build the alert for
+     * @return The alert
+     */
+    private Alert buildAlertFromEvent(Event event) {
         Alert alert = new Alert();
         alert.setUserId(event.getUserId());
         alert.setLocation(event.getLocation());
@@ -219,11 +453,7 @@ public class EventServiceImpl implements EventService {
             // alert.setGroupId(userOpt.get().getPrimaryGroupId());
         }
         
-        // Save and broadcast the alert
-        Alert savedAlert = alertService.createAlert(alert);
-        webSocketService.broadcastAlert(savedAlert);
-        
-        return savedAlert;
+        return alert;
     }
     
     /**
@@ -247,11 +477,29 @@ public class EventServiceImpl implements EventService {
      */
     private void updateUserLocation(String userId, Location location) {
         userService.getUserById(userId).ifPresent(user -> {
-            user.setLastKnownLocation(location);
-            userService.updateUser(user);
+            // Buffered write of lastKnownLocation only, instead of saving the whole user
+            userService.updateLastKnownLocation(userId, location);
             
             // Broadcast location update via WebSocket
             webSocketService.sendLocationUpdate(userId, location);
+            
+            // Detect safe haven / risk area transitions for the new location
+            geofenceService.evaluateLocation(userId, location);
+            
+            // Recommend a new reporting interval if the user's situation changed
+            samplingPolicyService.evaluate(userId, location);
         });
     }
+    
+    /**
+     * Follow-up actions an event can require after it has been stored.
+     */
+    private enum EventAction {
+        /** Create and broadcast an alert */
+        ALERT,
+        /** Warn the user that they entered a risk area */
+        NOTIFY_RISK_AREA,
+        /** Nothing beyond storing the event */
+        RECORD_ONLY
+    }
 }
@@ -0,0 +1,258 @@
+package com.muninalert.backend_munin_alert.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.muninalert.backend_munin_alert.model.Event;
+import com.muninalert.backend_munin_alert.model.Location;
+import com.muninalert.backend_munin_alert.model.RiskAlert;
+import com.muninalert.backend_munin_alert.model.SafeHaven;
+import com.muninalert.backend_munin_alert.repository.EventRepository;
+import com.muninalert.backend_munin_alert.service.GeofenceService;
+import com.muninalert.backend_munin_alert.service.RecentEventsCache;
+import com.muninalert.backend_munin_alert.service.RiskAlertService;
+import com.muninalert.backend_munin_alert.service.RiskAreaClearedEvent;
+import com.muninalert.backend_munin_alert.service.SafeHavenService;
+import com.muninalert.backend_munin_alert.service.WebSocketService;
+
+/**
+ * Implementation of the GeofenceService interface.
+ *
+ * Keeps a per-user "currently inside" set of safe haven and risk alert IDs in memory.
+ * Membership for a new location is resolved through the in-memory spatial indexes
+ * (via the safe haven and risk alert services), so each update costs a cell lookup
+ * plus a few distance tests. Only differences from the previous state produce events.
+ *
+ * Fixes older than the last one evaluated for the user are ignored.
+ *
+ * The state is process-local: after a restart the first update for each user is
+ * compared against an empty state, so the user receives ENTER events for the areas
+ * they are currently in.
+ */
+@Service
+public class GeofenceServiceImpl implements GeofenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceServiceImpl.class);
+
+    private final SafeHavenService safeHavenService;
+    private final RiskAlertService riskAlertService;
+    private final EventRepository eventRepository;
+    private final WebSocketService webSocketService;
+    private final RecentEventsCache recentEventsCache;
+
+    private final Map<String, GeofenceState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param safeHavenService The service for safe haven lookups
+     * @param riskAlertService The service for risk alert lookups
+     * @param eventRepository The repository used to persist transition events
+     * @param webSocketService The service for WebSocket operations
+     * @param recentEventsCache The cache of each user's most recent events
+     */
+    @Autowired
+    public GeofenceServiceImpl(SafeHavenService safeHavenService,
+                               RiskAlertService riskAlertService,
+                               EventRepository eventRepository,
+                               WebSocketService webSocketService,
+                               RecentEventsCache recentEventsCache) {
+        this.safeHavenService = safeHavenService;
+        this.riskAlertService = riskAlertService;
+        this.eventRepository = eventRepository;
+        this.webSocketService = webSocketService;
+        this.recentEventsCache = recentEventsCache;
+    }
+
+    @Override
+    public List<Event> evaluateLocation(String userId, Location location) {
+        if (userId == null || location == null || location.getCoordinates() == null) {
+            return List.of();
+        }
+
+        double latitude = location.getCoordinates().getY();
+        double longitude = location.getCoordinates().getX();
+
+        List<Event> transitions = new ArrayList<>();
+        GeofenceState state = states.computeIfAbsent(userId, id -> new GeofenceState());
+
+        // Look up and diff under the user's lock so concurrent updates for one user cannot interleave
+        synchronized (state) {
+            // A fix that arrives after a newer one must not move the user back
+            if (state.lastLocation != null && location.getTimestamp() > 0
+                    && location.getTimestamp() < state.lastLocation.getTimestamp()) {
+                return List.of();
+            }
+
+            Set<String> safeHavenIds = safeHavenService.findSafeHavensContainingLocation(userId, latitude, longitude)
+                    .stream()
+                    .map(SafeHaven::getId)
+                    .collect(Collectors.toSet());
+            Set<String> riskAlertIds = riskAlertService.findActiveRiskAlertsContainingLocation(latitude, longitude)
+                    .stream()
+                    .map(RiskAlert::getId)
+                    .collect(Collectors.toSet());
+
+            addTransitions(transitions, userId, location, state.safeHavenIds, safeHavenIds,
+                    Event.EventType.ENTER_SAFEHAVEN, Event.EventType.EXIT_SAFEHAVEN, "safeHavenId");
+            addTransitions(transitions, userId, location, state.riskAlertIds, riskAlertIds,
+                    Event.EventType.ENTER_RISK_AREA, Event.EventType.EXIT_RISK_AREA, "riskAlertId");
+            state.safeHavenIds = safeHavenIds;
+            state.riskAlertIds = riskAlertIds;
+            state.lastLocation = location;
+        }
+
+        return publishTransitions(userId, transitions);
+    }
+
+    @Override
+    public void clearUserState(String userId) {
+        if (userId != null) {
+            states.remove(userId);
+        }
+    }
+
+    @Override
+    public boolean isInsideSafeHaven(String userId) {
+        GeofenceState state = userId != null ? states.get(userId) : null;
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            return !state.safeHavenIds.isEmpty();
+        }
+    }
+
+    @Override
+    public List<Event> clearRiskArea(String riskAlertId) {
+        List<Event> transitions = new ArrayList<>();
+        states.forEach((userId, state) -> {
+            synchronized (state) {
+                if (state.riskAlertIds.contains(riskAlertId)) {
+                    Set<String> remaining = new HashSet<>(state.riskAlertIds);
+                    remaining.remove(riskAlertId);
+                    state.riskAlertIds = remaining;
+                    Event exit = createTransition(userId, state.lastLocation,
+                            Event.EventType.EXIT_RISK_AREA, "riskAlertId", riskAlertId);
+                    // The user did not move; the area went away now
+                    exit.setTimestamp(System.currentTimeMillis());
+                    transitions.add(exit);
+                }
+            }
+        });
+
+        List<Event> savedTransitions = new ArrayList<>();
+        transitions.stream()
+                .collect(Collectors.groupingBy(Event::getUserId))
+                .forEach((userId, userTransitions) -> savedTransitions.addAll(publishTransitions(userId, userTransitions)));
+        return savedTransitions;
+    }
+
+    /**
+     * Emits EXIT transitions for the users inside a risk area that expired or was deleted.
+     *
+     * @param event The cleared risk area
+     */
+    @EventListener
+    public void onRiskAreaCleared(RiskAreaClearedEvent event) {
+        clearRiskArea(event.riskAlert().getId());
+    }
+
+    /**
+     * Helper method to persist transitions and push them to the user.
+     *
+     * @param userId The ID of the user
+     * @param transitions The transitions to publish
+     * @return The saved transitions
+     */
+    private List<Event> publishTransitions(String userId, List<Event> transitions) {
+        if (transitions.isEmpty()) {
+            return transitions;
+        }
+
+        List<Event> savedTransitions = eventRepository.saveAll(transitions);
+        recentEventsCache.addAll(savedTransitions);
+        for (Event transition : savedTransitions) {
+            webSocketService.sendGeofenceTransition(transition);
+            if (transition.getEventType() == Event.EventType.ENTER_RISK_AREA) {
+                webSocketService.sendSystemNotification(
+                    userId,
+                    "You have entered an area with an active safety risk. Please be cautious."
+                );
+            }
+        }
+        logger.debug("Generated {} geofence transitions for user {}", savedTransitions.size(), userId);
+        return savedTransitions;
+    }
+
+    /**
+     * Helper method to append ENTER events for newly entered areas and EXIT events for
+     * areas that were left.
+     *
+     * @param transitions The list to append events to
+     * @param userId The ID of the user
+     * @param location The location that triggered the evaluation
+     * @param previous The area IDs the user was inside before
+     * @param current The area IDs the user is inside now
+     * @param enterType The event type for entering an area
+     * @param exitType The event type for leaving an area
+     * @param idField The name of the ID field recorded in the event's raw data
+     */
+    private void addTransitions(List<Event> transitions, String userId, Location location,
+                                Set<String> previous, Set<String> current,
+                                Event.EventType enterType, Event.EventType exitType, String idField) {
+        for (String id : current) {
+            if (!previous.contains(id)) {
+                transitions.add(createTransition(userId, location, enterType, idField, id));
+            }
+        }
+        for (String id : previous) {
+            if (!current.contains(id)) {
+                transitions.add(createTransition(userId, location, exitType, idField, id));
+            }
+        }
+    }
+
+    /**
+     * Helper method to build a transition event.
+     *
+     * @param userId The ID of the user
+     * @param location The location that triggered the transition
+     * @param eventType The transition type
+     * @param idField The name of the ID field recorded in the event's raw data
+     * @param areaId The ID of the safe haven or risk alert
+     * @return The transition event (not yet persisted)
+     */
+    private Event createTransition(String userId, Location location, Event.EventType eventType,
+                                   String idField, String areaId) {
+        Event event = new Event();
+        event.setUserId(userId);
+        event.setDeviceId(location.getDeviceId());
+        event.setEventType(eventType);
+        event.setLocation(location);
+        event.setConfidence(1.0);
+        event.setRawData("{\"" + idField + "\":\"" + areaId + "\",\"source\":\"geofence\"}");
+        event.setTimestamp(location.getTimestamp() > 0 ? location.getTimestamp() : System.currentTimeMillis());
+        return event;
+    }
+
+    /**
+     * The areas a single user is currently inside.
+     */
+    private static class GeofenceState {
+        private Set<String> safeHavenIds = new HashSet<>();
+        private Set<String> riskAlertIds = new HashSet<>();
+        private Location lastLocation;
+    }
+}
@@ -1,31 +1,56 @@
 
 package com.muninalert.backend_munin_alert.service.impl;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import com.muninalert.backend_munin_alert.model.Group;
 import com.muninalert.backend_munin_alert.repository.GroupRepository;
+import com.muninalert.backend_munin_alert.service.GroupMembershipIndex;
 import com.muninalert.backend_munin_alert.service.GroupService;
 
 @Service
 public class GroupServiceImpl implements GroupService {
 
+    private static final int LOCK_STRIPES = 64;
+
     private final GroupRepository groupRepository;
+    private final GroupMembershipIndex membershipIndex;
+    private final MongoTemplate mongoTemplate;
+
+    // Writes to one group and their index updates run under the group's stripe, so the
+    // index sees the results in the order MongoDB applied them
+    private final Object[] groupLocks = new Object[LOCK_STRIPES];
 
     @Autowired
-    public GroupServiceImpl(GroupRepository groupRepository) {
+    public GroupServiceImpl(GroupRepository groupRepository, GroupMembershipIndex membershipIndex,
+                            MongoTemplate mongoTemplate) {
         this.groupRepository = groupRepository;
+        this.membershipIndex = membershipIndex;
+        this.mongoTemplate = mongoTemplate;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            groupLocks[i] = new Object();
+        }
     }
 
     @Override
     public Group createGroup(Group group) {
         group.setCreatedAt(System.currentTimeMillis());
         group.setUpdatedAt(System.currentTimeMillis());
-        return groupRepository.save(group);
+        Group savedGroup = groupRepository.save(group);
+        membershipIndex.put(savedGroup);
+        return savedGroup;
     }
 
     @Override
@@ -43,6 +68,57 @@ public class GroupServiceImpl implements GroupService {
         return groupRepository.findByMemberIdsContaining(memberId);
     }
 
+    @Override
+    public Set<String> findGroupIdsByMemberId(String memberId) {
+        if (membershipIndex.isReady()) {
+            return membershipIndex.getGroupIds(memberId);
+        }
+        Set<String> groupIds = new HashSet<>();
+        groupRepository.findIdsByMemberId(memberId).forEach(group -> groupIds.add(group.getId()));
+        return groupIds;
+    }
+
+    @Override
+    public boolean isMember(String groupId, String userId) {
+        if (groupId == null || userId == null) {
+            return false;
+        }
+        if (membershipIndex.isReady() && membershipIndex.isMember(groupId, userId)) {
+            return true;
+        }
+        return loadMembership(groupId)
+                .map(group -> group.getMemberIds() != null && group.getMemberIds().contains(userId))
+                .orElse(false);
+    }
+
+    @Override
+    public boolean isOwnerOrAdmin(String groupId, String userId) {
+        if (groupId == null || userId == null) {
+            return false;
+        }
+        if (membershipIndex.isReady() && membershipIndex.isOwnerOrAdmin(groupId, userId)) {
+            return true;
+        }
+        return loadMembership(groupId)
+                .map(group -> userId.equals(group.getOwnerId())
+                        || (group.getAdminIds() != null && group.getAdminIds().contains(userId)))
+                .orElse(false);
+    }
+
+    @Override
+    public Optional<GroupMembershipIndex.AlertSettings> findAlertSettings(String groupId) {
+        if (groupId == null) {
+            return Optional.empty();
+        }
+        if (membershipIndex.isReady() && membershipIndex.contains(groupId)) {
+            return membershipIndex.getAlertSettings(groupId);
+        }
+        return loadMembership(groupId)
+                .map(Group::getSettings)
+                .map(settings -> new GroupMembershipIndex.AlertSettings(
+                        settings.getAlertCountdownSeconds(), settings.getAlertExpiryMinutes()));
+    }
+
     @Override
     public List<Group> findGroupsByOwnerId(String ownerId) {
         return groupRepository.findByOwnerId(ownerId);
@@ -51,39 +127,93 @@ public class GroupServiceImpl implements GroupService {
     @Override
     public Group updateGroup(Group group) {
         group.setUpdatedAt(System.currentTimeMillis());
-        return groupRepository.save(group);
+        synchronized (lockFor(group.getId())) {
+            Group savedGroup = groupRepository.save(group);
+            membershipIndex.put(savedGroup);
+            return savedGroup;
+        }
     }
 
     @Override
     public Group addMemberToGroup(String groupId, String userId) {
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found with id: " + groupId));
-        
-        if (!group.getMemberIds().contains(userId)) {
-            group.getMemberIds().add(userId);
-            group.setUpdatedAt(System.currentTimeMillis());
-            return groupRepository.save(group);
-        }
-        
-        return group;
+        return addMembersToGroup(groupId, List.of(userId));
+    }
+
+    @Override
+    public Group addMembersToGroup(String groupId, Collection<String> userIds) {
+        Update update = new Update()
+                .addToSet("memberIds").each(userIds.toArray())
+                .max("updatedAt", System.currentTimeMillis());
+        return modifyMembership(groupId, update);
     }
 
     @Override
     public Group removeMemberFromGroup(String groupId, String userId) {
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found with id: " + groupId));
-        
-        group.getMemberIds().remove(userId);
-        
-        // If the user was an admin, remove them from adminIds as well
-        group.getAdminIds().remove(userId);
-        
-        group.setUpdatedAt(System.currentTimeMillis());
-        return groupRepository.save(group);
+        return removeMembersFromGroup(groupId, List.of(userId));
+    }
+
+    @Override
+    public Group removeMembersFromGroup(String groupId, Collection<String> userIds) {
+        // Removed members also lose their admin role
+        Object[] removed = userIds.toArray();
+        Update update = new Update()
+                .pullAll("memberIds", removed)
+                .pullAll("adminIds", removed)
+                .max("updatedAt", System.currentTimeMillis());
+        return modifyMembership(groupId, update);
     }
 
     @Override
     public void deleteGroup(String id) {
-        groupRepository.deleteById(id);
+        synchronized (lockFor(id)) {
+            groupRepository.deleteById(id);
+            membershipIndex.removeGroup(id);
+        }
+    }
+
+    /**
+     * Helper method to read the indexed fields of a group from MongoDB and refresh the index
+     * with them. Used when the index does not know the group or denies access, since the
+     * group may have been created or changed on another node since the last reload.
+     *
+     * @param groupId The ID of the group
+     * @return The group with only its indexed fields, or empty if it does not exist
+     */
+    private Optional<Group> loadMembership(String groupId) {
+        Query query = Query.query(Criteria.where("_id").is(groupId));
+        query.fields().include(GroupMembershipIndex.FIELDS);
+        Group group = mongoTemplate.findOne(query, Group.class);
+        if (group != null) {
+            membershipIndex.put(group);
+        }
+        return Optional.ofNullable(group);
+    }
+
+    /**
+     * Applies a membership update atomically in a single findAndModify and refreshes the
+     * membership index from the updated document. {@code updatedAt} is only ever moved
+     * forward ({@code $max}), so the index can tell older results from newer ones.
+     *
+     * @param groupId The ID of the group
+     * @param update The $addToSet/$pull update to apply
+     * @return The group after the update
+     */
+    private Group modifyMembership(String groupId, Update update) {
+        synchronized (lockFor(groupId)) {
+            Group updatedGroup = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(groupId)),
+                    update,
+                    FindAndModifyOptions.options().returnNew(true),
+                    Group.class);
+            if (updatedGroup == null) {
+                throw new RuntimeException("Group not found with id: " + groupId);
+            }
+            membershipIndex.put(updatedGroup);
+            return updatedGroup;
+        }
+    }
+
+    private Object lockFor(String groupId) {
+        return groupLocks[Math.floorMod(groupId != null ? groupId.hashCode() : 0, LOCK_STRIPES)];
     }
 }
@@ -0,0 +1,164 @@
+package com.muninalert.backend_munin_alert.service.impl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.muninalert.backend_munin_alert.model.Location;
+import com.muninalert.backend_munin_alert.model.LocationPoint;
+import com.muninalert.backend_munin_alert.service.AlertService;
+import com.muninalert.backend_munin_alert.service.LocationHistoryService;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Implementation of the LocationHistoryService interface.
+ * 
+ * Points are queued in a bounded in-memory buffer and written by a scheduled flush
+ * in unordered bulk inserts of up to {@code batchSize} points. The time-series
+ * collection is created explicitly at startup, because MongoDB would otherwise create
+ * a regular collection on the first insert.
+ */
+@Service
+public class LocationHistoryServiceImpl implements LocationHistoryService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LocationHistoryServiceImpl.class);
+    
+    private final MongoTemplate mongoTemplate;
+    private final AlertService alertService;
+    private final BlockingQueue<LocationPoint> buffer;
+    private final int batchSize;
+    
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean collectionReady = false;
+    
+    /**
+     * Constructor for dependency injection.
+     * 
+     * @param mongoTemplate The template used for bulk writes and streaming queries
+     * @param alertService The service used to look up alerts
+     * @param bufferCapacity The maximum number of points waiting to be written
+     * @param batchSize The maximum number of points per bulk insert
+     */
+    @Autowired
+    public LocationHistoryServiceImpl(MongoTemplate mongoTemplate,
+                                      AlertService alertService,
+                                      @Value("${munin.location.history.buffer-capacity:100000}") int bufferCapacity,
+                                      @Value("${munin.location.history.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.alertService = alertService;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Creates the time-series collection and its (user, time) index if they do not exist yet.
+     * Failures are logged and retried before the next flush.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureCollection() {
+        try {
+            if (!mongoTemplate.collectionExists(LocationPoint.class)) {
+                mongoTemplate.createCollection(LocationPoint.class);
+                logger.info("Created time-series collection for location history");
+            }
+            mongoTemplate.indexOps(LocationPoint.class).createIndex(new Index()
+                    .on("source.userId", Sort.Direction.ASC)
+                    .on("timestamp", Sort.Direction.ASC)
+                    .named("source_user_timestamp"));
+            collectionReady = true;
+        } catch (Exception e) {
+            logger.error("Failed to prepare location history collection", e);
+        }
+    }
+    
+    @Override
+    public void record(String userId, Location location) {
+        if (userId == null || location == null || location.getCoordinates() == null) {
+            return;
+        }
+        if (!buffer.offer(LocationPoint.of(userId, location))) {
+            dropped.increment();
+        }
+    }
+    
+    /**
+     * Writes buffered points to MongoDB in bulk inserts of up to {@code batchSize} points.
+     * A batch that fails to be written is dropped and logged.
+     */
+    @Scheduled(fixedDelayString = "${munin.location.history.flush-interval-ms:500}")
+    public void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        if (!collectionReady) {
+            ensureCollection();
+            if (!collectionReady) {
+                return;
+            }
+        }
+        
+        List<LocationPoint> batch = new ArrayList<>(Math.min(batchSize, buffer.size()));
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LocationPoint.class)
+                        .insert(batch)
+                        .execute();
+            } catch (Exception e) {
+                logger.error("Failed to write {} location history points", batch.size(), e);
+            }
+            batch.clear();
+        }
+        
+        long droppedCount = dropped.sumThenReset();
+        if (droppedCount > 0) {
+            logger.warn("Location history buffer full, dropped {} points", droppedCount);
+        }
+    }
+    
+    /**
+     * Writes the remaining buffered points before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+    
+    @Override
+    public Stream<LocationPoint> streamTrack(String userId, Instant from, Instant to) {
+        Criteria timeRange = Criteria.where("timestamp").gte(from);
+        if (to != null) {
+            timeRange = timeRange.lt(to);
+        }
+        Query query = Query.query(Criteria.where("source.userId").is(userId).andOperator(timeRange))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"))
+                .cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, LocationPoint.class);
+    }
+    
+    @Override
+    public Stream<LocationPoint> streamTrackSinceAlert(String alertId) {
+        return alertService.findAlertById(alertId)
+                .map(alert -> streamTrack(alert.getUserId(), Instant.ofEpochMilli(alert.getCreatedAt()), null))
+                .orElseGet(Stream::empty);
+    }
+}
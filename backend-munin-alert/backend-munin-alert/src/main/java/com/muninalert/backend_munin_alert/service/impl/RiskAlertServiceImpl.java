@@ -3,15 +3,28 @@ package com.muninalert.backend_munin_alert.service.impl;
 import java.util.List;
 import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Metrics;
 import org.springframework.data.geo.Point;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.muninalert.backend_munin_alert.dto.CursorPage;
+import com.muninalert.backend_munin_alert.dto.RiskAreaClearedMessage;
+import com.muninalert.backend_munin_alert.geo.GeoUtils;
+import com.muninalert.backend_munin_alert.geo.RiskAlertSpatialIndex;
 import com.muninalert.backend_munin_alert.model.RiskAlert;
+import com.muninalert.backend_munin_alert.repository.KeysetPager;
 import com.muninalert.backend_munin_alert.repository.RiskAlertRepository;
 import com.muninalert.backend_munin_alert.service.RiskAlertService;
+import com.muninalert.backend_munin_alert.service.RiskAreaClearedEvent;
+import com.muninalert.backend_munin_alert.service.WebSocketService;
 
 /**
  * Implementation of the RiskAlertService interface for managing risk alerts.
@@ -22,16 +35,37 @@ import com.muninalert.backend_munin_alert.service.RiskAlertService;
 @Service
 public class RiskAlertServiceImpl implements RiskAlertService {
     
+    private static final Logger logger = LoggerFactory.getLogger(RiskAlertServiceImpl.class);
+    
     private final RiskAlertRepository riskAlertRepository;
+    private final RiskAlertSpatialIndex riskAlertSpatialIndex;
+    private final WebSocketService webSocketService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KeysetPager keysetPager;
+    
+    @Value("${munin.risk-alerts.expiry.chunk-size:500}")
+    private int expiryChunkSize;
     
     /**
      * Constructor for dependency injection.
      * 
      * @param riskAlertRepository The repository for risk alert operations
+     * @param riskAlertSpatialIndex The in-memory spatial index of active risk alerts
+     * @param webSocketService The service for WebSocket operations
+     * @param eventPublisher The publisher for risk area cleared events
+     * @param keysetPager The helper for keyset pagination
      */
     @Autowired
-    public RiskAlertServiceImpl(RiskAlertRepository riskAlertRepository) {
+    public RiskAlertServiceImpl(RiskAlertRepository riskAlertRepository,
+                                RiskAlertSpatialIndex riskAlertSpatialIndex,
+                                WebSocketService webSocketService,
+                                ApplicationEventPublisher eventPublisher,
+                                KeysetPager keysetPager) {
         this.riskAlertRepository = riskAlertRepository;
+        this.riskAlertSpatialIndex = riskAlertSpatialIndex;
+        this.webSocketService = webSocketService;
+        this.eventPublisher = eventPublisher;
+        this.keysetPager = keysetPager;
     }
     
     @Override
@@ -46,7 +80,9 @@ public class RiskAlertServiceImpl implements RiskAlertService {
             riskAlert.setExpiresAt(System.currentTimeMillis() + (24 * 60 * 60 * 1000));
         }
         
-        return riskAlertRepository.save(riskAlert);
+        RiskAlert savedRiskAlert = riskAlertRepository.save(riskAlert);
+        riskAlertSpatialIndex.put(savedRiskAlert);
+        return savedRiskAlert;
     }
     
     @Override
@@ -59,6 +95,12 @@ public class RiskAlertServiceImpl implements RiskAlertService {
         return riskAlertRepository.findAll();
     }
     
+    @Override
+    public CursorPage<RiskAlert> findRiskAlertsPage(String cursor, int limit) {
+        return keysetPager.page(RiskAlert.class, null, "createdAt",
+                RiskAlert::getCreatedAt, RiskAlert::getId, cursor, limit);
+    }
+    
     @Override
     public List<RiskAlert> findRiskAlertsByType(RiskAlert.RiskType riskType) {
         return riskAlertRepository.findByRiskType(riskType);
@@ -96,6 +138,34 @@ public class RiskAlertServiceImpl implements RiskAlertService {
         return riskAlertRepository.findActiveRiskAlertsByLevelNear(currentTime, minRiskLevel, point, radiusMeters);
     }
     
+    @Override
+    public List<RiskAlert> findActiveRiskAlertsContainingLocation(double latitude, double longitude) {
+        if (riskAlertSpatialIndex.isReady()) {
+            return riskAlertSpatialIndex.findContaining(latitude, longitude);
+        }
+        
+        // Cold start: check the active risk alerts from MongoDB directly
+        return findActiveRiskAlerts().stream()
+                .filter(riskAlert -> riskAlert.getLocation() != null)
+                .filter(riskAlert -> GeoUtils.distanceMeters(latitude, longitude,
+                        riskAlert.getLocation().getY(), riskAlert.getLocation().getX()) <= riskAlert.getRadiusMeters())
+                .toList();
+    }
+    
+    @Override
+    public List<RiskAlert> findActiveRiskAlertsWithinMargin(double latitude, double longitude, double marginMeters) {
+        if (riskAlertSpatialIndex.isReady()) {
+            return riskAlertSpatialIndex.findWithin(latitude, longitude, marginMeters);
+        }
+        
+        // Cold start: check the active risk alerts from MongoDB directly
+        return findActiveRiskAlerts().stream()
+                .filter(riskAlert -> riskAlert.getLocation() != null)
+                .filter(riskAlert -> GeoUtils.distanceMeters(latitude, longitude,
+                        riskAlert.getLocation().getY(), riskAlert.getLocation().getX()) <= riskAlert.getRadiusMeters() + marginMeters)
+                .toList();
+    }
+    
     @Override
     public RiskAlert updateRiskAlert(RiskAlert riskAlert) {
         // Ensure the risk alert exists
@@ -103,25 +173,71 @@ public class RiskAlertServiceImpl implements RiskAlertService {
             throw new IllegalArgumentException("Cannot update non-existent risk alert");
         }
         
-        return riskAlertRepository.save(riskAlert);
+        RiskAlert savedRiskAlert = riskAlertRepository.save(riskAlert);
+        riskAlertSpatialIndex.put(savedRiskAlert);
+        return savedRiskAlert;
     }
     
     @Override
     public void deleteRiskAlert(String id) {
+        Optional<RiskAlert> riskAlert = riskAlertRepository.findById(id);
         riskAlertRepository.deleteById(id);
+        riskAlertSpatialIndex.remove(id);
+        riskAlert.ifPresent(deleted -> announceCleared(deleted, RiskAreaClearedEvent.Reason.DELETED));
     }
     
     @Override
     public int expireOldRiskAlerts() {
         long currentTime = System.currentTimeMillis();
-        List<RiskAlert> expiredAlerts = riskAlertRepository.findAll().stream()
-                .filter(alert -> alert.getExpiresAt() < currentTime)
-                .toList();
+        int chunkSize = Math.max(1, expiryChunkSize);
+        int expiredCount = 0;
         
-        if (!expiredAlerts.isEmpty()) {
-            riskAlertRepository.deleteAll(expiredAlerts);
+        // Walk the expiresAt index in chunks; each chunk is deleted with one $in delete
+        while (true) {
+            List<RiskAlert> expiredAlerts = riskAlertRepository
+                    .findByExpiresAtLessThanEqualOrderByExpiresAtAsc(currentTime, PageRequest.of(0, chunkSize));
+            if (expiredAlerts.isEmpty()) {
+                break;
+            }
+            
+            riskAlertRepository.deleteAllById(expiredAlerts.stream().map(RiskAlert::getId).toList());
+            for (RiskAlert expired : expiredAlerts) {
+                riskAlertSpatialIndex.remove(expired.getId());
+                announceCleared(expired, RiskAreaClearedEvent.Reason.EXPIRED);
+            }
+            expiredCount += expiredAlerts.size();
+            
+            if (expiredAlerts.size() < chunkSize) {
+                break;
+            }
         }
         
-        return expiredAlerts.size();
+        return expiredCount;
+    }
+    
+    /**
+     * Expires old risk alerts on a fixed schedule.
+     */
+    @Scheduled(fixedDelayString = "${munin.risk-alerts.expiry.interval-ms:60000}")
+    public void scheduledExpiry() {
+        try {
+            int expiredCount = expireOldRiskAlerts();
+            if (expiredCount > 0) {
+                logger.info("Expired {} risk alerts", expiredCount);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to expire risk alerts", e);
+        }
+    }
+    
+    /**
+     * Helper method to tell subscribers and the geofence engine that a risk area is gone.
+     * 
+     * @param riskAlert The removed risk alert
+     * @param reason Why it was removed
+     */
+    private void announceCleared(RiskAlert riskAlert, RiskAreaClearedEvent.Reason reason) {
+        webSocketService.sendRiskAreaCleared(new RiskAreaClearedMessage(riskAlert, reason));
+        eventPublisher.publishEvent(new RiskAreaClearedEvent(riskAlert, reason));
     }
 }
\ No newline at end of file
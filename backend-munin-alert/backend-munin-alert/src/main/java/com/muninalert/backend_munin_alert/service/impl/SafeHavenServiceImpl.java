@@ -1,20 +1,29 @@
 package com.muninalert.backend_munin_alert.service.impl;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Metrics;
 import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import com.muninalert.backend_munin_alert.dto.CursorPage;
+import com.muninalert.backend_munin_alert.geo.GeoUtils;
+import com.muninalert.backend_munin_alert.geo.SafeHavenSpatialIndex;
 import com.muninalert.backend_munin_alert.model.SafeHaven;
+import com.muninalert.backend_munin_alert.repository.KeysetPager;
 import com.muninalert.backend_munin_alert.repository.SafeHavenRepository;
 import com.muninalert.backend_munin_alert.service.GroupService;
 import com.muninalert.backend_munin_alert.service.SafeHavenService;
@@ -32,25 +41,40 @@ public class SafeHavenServiceImpl implements SafeHavenService {
     private static final Logger logger = LoggerFactory.getLogger(SafeHavenServiceImpl.class);
     
     private final SafeHavenRepository safeHavenRepository;
-    // These services will be used in future implementation
+    private final SafeHavenSpatialIndex safeHavenSpatialIndex;
+    private final KeysetPager keysetPager;
+    private final MongoTemplate mongoTemplate;
+    private final GroupService groupService;
+    // This service will be used in future implementation
     // private final UserService userService;
-    // private final GroupService groupService;
+    
+    @Value("${munin.safe-havens.nearby.max-results:100}")
+    private int nearbyMaxResults;
     
     /**
      * Constructor for dependency injection.
      * 
      * @param safeHavenRepository The repository for safe haven operations
+     * @param safeHavenSpatialIndex The in-memory spatial index of safe havens
+     * @param keysetPager The helper for keyset pagination
+     * @param mongoTemplate The template for geo aggregations
      * @param userService The service for user operations
      * @param groupService The service for group operations
      */
     @Autowired
     public SafeHavenServiceImpl(SafeHavenRepository safeHavenRepository, 
+                              SafeHavenSpatialIndex safeHavenSpatialIndex,
+                              KeysetPager keysetPager,
+                              MongoTemplate mongoTemplate,
                               UserService userService,
                               GroupService groupService) {
         this.safeHavenRepository = safeHavenRepository;
-        // These services will be used in future implementation
+        this.safeHavenSpatialIndex = safeHavenSpatialIndex;
+        this.keysetPager = keysetPager;
+        this.mongoTemplate = mongoTemplate;
+        this.groupService = groupService;
+        // This service will be used in future implementation
         // this.userService = userService;
-        // this.groupService = groupService;
     }
     
     @Override
@@ -64,7 +88,9 @@ public class SafeHavenServiceImpl implements SafeHavenService {
             safeHaven.setUpdatedAt(currentTime);
         }
         
-        return safeHavenRepository.save(safeHaven);
+        SafeHaven savedSafeHaven = safeHavenRepository.save(safeHaven);
+        safeHavenSpatialIndex.put(savedSafeHaven);
+        return savedSafeHaven;
     }
     
     @Override
@@ -82,6 +108,13 @@ public class SafeHavenServiceImpl implements SafeHavenService {
         return safeHavenRepository.findByUserId(userId);
     }
     
+    @Override
+    public CursorPage<SafeHaven> findSafeHavensPage(String userId, String cursor, int limit) {
+        Criteria filter = userId != null ? Criteria.where("userId").is(userId) : null;
+        return keysetPager.page(SafeHaven.class, filter, "createdAt",
+                SafeHaven::getCreatedAt, SafeHaven::getId, cursor, limit);
+    }
+    
     @Override
     public List<SafeHaven> findSafeHavensByGroupId(String groupId) {
         return safeHavenRepository.findByGroupId(groupId);
@@ -108,38 +141,29 @@ public class SafeHavenServiceImpl implements SafeHavenService {
     
     @Override
     public List<SafeHaven> findSafeHavensForUserNearLocation(String userId, double latitude, double longitude, double radiusMeters) {
-        Point point = new Point(longitude, latitude);
-        Distance distance = new Distance(radiusMeters / 1000, Metrics.KILOMETERS);
-        
-        // Get user's group IDs
-        List<String> groupIds = getUserGroupIds(userId);
+        Set<String> groupIds = getUserGroupIds(userId);
         
-        // Get all accessible safe havens near the location
-        List<SafeHaven> nearbyPersonal = safeHavenRepository.findByUserIdAndLocationNear(userId, point, distance);
-        List<SafeHaven> nearbyPublic = safeHavenRepository.findByIsPublicTrueAndLocationNear(point, distance);
-        
-        List<SafeHaven> nearbyGroup = new ArrayList<>();
-        for (String groupId : groupIds) {
-            nearbyGroup.addAll(safeHavenRepository.findByGroupIdAndLocationNear(groupId, point, distance));
-        }
+        // One $geoNear over all accessible safe havens (personal, group or public), nearest first
+        Criteria access = new Criteria().orOperator(
+                Criteria.where("userId").is(userId),
+                Criteria.where("groupId").in(groupIds),
+                Criteria.where("isPublic").is(true));
+        NearQuery nearQuery = NearQuery.near(new GeoJsonPoint(longitude, latitude))
+                .spherical(true)
+                .maxDistance(new Distance(radiusMeters / 1000, Metrics.KILOMETERS))
+                .query(new Query(access));
         
-        // Combine and remove duplicates
-        List<SafeHaven> allNearby = new ArrayList<>();
-        allNearby.addAll(nearbyPersonal);
-        allNearby.addAll(nearbyPublic);
-        allNearby.addAll(nearbyGroup);
+        // The collection has several 2dsphere indexes, so $geoNear must be told which key to use
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.geoNear(nearQuery, "distance").useIndex("location"),
+                Aggregation.limit(Math.max(1, nearbyMaxResults)));
         
-        // Remove duplicates by ID
-        return allNearby.stream()
-                .collect(Collectors.toMap(SafeHaven::getId, sh -> sh, (sh1, sh2) -> sh1))
-                .values()
-                .stream()
-                .toList();
+        return mongoTemplate.aggregate(aggregation, SafeHaven.class, SafeHaven.class).getMappedResults();
     }
     
     @Override
     public List<SafeHaven> findAccessibleSafeHavens(String userId) {
-        List<String> groupIds = getUserGroupIds(userId);
+        Set<String> groupIds = getUserGroupIds(userId);
         return safeHavenRepository.findAccessibleSafeHavens(userId, groupIds);
     }
     
@@ -153,17 +177,29 @@ public class SafeHavenServiceImpl implements SafeHavenService {
         // Update the last updated timestamp
         safeHaven.setUpdatedAt(System.currentTimeMillis());
         
-        return safeHavenRepository.save(safeHaven);
+        SafeHaven savedSafeHaven = safeHavenRepository.save(safeHaven);
+        safeHavenSpatialIndex.put(savedSafeHaven);
+        return savedSafeHaven;
     }
     
     @Override
     public void deleteSafeHaven(String id) {
         safeHavenRepository.deleteById(id);
+        safeHavenSpatialIndex.remove(id);
     }
     
     @Override
     public Optional<SafeHaven> isLocationInSafeHaven(String userId, double latitude, double longitude) {
-        // Convert to GeoJsonPoint
+        // Serve the check from the in-memory index once it has been loaded
+        if (safeHavenSpatialIndex.isReady()) {
+            Set<String> groupIds = getUserGroupIds(userId);
+            return safeHavenSpatialIndex.findContaining(latitude, longitude,
+                    safeHaven -> isAccessible(safeHaven, userId, groupIds))
+                    .stream()
+                    .findFirst();
+        }
+        
+        // Cold start: fall back to scanning the accessible safe havens from MongoDB
         GeoJsonPoint point = new GeoJsonPoint(longitude, latitude);
         
         // Get all accessible safe havens
@@ -179,6 +215,35 @@ public class SafeHavenServiceImpl implements SafeHavenService {
         return Optional.empty();
     }
     
+    @Override
+    public List<SafeHaven> findSafeHavensContainingLocation(String userId, double latitude, double longitude) {
+        if (safeHavenSpatialIndex.isReady()) {
+            Set<String> groupIds = getUserGroupIds(userId);
+            return safeHavenSpatialIndex.findContaining(latitude, longitude,
+                    safeHaven -> isAccessible(safeHaven, userId, groupIds));
+        }
+        
+        GeoJsonPoint point = new GeoJsonPoint(longitude, latitude);
+        return findAccessibleSafeHavens(userId).stream()
+                .filter(safeHaven -> isPointInSafeHaven(point, safeHaven))
+                .toList();
+    }
+    
+    /**
+     * Helper method to check if a safe haven is accessible to a user
+     * (personal, shared with one of the user's groups, or public).
+     * 
+     * @param safeHaven The safe haven to check
+     * @param userId The ID of the user
+     * @param groupIds The IDs of the groups the user belongs to
+     * @return true if the user can access the safe haven, false otherwise
+     */
+    private boolean isAccessible(SafeHaven safeHaven, String userId, Set<String> groupIds) {
+        return safeHaven.isPublic()
+                || (userId != null && userId.equals(safeHaven.getUserId()))
+                || (safeHaven.getGroupId() != null && groupIds.contains(safeHaven.getGroupId()));
+    }
+    
     /**
      * Helper method to check if a point is within a safe haven.
      * 
@@ -187,55 +252,32 @@ public class SafeHavenServiceImpl implements SafeHavenService {
      * @return true if the point is within the safe haven, false otherwise
      */
     private boolean isPointInSafeHaven(GeoJsonPoint point, SafeHaven safeHaven) {
-        // Get safe haven location coordinates
-        double safeHavenLat = safeHaven.getLocation().getY();
-        double safeHavenLon = safeHaven.getLocation().getX();
+        if (safeHaven.getLocation() == null) {
+            return false;
+        }
         
         // Calculate distance between the point and the safe haven center
-        double distance = calculateDistance(
+        double distance = GeoUtils.distanceMeters(
                 point.getY(), point.getX(),
-                safeHavenLat, safeHavenLon
+                safeHaven.getLocation().getY(), safeHaven.getLocation().getX()
         );
         
         // Check if the distance is less than or equal to the safe haven radius
         return distance <= safeHaven.getRadiusMeters();
     }
     
-    /**
-     * Helper method to calculate the distance between two points using the Haversine formula.
-     * 
-     * @param lat1 Latitude of point 1
-     * @param lon1 Longitude of point 1
-     * @param lat2 Latitude of point 2
-     * @param lon2 Longitude of point 2
-     * @return The distance between the points in meters
-     */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371000; // Earth radius in meters
-        
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        return R * c;
-    }
-    
     /**
      * Helper method to get the IDs of groups a user belongs to.
      * 
      * @param userId The ID of the user
-     * @return A list of group IDs the user belongs to
+     * @return The IDs of the groups the user belongs to
      */
-    private List<String> getUserGroupIds(String userId) {
-        // In a real implementation, this would get the user's groups from the group service
-        // For now, just return empty list
-        // Future implementation will use: groupService.getGroupsForUser(userId)
-        logger.debug("Getting group IDs for user: {}", userId); // Use userId to avoid "never read" warning
-        return new ArrayList<>();
+    private Set<String> getUserGroupIds(String userId) {
+        if (userId == null) {
+            return Set.of();
+        }
+        Set<String> groupIds = groupService.findGroupIdsByMemberId(userId);
+        logger.debug("User {} belongs to {} groups", userId, groupIds.size());
+        return groupIds;
     }
 }
@@ -0,0 +1,232 @@
+package com.muninalert.backend_munin_alert.service.impl;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import com.muninalert.backend_munin_alert.config.SamplingPolicyProperties;
+import com.muninalert.backend_munin_alert.dto.SamplingPolicyMessage;
+import com.muninalert.backend_munin_alert.model.Location;
+import com.muninalert.backend_munin_alert.service.ActiveAlertChangedEvent;
+import com.muninalert.backend_munin_alert.service.ActiveAlertRegistry;
+import com.muninalert.backend_munin_alert.service.GeofenceService;
+import com.muninalert.backend_munin_alert.service.RiskAlertService;
+import com.muninalert.backend_munin_alert.service.SamplingPolicyService;
+import com.muninalert.backend_munin_alert.service.WebSocketService;
+
+/**
+ * Implementation of the SamplingPolicyService interface.
+ * 
+ * The policy of a user is re-evaluated on every location update and whenever the user
+ * starts or stops owning an active alert. It is only pushed to the user's devices when
+ * it differs from the policy pushed before, so a user in a steady situation costs no
+ * extra frames. A device that subscribes to the policy queue (e.g. after reconnecting, or a
+ * second device of the user) is sent the current policy straight away. All inputs come
+ * from in-memory state (active alert registry, geofence state and the risk alert spatial
+ * index), so evaluation does not query MongoDB. Policies are sent outside the per-user
+ * lock; sends of one user are serialized so the last policy sent is the latest decided.
+ */
+@Service
+public class SamplingPolicyServiceImpl implements SamplingPolicyService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SamplingPolicyServiceImpl.class);
+    
+    private static final String POLICY_DESTINATION = "/user/queue/sampling-policy";
+    
+    private final SamplingPolicyProperties properties;
+    private final ActiveAlertRegistry activeAlertRegistry;
+    private final GeofenceService geofenceService;
+    private final RiskAlertService riskAlertService;
+    private final WebSocketService webSocketService;
+    
+    private final Map<String, PolicyState> states = new ConcurrentHashMap<>();
+    
+    /**
+     * Constructor for dependency injection.
+     * 
+     * @param properties The sampling intervals and thresholds
+     * @param activeAlertRegistry The registry of users with an active alert
+     * @param geofenceService The service holding the users' geofence state
+     * @param riskAlertService The service for risk alert lookups
+     * @param webSocketService The service for WebSocket operations
+     */
+    @Autowired
+    public SamplingPolicyServiceImpl(SamplingPolicyProperties properties,
+                                     ActiveAlertRegistry activeAlertRegistry,
+                                     GeofenceService geofenceService,
+                                     RiskAlertService riskAlertService,
+                                     WebSocketService webSocketService) {
+        this.properties = properties;
+        this.activeAlertRegistry = activeAlertRegistry;
+        this.geofenceService = geofenceService;
+        this.riskAlertService = riskAlertService;
+        this.webSocketService = webSocketService;
+    }
+    
+    @Override
+    public SamplingPolicyMessage evaluate(String userId, Location location) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID is required");
+        }
+        if (!properties.isEnabled()) {
+            return decide(userId, null);
+        }
+        
+        PolicyState state = states.computeIfAbsent(userId, id -> new PolicyState());
+        SamplingPolicyMessage policy;
+        boolean changed;
+        synchronized (state) {
+            if (location != null) {
+                state.lastLocation = location;
+            }
+            state.lastSeenAt = System.currentTimeMillis();
+            policy = decide(userId, state.lastLocation);
+            changed = !policy.sameAs(state.policy);
+            if (changed) {
+                state.policy = policy;
+            } else {
+                policy = state.policy;
+            }
+        }
+        if (changed) {
+            sendLatest(userId, state);
+        }
+        return policy;
+    }
+    
+    @Override
+    public Optional<SamplingPolicyMessage> getCurrentPolicy(String userId) {
+        PolicyState state = userId != null ? states.get(userId) : null;
+        return state != null ? Optional.ofNullable(state.policy) : Optional.empty();
+    }
+    
+    /**
+     * Re-evaluates the policy of a user whose active alert state changed, so the devices
+     * speed up as soon as an alert is raised and slow down once it is over.
+     * 
+     * @param event The change of the user's active alert state
+     */
+    @EventListener
+    public void onActiveAlertChanged(ActiveAlertChangedEvent event) {
+        if (properties.isEnabled()) {
+            evaluate(event.userId(), null);
+        }
+    }
+    
+    /**
+     * Sends the current policy to a session that subscribes to the policy queue, since
+     * policies are otherwise only pushed when they change.
+     * 
+     * @param event The subscription of a session
+     */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        Principal user = event.getUser();
+        if (user == null || !POLICY_DESTINATION.equals(StompHeaderAccessor.wrap(event.getMessage()).getDestination())) {
+            return;
+        }
+        getCurrentPolicy(user.getName()).ifPresent(policy -> {
+            try {
+                webSocketService.sendSamplingPolicy(policy);
+            } catch (Exception e) {
+                logger.warn("Failed to send sampling policy to user {}", user.getName(), e);
+            }
+        });
+    }
+    
+    /**
+     * Forgets users who have not reported a location for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "#{@samplingPolicyProperties.idleTimeout.toMillis()}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - properties.getIdleTimeout().toMillis();
+        states.entrySet().removeIf(entry -> entry.getValue().lastSeenAt < cutoff);
+    }
+    
+    /**
+     * Helper method to send the latest decided policy of a user unless it has been sent
+     * already. Only one send per user runs at a time, and each sends the policy that is
+     * current when it starts, so a slower send cannot overwrite a newer policy on the devices.
+     * 
+     * @param userId The ID of the user
+     * @param state The policy state of the user
+     */
+    private void sendLatest(String userId, PolicyState state) {
+        synchronized (state.sendLock) {
+            SamplingPolicyMessage latest;
+            synchronized (state) {
+                latest = state.policy;
+                if (latest == null || latest == state.sent) {
+                    return;
+                }
+            }
+            try {
+                webSocketService.sendSamplingPolicy(latest);
+                synchronized (state) {
+                    state.sent = latest;
+                }
+                logger.debug("Sampling policy of user {} is now {} ({} ms)", userId, latest.getReason(), latest.getIntervalMs());
+            } catch (Exception e) {
+                // Push again on the next evaluation
+                synchronized (state) {
+                    if (state.policy == latest) {
+                        state.policy = null;
+                    }
+                }
+                logger.warn("Failed to send sampling policy to user {}", userId, e);
+            }
+        }
+    }
+    
+    /**
+     * Helper method to decide the policy of a user from the most urgent situation they are in.
+     * 
+     * @param userId The ID of the user
+     * @param location The user's last known location (may be null)
+     * @return The policy
+     */
+    private SamplingPolicyMessage decide(String userId, Location location) {
+        if (activeAlertRegistry.hasActiveAlert(userId)) {
+            return policy(userId, properties.getActiveAlertInterval().toMillis(), true, SamplingPolicyMessage.Reason.ACTIVE_ALERT);
+        }
+        if (location != null && location.getCoordinates() != null
+                && !riskAlertService.findActiveRiskAlertsWithinMargin(location.getCoordinates().getY(),
+                        location.getCoordinates().getX(), properties.getRiskAreaMarginMeters()).isEmpty()) {
+            return policy(userId, properties.getRiskAreaInterval().toMillis(), true, SamplingPolicyMessage.Reason.RISK_AREA);
+        }
+        // A poor fix cannot be trusted to place the user inside a safe haven
+        if (location != null && location.getAccuracy() > properties.getPoorAccuracyMeters()) {
+            return policy(userId, properties.getDefaultInterval().toMillis(), true, SamplingPolicyMessage.Reason.POOR_ACCURACY);
+        }
+        if (geofenceService.isInsideSafeHaven(userId)) {
+            return policy(userId, properties.getSafeHavenInterval().toMillis(), false, SamplingPolicyMessage.Reason.SAFE_HAVEN);
+        }
+        return policy(userId, properties.getDefaultInterval().toMillis(), false, SamplingPolicyMessage.Reason.DEFAULT);
+    }
+    
+    private static SamplingPolicyMessage policy(String userId, long intervalMs, boolean highAccuracy,
+                                                SamplingPolicyMessage.Reason reason) {
+        return new SamplingPolicyMessage(userId, intervalMs, highAccuracy, reason);
+    }
+    
+    /**
+     * The last known location and pushed policy of a single user.
+     */
+    private static class PolicyState {
+        private final Object sendLock = new Object();
+        private Location lastLocation;
+        private SamplingPolicyMessage policy;
+        private SamplingPolicyMessage sent;
+        private long lastSeenAt;
+    }
+}
@@ -4,39 +4,53 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import com.muninalert.backend_munin_alert.cluster.ClusterFanout;
+import com.muninalert.backend_munin_alert.dto.RiskAreaClearedMessage;
+import com.muninalert.backend_munin_alert.dto.SamplingPolicyMessage;
 import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.model.Event;
 import com.muninalert.backend_munin_alert.model.Location;
 import com.muninalert.backend_munin_alert.model.Message;
+import com.muninalert.backend_munin_alert.model.PendingAlert;
+import com.muninalert.backend_munin_alert.service.LocationUpdateCoalescer;
 import com.muninalert.backend_munin_alert.service.WebSocketService;
 
 /**
  * Implementation of the WebSocketService interface for real-time communication.
  * 
  * This service provides methods to send messages, alerts, location updates, and notifications
- * to connected clients using WebSocket protocol. It utilizes Spring's SimpMessagingTemplate
- * to handle the underlying message sending functionality.
+ * to connected clients using WebSocket protocol. Messages are sent through the
+ * {@link ClusterFanout}, which delivers them to the sessions of this node and, when a
+ * cluster bus is configured, of all other nodes.
+ * 
+ * Private messages go to user destinations: a user's sessions subscribe to
+ * {@code /user/queue/...} and only ever receive their own messages.
  */
 @Service
 public class WebSocketServiceImpl implements WebSocketService {
 
     /**
-     * Spring's messaging template for sending WebSocket messages to clients.
-     * This template handles the conversion of Java objects to message payloads
-     * and delivers them to the appropriate WebSocket destinations.
+     * Fan-out sending WebSocket messages to the sessions of all nodes.
      */
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ClusterFanout clusterFanout;
 
     /**
-     * Constructor for dependency injection of the messaging template.
+     * Coalescing stage of the location fan-out.
+     */
+    private final LocationUpdateCoalescer locationUpdateCoalescer;
+
+    /**
+     * Constructor for dependency injection of the cluster fan-out.
      * 
-     * @param messagingTemplate The Spring messaging template for sending WebSocket messages
+     * @param clusterFanout The fan-out sending WebSocket messages to the sessions of all nodes
+     * @param locationUpdateCoalescer The coalescing stage of the location fan-out
      */
     @Autowired
-    public WebSocketServiceImpl(SimpMessagingTemplate messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+    public WebSocketServiceImpl(ClusterFanout clusterFanout, LocationUpdateCoalescer locationUpdateCoalescer) {
+        this.clusterFanout = clusterFanout;
+        this.locationUpdateCoalescer = locationUpdateCoalescer;
     }
 
     /**
@@ -49,11 +63,11 @@ public class WebSocketServiceImpl implements WebSocketService {
     @Override
     public void broadcastAlert(Alert alert) {
         // Send to the global alerts topic
-        messagingTemplate.convertAndSend("/topic/alerts", alert);
+        clusterFanout.send("/topic/alerts", alert);
         
         // Also send to the specific group if applicable
         if (alert.getGroupId() != null && !alert.getGroupId().isEmpty()) {
-            messagingTemplate.convertAndSend("/topic/group/" + alert.getGroupId() + "/alerts", alert);
+            clusterFanout.send("/topic/group/" + alert.getGroupId() + "/alerts", alert);
         }
     }
 
@@ -61,10 +75,11 @@ public class WebSocketServiceImpl implements WebSocketService {
      * {@inheritDoc}
      * Sends a location update for a specific user to all subscribers tracking that user.
      * Location updates are useful for tracking the position of users during emergencies.
+     * Updates go through the coalescing stage, which forwards at most the latest fix per window.
      */
     @Override
     public void sendLocationUpdate(String userId, Location location) {
-        messagingTemplate.convertAndSend("/topic/location/" + userId, location);
+        locationUpdateCoalescer.offer(userId, location);
     }
 
     /**
@@ -74,7 +89,7 @@ public class WebSocketServiceImpl implements WebSocketService {
      */
     @Override
     public void sendAlertResponse(String alertId, Alert.AlertResponse response) {
-        messagingTemplate.convertAndSend("/topic/alerts/" + alertId + "/responses", response);
+        clusterFanout.send("/topic/alerts/" + alertId + "/responses", response);
     }
 
     /**
@@ -85,17 +100,27 @@ public class WebSocketServiceImpl implements WebSocketService {
     @Override
     public void sendAlertStatusUpdate(Alert alert) {
         // Send to all subscribers of the alert
-        messagingTemplate.convertAndSend("/topic/alerts/" + alert.getId(), alert);
+        clusterFanout.send("/topic/alerts/" + alert.getId(), alert);
         
-        // Also send to the user who created the alert (private channel)
-        messagingTemplate.convertAndSend("/queue/user/" + alert.getUserId() + "/alerts/" + alert.getId(), alert);
+        // Also send to the user who created the alert (on /user/queue/alerts/{alertId})
+        clusterFanout.sendToUser(alert.getUserId(), "/queue/alerts/" + alert.getId(), alert);
         
         // Also send to the group if applicable
         if (alert.getGroupId() != null && !alert.getGroupId().isEmpty()) {
-            messagingTemplate.convertAndSend("/topic/group/" + alert.getGroupId() + "/alerts/" + alert.getId(), alert);
+            clusterFanout.send("/topic/group/" + alert.getGroupId() + "/alerts/" + alert.getId(), alert);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * The alert is delivered on the owner's private queue of the alert
+     * (/user/queue/alerts/{alertId}).
+     */
+    @Override
+    public void sendAlertToOwner(Alert alert) {
+        clusterFanout.sendToUser(alert.getUserId(), "/queue/alerts/" + alert.getId(), alert);
+    }
+
     /**
      * {@inheritDoc}
      * Sends a message to all members of a specific group.
@@ -103,22 +128,23 @@ public class WebSocketServiceImpl implements WebSocketService {
      */
     @Override
     public void sendGroupMessage(String groupId, Message message) {
-        messagingTemplate.convertAndSend("/topic/group/" + groupId + "/messages", message);
+        clusterFanout.send("/topic/group/" + groupId + "/messages", message);
     }
 
     /**
      * {@inheritDoc}
-     * Sends a direct message to a specific user through their private message queue.
+     * Sends a direct message to a specific user through their private message queue
+     * (/user/queue/messages).
      * This enables private messaging functionality between users.
      */
     @Override
     public void sendDirectMessage(String userId, Message message) {
-        messagingTemplate.convertAndSend("/queue/user/" + userId + "/messages", message);
+        clusterFanout.sendToUser(userId, "/queue/messages", message);
     }
 
     /**
      * {@inheritDoc}
-     * Sends a system notification to a specific user.
+     * Sends a system notification to a specific user (/user/queue/notifications).
      * The notification includes metadata such as type and timestamp.
      */
     @Override
@@ -128,7 +154,7 @@ public class WebSocketServiceImpl implements WebSocketService {
         notification.put("message", message);
         notification.put("timestamp", System.currentTimeMillis());
         
-        messagingTemplate.convertAndSend("/queue/user/" + userId + "/notifications", notification);
+        clusterFanout.sendToUser(userId, "/queue/notifications", notification);
     }
 
     /**
@@ -143,7 +169,7 @@ public class WebSocketServiceImpl implements WebSocketService {
         notification.put("message", message);
         notification.put("timestamp", System.currentTimeMillis());
         
-        messagingTemplate.convertAndSend("/topic/group/" + groupId + "/notifications", notification);
+        clusterFanout.send("/topic/group/" + groupId + "/notifications", notification);
     }
 
     /**
@@ -153,6 +179,45 @@ public class WebSocketServiceImpl implements WebSocketService {
      */
     @Override
     public void sendToDestination(String destination, Object payload) {
-        messagingTemplate.convertAndSend(destination, payload);
+        clusterFanout.send(destination, payload);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Geofence transitions are delivered on the user's private geofence queue
+     * (/user/queue/geofence).
+     */
+    @Override
+    public void sendGeofenceTransition(Event transition) {
+        clusterFanout.sendToUser(transition.getUserId(), "/queue/geofence", transition);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Cleared risk areas are broadcast on the global risk alert topic.
+     */
+    @Override
+    public void sendRiskAreaCleared(RiskAreaClearedMessage message) {
+        clusterFanout.send("/topic/risk-alerts", message);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Countdown updates are delivered on the user's private pending alert queue
+     * (/user/queue/pending-alerts).
+     */
+    @Override
+    public void sendPendingAlertUpdate(PendingAlert pendingAlert) {
+        clusterFanout.sendToUser(pendingAlert.getUserId(), "/queue/pending-alerts", pendingAlert);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Sampling policies are delivered on the user's private sampling policy queue
+     * (/user/queue/sampling-policy).
+     */
+    @Override
+    public void sendSamplingPolicy(SamplingPolicyMessage policy) {
+        clusterFanout.sendToUser(policy.getUserId(), "/queue/sampling-policy", policy);
     }
 }
@@ -0,0 +1,140 @@
+package com.muninalert.backend_munin_alert.cluster;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muninalert.backend_munin_alert.config.ClusterBusProperties;
+
+/**
+ * Runs three nodes in one JVM, connected by an {@link InJvmClusterBus}.
+ */
+class ClusterFanoutTests {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final List<InJvmClusterBus> buses = new ArrayList<>();
+	private String channel;
+	private SimpMessagingTemplate templateA;
+	private SimpMessagingTemplate templateB;
+	private SimpMessagingTemplate templateC;
+	private ClusterFanout nodeA;
+	private ClusterFanout nodeB;
+	private ClusterFanout nodeC;
+
+	@BeforeEach
+	void startNodes() {
+		channel = UUID.randomUUID().toString();
+		templateA = mock(SimpMessagingTemplate.class);
+		templateB = mock(SimpMessagingTemplate.class);
+		templateC = mock(SimpMessagingTemplate.class);
+		nodeA = node("a", templateA);
+		nodeB = node("b", templateB);
+		nodeC = node("c", templateC);
+	}
+
+	@AfterEach
+	void stopNodes() {
+		buses.forEach(InJvmClusterBus::close);
+	}
+
+	@Test
+	void eachNodeDeliversToItsOwnSessionsOnce() {
+		nodeA.send("/topic/alerts", "hello");
+
+		verify(templateA, times(1)).convertAndSend("/topic/alerts", (Object) "hello");
+		verify(templateB, times(1)).convertAndSend(eq("/topic/alerts"), eq((Object) json("hello")));
+		verify(templateC, times(1)).convertAndSend(eq("/topic/alerts"), eq((Object) json("hello")));
+	}
+
+	@Test
+	void userMessagesAreResolvedAgainstTheSessionsOfEachNode() {
+		nodeA.sendToUser("u1", "/queue/notifications", "hello");
+
+		verify(templateA, times(1)).convertAndSendToUser("u1", "/queue/notifications", (Object) "hello");
+		verify(templateB, times(1)).convertAndSendToUser(eq("u1"), eq("/queue/notifications"), eq((Object) json("hello")));
+		verify(templateC, times(1)).convertAndSendToUser(eq("u1"), eq("/queue/notifications"), eq((Object) json("hello")));
+		verify(templateB, never()).convertAndSend(anyString(), any(Object.class));
+	}
+
+	@Test
+	void redeliveredMessagesAreDroppedById() {
+		ClusterMessage message = message("m1", "/topic/alerts", 1, 1, "first");
+		nodeB.receive(message);
+		nodeB.receive(message);
+
+		verify(templateB, times(1)).convertAndSend(anyString(), any(Object.class));
+	}
+
+	@Test
+	void messagesOfADestinationAreDeliveredInSequenceOrder() {
+		nodeB.receive(message("m1", "/topic/location/u1", 1, 1, "one"));
+		nodeB.receive(message("m3", "/topic/location/u1", 1, 3, "three"));
+		// Another destination is not held back by the gap
+		nodeB.receive(message("x1", "/topic/alerts", 1, 1, "other"));
+		verify(templateB, never()).convertAndSend(eq("/topic/location/u1"), eq((Object) json("three")));
+
+		nodeB.receive(message("m2", "/topic/location/u1", 1, 2, "two"));
+
+		InOrder order = inOrder(templateB);
+		order.verify(templateB).convertAndSend(eq("/topic/location/u1"), eq((Object) json("one")));
+		order.verify(templateB).convertAndSend(eq("/topic/location/u1"), eq((Object) json("two")));
+		order.verify(templateB).convertAndSend(eq("/topic/location/u1"), eq((Object) json("three")));
+		verify(templateB).convertAndSend(eq("/topic/alerts"), eq((Object) json("other")));
+	}
+
+	@Test
+	void missingMessagesAreGivenUpAfterTheGapTimeout() {
+		nodeB.receive(message("m1", "/topic/alerts", 1, 1, "one"));
+		nodeB.receive(message("m3", "/topic/alerts", 1, 3, "three"));
+		verify(templateB, times(1)).convertAndSend(anyString(), any(Object.class));
+
+		nodeB.maintain(System.currentTimeMillis() + 60_000);
+
+		verify(templateB).convertAndSend(eq("/topic/alerts"), eq((Object) json("three")));
+		// A late arrival of the skipped message is not delivered out of order
+		nodeB.receive(message("m2", "/topic/alerts", 1, 2, "two"));
+		verify(templateB, never()).convertAndSend(eq("/topic/alerts"), eq((Object) json("two")));
+	}
+
+	@Test
+	void aRestartedStreamIsNotMistakenForDuplicates() {
+		nodeB.receive(message("m1", "/topic/alerts", 1, 1, "old"));
+		nodeB.receive(message("m2", "/topic/alerts", 2, 1, "new"));
+
+		verify(templateB).convertAndSend(eq("/topic/alerts"), eq((Object) json("new")));
+	}
+
+	private ClusterFanout node(String nodeId, SimpMessagingTemplate template) {
+		ClusterBusProperties properties = new ClusterBusProperties();
+		properties.setNodeId(nodeId);
+		InJvmClusterBus bus = new InJvmClusterBus(channel);
+		buses.add(bus);
+		return new ClusterFanout(template, bus, MAPPER, properties);
+	}
+
+	private static ClusterMessage message(String id, String destination, long epoch, long sequence, String payload) {
+		return new ClusterMessage(id, "a", destination, null, epoch, sequence, json(payload), System.currentTimeMillis());
+	}
+
+	private static JsonNode json(String value) {
+		return MAPPER.valueToTree(value);
+	}
+}
@@ -0,0 +1,272 @@
+package com.muninalert.backend_munin_alert.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketMessagingAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.muninalert.backend_munin_alert.cluster.ClusterFanout;
+import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.model.User;
+import com.muninalert.backend_munin_alert.security.JwtTokenCache;
+import com.muninalert.backend_munin_alert.security.StompAuthenticationInterceptor;
+import com.muninalert.backend_munin_alert.security.WebSocketSecurityConfig;
+import com.muninalert.backend_munin_alert.service.LocationUpdateCoalescer;
+import com.muninalert.backend_munin_alert.service.UserService;
+import com.muninalert.backend_munin_alert.service.WebSocketService;
+import com.muninalert.backend_munin_alert.service.impl.WebSocketServiceImpl;
+
+/**
+ * Runs two nodes in relay mode against an embedded ActiveMQ Artemis broker and checks
+ * that a message sent on one node reaches a subscriber connected to the other, and that
+ * a private message reaches only the sessions of the user it is for, also when a client
+ * tries to listen in on the channels the nodes share their users on.
+ */
+class BrokerRelayIntegrationTests {
+
+	private static EmbeddedActiveMQ broker;
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+
+	@BeforeAll
+	static void startBrokerAndNodes() throws Exception {
+		int stompPort = freePort();
+		Configuration configuration = new ConfigurationImpl()
+				.setPersistenceEnabled(false)
+				.setSecurityEnabled(false)
+				.addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + stompPort
+						+ "?protocols=STOMP;multicastPrefix=/topic/");
+		broker = new EmbeddedActiveMQ().setConfiguration(configuration);
+		broker.start();
+
+		nodeA = startNode(stompPort);
+		nodeB = startNode(stompPort);
+	}
+
+	@AfterAll
+	static void stopBrokerAndNodes() throws Exception {
+		if (nodeA != null) {
+			nodeA.close();
+		}
+		if (nodeB != null) {
+			nodeB.close();
+		}
+		if (broker != null) {
+			broker.stop();
+		}
+	}
+
+	@Test
+	void alertBroadcastOnOneNodeReachesSubscribersOfTheOther() throws Exception {
+		BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+		StompSession session = connect(nodeB, "token-alice");
+		session.subscribe("/topic/alerts", collectInto(received, Alert.class));
+
+		Alert alert = new Alert();
+		alert.setId("relayed-alert");
+		alert.setUserId("u1");
+		alert.setMessage("Fall detected. User may need assistance.");
+		WebSocketService nodeAService = nodeA.getBean(WebSocketService.class);
+
+		// The subscription reaches the broker asynchronously; send until it is in place
+		Alert delivered = null;
+		for (int attempt = 0; attempt < 50 && delivered == null; attempt++) {
+			nodeAService.broadcastAlert(alert);
+			delivered = (Alert) received.poll(200, TimeUnit.MILLISECONDS);
+		}
+		session.disconnect();
+
+		assertNotNull(delivered, "Alert broadcast on node A was not delivered on node B");
+		assertEquals("relayed-alert", delivered.getId());
+	}
+
+	@Test
+	void userNotificationOnOneNodeReachesOnlyThatUsersSessionOnTheOther() throws Exception {
+		BlockingQueue<Object> alice = new LinkedBlockingQueue<>();
+		BlockingQueue<Object> bob = new LinkedBlockingQueue<>();
+		StompSession aliceSession = connect(nodeB, "token-alice");
+		StompSession bobSession = connect(nodeB, "token-bob");
+		aliceSession.subscribe("/user/queue/notifications", collectInto(alice, Map.class));
+		bobSession.subscribe("/user/queue/notifications", collectInto(bob, Map.class));
+		WebSocketService nodeAService = nodeA.getBean(WebSocketService.class);
+
+		// The subscription reaches the broker asynchronously; send until it is in place
+		Object delivered = null;
+		for (int attempt = 0; attempt < 50 && delivered == null; attempt++) {
+			nodeAService.sendSystemNotification("u-alice", "Your countdown was cancelled");
+			delivered = alice.poll(200, TimeUnit.MILLISECONDS);
+		}
+		Object leaked = bob.poll(500, TimeUnit.MILLISECONDS);
+		aliceSession.disconnect();
+		bobSession.disconnect();
+
+		assertNotNull(delivered, "Notification sent on node A was not delivered to the user on node B");
+		assertEquals("Your countdown was cancelled", ((Map<?, ?>) delivered).get("message"));
+		assertNull(leaked, "Notification for one user was delivered to another");
+	}
+
+	@Test
+	void clientCannotSubscribeToTheUserRegistryChannels() throws Exception {
+		for (String destination : List.of(WebSocketSecurityConfig.USER_REGISTRY_BROADCAST,
+				WebSocketSecurityConfig.USER_DESTINATION_BROADCAST)) {
+			BlockingQueue<Object> rejections = new LinkedBlockingQueue<>();
+			StompSession session = connect(nodeB, "token-bob", rejections);
+			session.subscribe(destination, collectInto(new LinkedBlockingQueue<>(), Object.class));
+
+			assertNotNull(rejections.poll(5, TimeUnit.SECONDS), "Subscription to " + destination + " was not rejected");
+		}
+	}
+
+	@Test
+	void clientCannotSendToTopics() throws Exception {
+		BlockingQueue<Object> rejections = new LinkedBlockingQueue<>();
+		StompSession session = connect(nodeB, "token-bob", rejections);
+		session.send(WebSocketSecurityConfig.USER_REGISTRY_BROADCAST, Map.of("alice", "forged"));
+
+		assertNotNull(rejections.poll(5, TimeUnit.SECONDS), "Send to the user registry topic was not rejected");
+	}
+
+	private static ConfigurableApplicationContext startNode(int stompPort) {
+		return new SpringApplicationBuilder(RelayNode.class).run(
+				"--server.port=0",
+				"--spring.main.banner-mode=off",
+				"--munin.websocket.broker.mode=relay",
+				"--munin.websocket.broker.relay.host=127.0.0.1",
+				"--munin.websocket.broker.relay.port=" + stompPort);
+	}
+
+	private static StompSession connect(ConfigurableApplicationContext node, String token) throws Exception {
+		return connect(node, token, new LinkedBlockingQueue<>());
+	}
+
+	private static StompSession connect(ConfigurableApplicationContext node, String token,
+			BlockingQueue<Object> rejections) throws Exception {
+		int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+		WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+		client.setMessageConverter(new MappingJackson2MessageConverter());
+		StompHeaders connectHeaders = new StompHeaders();
+		connectHeaders.add("Authorization", "Bearer " + token);
+		return client.connectAsync("ws://localhost:" + port + "/ws/websocket", new WebSocketHttpHeaders(),
+				connectHeaders, new StompSessionHandlerAdapter() {
+					@Override
+					public Type getPayloadType(StompHeaders headers) {
+						return byte[].class;
+					}
+
+					@Override
+					public void handleFrame(StompHeaders headers, Object payload) {
+						// Only ERROR frames reach the session handler
+						rejections.add(headers);
+					}
+
+					@Override
+					public void handleTransportError(StompSession session, Throwable exception) {
+						// The server closes the session after an ERROR frame, which may arrive first
+						rejections.add(exception);
+					}
+				}).get(10, TimeUnit.SECONDS);
+	}
+
+	private static StompFrameHandler collectInto(BlockingQueue<Object> received, Type payloadType) {
+		return new StompFrameHandler() {
+			@Override
+			public Type getPayloadType(StompHeaders headers) {
+				return payloadType;
+			}
+
+			@Override
+			public void handleFrame(StompHeaders headers, Object payload) {
+				received.add(payload);
+			}
+		};
+	}
+
+	private static int freePort() throws Exception {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	/**
+	 * A node with only the WebSocket stack of the application.
+	 */
+	@SpringBootConfiguration
+	@ImportAutoConfiguration({
+			ServletWebServerFactoryAutoConfiguration.class,
+			DispatcherServletAutoConfiguration.class,
+			WebMvcAutoConfiguration.class,
+			JacksonAutoConfiguration.class,
+			WebSocketServletAutoConfiguration.class,
+			WebSocketMessagingAutoConfiguration.class })
+	@Import({ WebSocketConfig.class, WebSocketBrokerProperties.class, WebSocketServiceImpl.class,
+			ClusterFanout.class, ClusterBusProperties.class, StompAuthenticationInterceptor.class,
+			WebSocketSecurityConfig.class })
+	static class RelayNode {
+
+		@Bean
+		LocationUpdateCoalescer locationUpdateCoalescer() {
+			return mock(LocationUpdateCoalescer.class);
+		}
+
+		@Bean
+		JwtTokenCache jwtTokenCache() {
+			JwtTokenCache jwtTokenCache = mock(JwtTokenCache.class);
+			when(jwtTokenCache.resolveUsername(anyString())).thenReturn(Optional.empty());
+			when(jwtTokenCache.resolveUsername("token-alice")).thenReturn(Optional.of("alice"));
+			when(jwtTokenCache.resolveUsername("token-bob")).thenReturn(Optional.of("bob"));
+			return jwtTokenCache;
+		}
+
+		@Bean
+		UserService userService() {
+			UserService userService = mock(UserService.class);
+			when(userService.findByUsername(anyString())).thenAnswer(invocation -> {
+				User user = new User();
+				user.setId("u-" + invocation.getArgument(0));
+				user.setUsername(invocation.getArgument(0));
+				user.setRoles(List.of("ROLE_USER"));
+				return Optional.of(user);
+			});
+			return userService;
+		}
+	}
+}
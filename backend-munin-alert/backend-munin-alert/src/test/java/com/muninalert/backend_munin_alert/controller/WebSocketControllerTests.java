@@ -0,0 +1,86 @@
+package com.muninalert.backend_munin_alert.controller;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.model.Location;
+import com.muninalert.backend_munin_alert.service.AlertService;
+import com.muninalert.backend_munin_alert.service.GeofenceService;
+import com.muninalert.backend_munin_alert.service.LocationHistoryService;
+import com.muninalert.backend_munin_alert.service.LocationUpdateCoalescer;
+import com.muninalert.backend_munin_alert.service.PendingAlertScheduler;
+import com.muninalert.backend_munin_alert.service.SamplingPolicyService;
+import com.muninalert.backend_munin_alert.service.WebSocketService;
+
+class WebSocketControllerTests {
+
+	private GeofenceService geofenceService;
+	private LocationHistoryService locationHistoryService;
+	private LocationUpdateCoalescer locationUpdateCoalescer;
+	private SamplingPolicyService samplingPolicyService;
+	private WebSocketService webSocketService;
+	private AlertService alertService;
+	private WebSocketController controller;
+
+	@BeforeEach
+	void setUp() {
+		geofenceService = mock(GeofenceService.class);
+		locationHistoryService = mock(LocationHistoryService.class);
+		locationUpdateCoalescer = mock(LocationUpdateCoalescer.class);
+		samplingPolicyService = mock(SamplingPolicyService.class);
+		webSocketService = mock(WebSocketService.class);
+		alertService = mock(AlertService.class);
+		controller = new WebSocketController(webSocketService, alertService,
+				geofenceService, locationHistoryService, mock(PendingAlertScheduler.class),
+				locationUpdateCoalescer, samplingPolicyService);
+	}
+
+	@Test
+	void locationOfTheSessionsOwnUserIsProcessed() {
+		Location location = new Location();
+		controller.updateLocation("u1", location, principal("u1"));
+
+		verify(locationUpdateCoalescer).offer("u1", location);
+		verify(geofenceService).evaluateLocation("u1", location);
+		verify(samplingPolicyService).evaluate("u1", location);
+		verify(locationHistoryService).record("u1", location);
+	}
+
+	@Test
+	void locationSentForAnotherUserIsRejected() {
+		Location location = new Location();
+		assertThrows(AccessDeniedException.class, () -> controller.updateLocation("u1", location, principal("u2")));
+
+		verifyNoInteractions(locationUpdateCoalescer, geofenceService, samplingPolicyService, locationHistoryService);
+	}
+
+	@Test
+	void alertResponseIsSentThroughTheWebSocketService() {
+		Alert alert = new Alert();
+		alert.setId("a1");
+		alert.setUserId("u1");
+		Alert.AlertResponse response = new Alert.AlertResponse();
+		when(alertService.addResponse("a1", response)).thenReturn(Optional.of(alert));
+
+		controller.respondToAlert("a1", response, principal("u2"));
+
+		verify(webSocketService).sendAlertResponse("a1", response);
+		verify(webSocketService).sendAlertToOwner(alert);
+	}
+
+	private static Principal principal(String userId) {
+		return new UsernamePasswordAuthenticationToken(userId, null);
+	}
+}
@@ -0,0 +1,53 @@
+package com.muninalert.backend_munin_alert.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class GeoGridIndexTests {
+
+	@Test
+	void findsOnlyAreasContainingThePoint() {
+		GeoGridIndex<String> index = new GeoGridIndex<>(0.01);
+		index.put("home", "home", 59.9139, 10.7522, 200);
+		index.put("office", "office", 59.9200, 10.7600, 100);
+
+		assertEquals(List.of("home"), index.findContaining(59.9140, 10.7525, v -> true));
+		assertTrue(index.findContaining(59.9300, 10.7900, v -> true).isEmpty());
+	}
+
+	@Test
+	void areasSpanningSeveralCellsAreFoundFromEachCell() {
+		GeoGridIndex<String> index = new GeoGridIndex<>(0.001);
+		index.put("park", "park", 59.9139, 10.7522, 500);
+
+		assertEquals(List.of("park"), index.findContaining(59.9170, 10.7522, v -> true));
+		assertEquals(List.of("park"), index.findContaining(59.9139, 10.7570, v -> true));
+	}
+
+	@Test
+	void removeAndReplaceKeepIndexInSync() {
+		GeoGridIndex<String> index = new GeoGridIndex<>(0.01);
+		index.put("a", "a", 59.9139, 10.7522, 200);
+		index.put("a", "a", 60.3913, 5.3221, 200);
+
+		assertTrue(index.findContaining(59.9139, 10.7522, v -> true).isEmpty());
+		assertEquals(List.of("a"), index.findContaining(60.3913, 5.3221, v -> true));
+
+		index.remove("a");
+		assertTrue(index.findContaining(60.3913, 5.3221, v -> true).isEmpty());
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void oversizedAreasAndFiltersAreHonoured() {
+		GeoGridIndex<String> index = new GeoGridIndex<>(0.001);
+		index.put("region", "region", 59.9139, 10.7522, 50000);
+
+		assertEquals(List.of("region"), index.findContaining(60.1, 10.7522, v -> true));
+		assertTrue(index.findContaining(60.1, 10.7522, v -> !v.equals("region")).isEmpty());
+	}
+}
@@ -0,0 +1,75 @@
+package com.muninalert.backend_munin_alert.geo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import com.muninalert.backend_munin_alert.model.SafeHaven;
+import com.muninalert.backend_munin_alert.repository.SafeHavenRepository;
+
+class SafeHavenSpatialIndexTests {
+
+	private final SafeHavenRepository repository = mock(SafeHavenRepository.class);
+	private final SafeHavenSpatialIndex index = new SafeHavenSpatialIndex(repository, 0.01);
+
+	@Test
+	void safeHavenDeletedWhileAReloadReadsItsSnapshotStaysDeleted() {
+		when(repository.findAll()).thenAnswer(invocation -> {
+			// The snapshot still has the safe haven; the delete lands while it is being read
+			index.remove("h1");
+			return List.of(safeHaven("h1", "Home"));
+		});
+
+		index.load();
+
+		assertTrue(index.findContaining(59.91, 10.75, safeHaven -> true).isEmpty());
+	}
+
+	@Test
+	void reloadPicksUpSafeHavensWrittenElsewhere() {
+		when(repository.findAll()).thenReturn(List.of()).thenReturn(List.of(safeHaven("h1", "Home")));
+
+		index.load();
+		assertTrue(index.findContaining(59.91, 10.75, safeHaven -> true).isEmpty());
+		index.load();
+
+		assertEquals(1, index.findContaining(59.91, 10.75, safeHaven -> true).size());
+	}
+
+	@Test
+	void failedFirstLoadIsRetried() {
+		when(repository.findAll()).thenThrow(new IllegalStateException("down"))
+				.thenReturn(List.of(safeHaven("h1", "Home")));
+
+		index.load();
+		assertFalse(index.isReady());
+		index.retryLoad();
+
+		assertTrue(index.isReady());
+	}
+
+	@Test
+	void queriesReturnCopies() {
+		index.put(safeHaven("h1", "Home"));
+
+		index.findContaining(59.91, 10.75, safeHaven -> true).get(0).setName("Changed");
+
+		assertEquals("Home", index.findContaining(59.91, 10.75, safeHaven -> true).get(0).getName());
+	}
+
+	private static SafeHaven safeHaven(String id, String name) {
+		SafeHaven safeHaven = new SafeHaven();
+		safeHaven.setId(id);
+		safeHaven.setName(name);
+		safeHaven.setLocation(new GeoJsonPoint(10.75, 59.91));
+		safeHaven.setRadiusMeters(200);
+		return safeHaven;
+	}
+}
@@ -0,0 +1,250 @@
+package com.muninalert.backend_munin_alert.repository;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.muninalert.backend_munin_alert.config.MongoIndexConfig;
+import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.model.AlertResponseRecord;
+import com.muninalert.backend_munin_alert.model.Event;
+import com.muninalert.backend_munin_alert.model.Group;
+import com.muninalert.backend_munin_alert.model.Message;
+import com.muninalert.backend_munin_alert.model.PendingAlert;
+import com.muninalert.backend_munin_alert.model.RiskAlert;
+import com.muninalert.backend_munin_alert.model.SafeHaven;
+import com.muninalert.backend_munin_alert.model.User;
+
+/**
+ * Runs every repository query against a real MongoDB with the indexes created by
+ * {@link MongoIndexConfig}, and fails if the plan of any issued command contains a
+ * collection scan.
+ *
+ * This is an integration test: it is not part of {@code mvn test} and runs with
+ * {@code mvn -Pintegration verify}. It connects to {@code mongodb://localhost:27017}
+ * (override with {@code -Dmunin.test.mongodb.uri=...}), works in a throw-away database
+ * and fails when no MongoDB server is reachable.
+ */
+class QueryPlanIT {
+
+	private static final Set<String> EXPLAINED_COMMANDS = Set.of("find", "aggregate", "count", "delete");
+
+	private static final Point POINT = new Point(10.7522, 59.9139);
+	private static final Distance DISTANCE = new Distance(1, Metrics.KILOMETERS);
+
+	private static final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+	private static MongoClient client;
+	private static String databaseName;
+	private static MongoTemplate template;
+	private static MongoRepositoryFactory factory;
+
+	@BeforeAll
+	static void connect() {
+		String uri = System.getProperty("munin.test.mongodb.uri", "mongodb://localhost:27017");
+		databaseName = "munin_query_plans_" + System.currentTimeMillis();
+
+		CommandListener listener = new CommandListener() {
+			@Override
+			public void commandStarted(CommandStartedEvent event) {
+				if (databaseName.equals(event.getDatabaseName()) && EXPLAINED_COMMANDS.contains(event.getCommandName())) {
+					commands.add(event.getCommand().clone());
+				}
+			}
+		};
+		client = MongoClients.create(MongoClientSettings.builder()
+				.applyConnectionString(new ConnectionString(uri))
+				.applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+				.addCommandListener(listener)
+				.build());
+
+		assertDoesNotThrow(() -> client.getDatabase("admin").runCommand(new Document("ping", 1)),
+				"No MongoDB server at " + uri);
+
+		MongoMappingContext mappingContext = new MongoMappingContext();
+		mappingContext.setInitialEntitySet(Set.of(Alert.class, AlertResponseRecord.class, Event.class, Group.class,
+				Message.class, RiskAlert.class, SafeHaven.class, User.class));
+		mappingContext.setAutoIndexCreation(false);
+		mappingContext.afterPropertiesSet();
+		MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+		converter.afterPropertiesSet();
+
+		template = new MongoTemplate(new SimpleMongoClientDatabaseFactory(client, databaseName), converter);
+		assertTrue(MongoIndexConfig.ensureIndexes(template).isEmpty(), "All declared indexes should be created");
+		factory = new MongoRepositoryFactory(template);
+	}
+
+	@AfterAll
+	static void dropDatabase() {
+		if (template != null) {
+			client.getDatabase(databaseName).drop();
+		}
+		if (client != null) {
+			client.close();
+		}
+	}
+
+	@TestFactory
+	Stream<DynamicTest> repositoryQueriesUseIndexes() {
+		EventRepository events = factory.getRepository(EventRepository.class);
+		AlertRepository alerts = factory.getRepository(AlertRepository.class);
+		AlertResponseRecordRepository alertResponses = factory.getRepository(AlertResponseRecordRepository.class);
+		GroupRepository groups = factory.getRepository(GroupRepository.class);
+		MessageRepository messages = factory.getRepository(MessageRepository.class);
+		RiskAlertRepository riskAlerts = factory.getRepository(RiskAlertRepository.class);
+		SafeHavenRepository safeHavens = factory.getRepository(SafeHavenRepository.class);
+		UserRepository users = factory.getRepository(UserRepository.class);
+		KeysetPager pager = new KeysetPager(template);
+		String cursor = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("1700000000000:65f0a0a0a0a0a0a0a0a0a0a0".getBytes(StandardCharsets.UTF_8));
+
+		return Stream.of(
+				plan("Event.findByUserId", () -> events.findByUserId("u1")),
+				plan("Event.findByEventType", () -> events.findByEventType(Event.EventType.MANUAL_ALERT)),
+				plan("Event.findByUserIdAndEventType", () -> events.findByUserIdAndEventType("u1", Event.EventType.MANUAL_ALERT)),
+				plan("Event.findByDeviceId", () -> events.findByDeviceId("d1")),
+				plan("Event.findByTimestampGreaterThan", () -> events.findByTimestampGreaterThan(0)),
+				plan("Event.findByUserIdAndTimestampGreaterThan", () -> events.findByUserIdAndTimestampGreaterThan("u1", 0)),
+				plan("Event.deleteByTimestampLessThan", () -> events.deleteByTimestampLessThan(0)),
+				plan("Event.findByConfidenceGreaterThanEqual", () -> events.findByConfidenceGreaterThanEqual(0.5)),
+				plan("Event.findByUserIdOrderByTimestampDescIdDesc", () -> events.findByUserIdOrderByTimestampDescIdDesc("u1", Limit.of(20))),
+				plan("Event keyset page", () -> pager.page(Event.class, null, "timestamp", Event::getTimestamp, Event::getId, cursor, 20)),
+				plan("Event keyset page by user", () -> pager.page(Event.class, Criteria.where("userId").is("u1"), "timestamp",
+						Event::getTimestamp, Event::getId, cursor, 20)),
+				plan("Event keyset page by user and type", () -> pager.page(Event.class,
+						Criteria.where("userId").is("u1").and("eventType").is(Event.EventType.FALL_DETECTED), "timestamp",
+						Event::getTimestamp, Event::getId, cursor, 20)),
+
+				plan("Alert.findByUserId", () -> alerts.findByUserId("u1")),
+				plan("Alert.findByGroupId", () -> alerts.findByGroupId("g1")),
+				plan("Alert.findByUserIdAndStatus", () -> alerts.findByUserIdAndStatus("u1", Alert.AlertStatus.ACTIVE)),
+				plan("Alert.findByGroupIdAndStatus", () -> alerts.findByGroupIdAndStatus("g1", Alert.AlertStatus.ACTIVE)),
+				plan("Alert.findByLocationNear", () -> alerts.findByLocationNear(POINT, DISTANCE)),
+				plan("Alert active by createdAt", () -> template.find(Query.query(Criteria.where("status").is(Alert.AlertStatus.ACTIVE))
+						.with(Sort.by("createdAt")), Alert.class)),
+				plan("AlertResponseRecord.findByAlertIdOrderByResponseTimestampAsc",
+						() -> alertResponses.findByAlertIdOrderByResponseTimestampAsc("a1")),
+				plan("AlertResponseRecord.deleteByAlertId", () -> alertResponses.deleteByAlertId("a1")),
+				plan("PendingAlert by fireAt", () -> template.find(new Query().with(Sort.by("fireAt")), PendingAlert.class)),
+
+				plan("Group.findByOwnerId", () -> groups.findByOwnerId("u1")),
+				plan("Group.findByMemberIdsContaining", () -> groups.findByMemberIdsContaining("u1")),
+				plan("Group.findByAdminIdsContaining", () -> groups.findByAdminIdsContaining("u1")),
+				plan("Group.findIdsByMemberId", () -> groups.findIdsByMemberId("u1")),
+
+				plan("Message.findBySenderId", () -> messages.findBySenderId("u1")),
+				plan("Message.findByGroupId", () -> messages.findByGroupId("g1")),
+				plan("Message.findByRecipientId", () -> messages.findByRecipientId("u1")),
+				plan("Message.findUnreadByRecipientId", () -> messages.findUnreadByRecipientId("u1")),
+				plan("Message.findByMessageType", () -> messages.findByMessageType(Message.MessageType.TEXT)),
+				plan("Message.findByCreatedAtGreaterThan", () -> messages.findByCreatedAtGreaterThan(0)),
+				plan("Message.findByGroupIdAndCreatedAtGreaterThan", () -> messages.findByGroupIdAndCreatedAtGreaterThan("g1", 0)),
+				plan("Message.findMessagesBetweenUsers", () -> messages.findMessagesBetweenUsers("u1", "u2")),
+				plan("Message.findMostRecentGroupMessages", () -> messages.findMostRecentGroupMessages("g1", 20)),
+
+				plan("RiskAlert.findByRiskType", () -> riskAlerts.findByRiskType(RiskAlert.RiskType.values()[0])),
+				plan("RiskAlert.findByRiskLevel", () -> riskAlerts.findByRiskLevel(RiskAlert.RiskLevel.HIGH)),
+				plan("RiskAlert.findBySource", () -> riskAlerts.findBySource("police")),
+				plan("RiskAlert.findByLocationNear", () -> riskAlerts.findByLocationNear(POINT, DISTANCE)),
+				plan("RiskAlert.findByRiskTypeAndLocationNear", () -> riskAlerts.findByRiskTypeAndLocationNear(RiskAlert.RiskType.values()[0], POINT, DISTANCE)),
+				plan("RiskAlert.findByExpiresAtGreaterThan", () -> riskAlerts.findByExpiresAtGreaterThan(0)),
+				plan("RiskAlert.findByExpiresAtLessThanEqualOrderByExpiresAtAsc", () -> riskAlerts.findByExpiresAtLessThanEqualOrderByExpiresAtAsc(0, PageRequest.of(0, 100))),
+				plan("RiskAlert.findActiveRiskAlertsNear", () -> riskAlerts.findActiveRiskAlertsNear(0, POINT, 1000)),
+				plan("RiskAlert.findByMinimumRiskLevel", () -> riskAlerts.findByMinimumRiskLevel(RiskAlert.RiskLevel.HIGH)),
+				plan("RiskAlert.findActiveRiskAlertsByLevelNear", () -> riskAlerts.findActiveRiskAlertsByLevelNear(0, RiskAlert.RiskLevel.HIGH, POINT, 1000)),
+
+				plan("SafeHaven.findByUserId", () -> safeHavens.findByUserId("u1")),
+				plan("SafeHaven.findByGroupId", () -> safeHavens.findByGroupId("g1")),
+				plan("SafeHaven.findByIsPublicTrue", () -> safeHavens.findByIsPublicTrue()),
+				plan("SafeHaven.findByLocationNear", () -> safeHavens.findByLocationNear(POINT, DISTANCE)),
+				plan("SafeHaven.findByIsPublicTrueAndLocationNear", () -> safeHavens.findByIsPublicTrueAndLocationNear(POINT, DISTANCE)),
+				plan("SafeHaven.findByUserIdAndLocationNear", () -> safeHavens.findByUserIdAndLocationNear("u1", POINT, DISTANCE)),
+				plan("SafeHaven.findByGroupIdAndLocationNear", () -> safeHavens.findByGroupIdAndLocationNear("g1", POINT, DISTANCE)),
+				plan("SafeHaven.findAccessibleSafeHavens", () -> safeHavens.findAccessibleSafeHavens("u1", List.of("g1", "g2"))),
+
+				plan("User.findByUsername", () -> users.findByUsername("alice")),
+				plan("User.findByEmail", () -> users.findByEmail("alice@example.com")));
+	}
+
+	private static DynamicTest plan(String name, Runnable query) {
+		return DynamicTest.dynamicTest(name, () -> {
+			commands.clear();
+			query.run();
+			List<BsonDocument> issued = new ArrayList<>(commands);
+			assertFalse(issued.isEmpty(), name + " did not issue a query");
+
+			for (BsonDocument command : issued) {
+				Document explained = client.getDatabase(databaseName).runCommand(
+						new BsonDocument("explain", stripSessionFields(command))
+								.append("verbosity", new BsonString("queryPlanner")));
+				BsonDocument plan = explained.toBsonDocument();
+				assertFalse(containsCollectionScan(plan), name + " scans the whole collection: " + command.toJson());
+			}
+		});
+	}
+
+	private static BsonDocument stripSessionFields(BsonDocument command) {
+		BsonDocument stripped = new BsonDocument();
+		command.forEach((key, value) -> {
+			if (!key.startsWith("$") && !key.equals("lsid") && !key.equals("txnNumber")) {
+				stripped.append(key, value);
+			}
+		});
+		return stripped;
+	}
+
+	private static boolean containsCollectionScan(BsonValue value) {
+		if (value.isDocument()) {
+			BsonDocument document = value.asDocument();
+			if (document.containsKey("stage") && "COLLSCAN".equals(document.getString("stage").getValue())) {
+				return true;
+			}
+			// Rejected plans may scan; only the chosen plan matters
+			return document.entrySet().stream()
+					.filter(entry -> !entry.getKey().equals("rejectedPlans"))
+					.anyMatch(entry -> containsCollectionScan(entry.getValue()));
+		}
+		if (value.isArray()) {
+			return value.asArray().stream().anyMatch(QueryPlanIT::containsCollectionScan);
+		}
+		return false;
+	}
+}
@@ -0,0 +1,78 @@
+package com.muninalert.backend_munin_alert.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+	private static final long START = 1_700_000_000_000L;
+
+	@Test
+	void keysComeDueAtTheirDeadline() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 60, START);
+		wheel.schedule("a", START + 5_000);
+		wheel.schedule("b", START + 12_000);
+
+		assertTrue(wheel.advance(START + 4_000).isEmpty());
+		assertEquals(List.of("a"), wheel.advance(START + 5_000));
+		assertTrue(wheel.advance(START + 11_000).isEmpty());
+		assertEquals(List.of("b"), wheel.advance(START + 12_000));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void farDeadlinesCascadeThroughHigherLevels() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 8, START);
+		// Beyond the span of the first two levels (8 s and 64 s)
+		wheel.schedule("late", START + 200_000);
+
+		assertTrue(wheel.advance(START + 198_000).isEmpty());
+		assertEquals(List.of("late"), wheel.advance(START + 200_000));
+	}
+
+	@Test
+	void cancelledAndRescheduledKeys() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 60, START);
+		wheel.schedule("cancelled", START + 5_000);
+		wheel.schedule("moved", START + 5_000);
+
+		assertTrue(wheel.cancel("cancelled"));
+		wheel.schedule("moved", START + 30_000);
+
+		assertTrue(wheel.advance(START + 10_000).isEmpty());
+		assertEquals(List.of("moved"), wheel.advance(START + 30_000));
+	}
+
+	@Test
+	void overdueKeysAreReturnedByTheNextAdvance() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 60, START);
+		wheel.schedule("overdue", START - 60_000);
+
+		assertEquals(1, wheel.size());
+		assertEquals(List.of("overdue"), wheel.advance(START));
+	}
+
+	@Test
+	void manyTimersAllComeDueExactlyOnce() {
+		TimingWheel<Integer> wheel = new TimingWheel<>(1000, 64, START);
+		int count = 200_000;
+		for (int i = 0; i < count; i++) {
+			wheel.schedule(i, START + 1_000 + (i * 7919L) % 86_400_000L);
+		}
+
+		List<Integer> due = new ArrayList<>();
+		for (long now = START; now <= START + 86_400_000L + 1_000; now += 60_000) {
+			due.addAll(wheel.advance(now));
+		}
+		due.addAll(wheel.advance(START + 86_400_000L + 2_000));
+
+		assertEquals(count, due.size());
+		assertEquals(count, due.stream().distinct().count());
+		assertEquals(0, wheel.size());
+	}
+}
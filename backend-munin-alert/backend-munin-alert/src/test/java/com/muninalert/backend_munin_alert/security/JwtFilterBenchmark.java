@@ -0,0 +1,105 @@
+package com.muninalert.backend_munin_alert.security;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Compares the token handling of {@link JwtRequestFilter} per request.
+ *
+ * <ul>
+ * <li>{@code legacyFilterPath}: what the filter used to do, i.e. build the HMAC key and
+ * parser and verify the token three times (extractUsername, then validateToken, which
+ * extracted the username and the expiration again)</li>
+ * <li>{@code singleParse}: a cache miss, one verification with the shared parser</li>
+ * <li>{@code cachedToken}: a cache hit in {@link JwtTokenCache}, the steady state</li>
+ * </ul>
+ *
+ * Run with:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.muninalert.backend_munin_alert.security.JwtFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+	private static final String SECRET = "yourSecretKeyHereMakeItLongAndSecureAtLeast32CharactersLong";
+
+	private JwtUtil jwtUtil;
+	private JwtTokenCache jwtTokenCache;
+	private UserDetails userDetails;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+		ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+		jwtUtil.init();
+		jwtTokenCache = new JwtTokenCache(jwtUtil, 10_000, 300_000);
+		userDetails = User.withUsername("alice").password("unused").authorities("ROLE_USER").build();
+		token = jwtUtil.generateToken(userDetails);
+		jwtTokenCache.resolveUsername(token);
+	}
+
+	@Benchmark
+	public boolean legacyFilterPath() {
+		String username = legacyClaims(token).getSubject();
+		// validateToken: extractUsername and extractExpiration, each a full parse
+		return username.equals(userDetails.getUsername())
+				&& legacyClaims(token).getSubject().equals(userDetails.getUsername())
+				&& !legacyClaims(token).getExpiration().before(new Date());
+	}
+
+	@Benchmark
+	public String singleParse() {
+		return jwtUtil.extractAllClaims(token).getSubject();
+	}
+
+	@Benchmark
+	public String cachedToken() {
+		return jwtTokenCache.resolveUsername(token).orElseThrow();
+	}
+
+	private static Claims legacyClaims(String token) {
+		Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+		return Jwts.parserBuilder()
+				.setSigningKey(key)
+				.build()
+				.parseClaimsJws(token)
+				.getBody();
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(JwtFilterBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,57 @@
+package com.muninalert.backend_munin_alert.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.muninalert.backend_munin_alert.model.Alert;
+
+class ActiveAlertRegistryTests {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final ActiveAlertRegistry registry = new ActiveAlertRegistry(mongoTemplate,
+			mock(ApplicationEventPublisher.class));
+
+	@Test
+	void alertResolvedWhileAReloadReadsItsSnapshotStaysResolved() {
+		when(mongoTemplate.find(any(Query.class), eq(Alert.class))).thenAnswer(invocation -> {
+			// The snapshot still has the alert as active; the resolution lands while it is being read
+			registry.track(alert("a1", "u1", Alert.AlertStatus.RESOLVED));
+			return List.of(alert("a1", "u1", Alert.AlertStatus.ACTIVE));
+		});
+
+		registry.load();
+
+		assertFalse(registry.hasActiveAlert("u1"));
+	}
+
+	@Test
+	void alertRaisedWhileAReloadReadsItsSnapshotStaysActive() {
+		when(mongoTemplate.find(any(Query.class), eq(Alert.class))).thenAnswer(invocation -> {
+			registry.track(alert("a1", "u1", Alert.AlertStatus.ACTIVE));
+			return List.of();
+		});
+
+		registry.load();
+
+		assertTrue(registry.hasActiveAlert("u1"));
+	}
+
+	private static Alert alert(String id, String userId, Alert.AlertStatus status) {
+		Alert alert = new Alert();
+		alert.setId(id);
+		alert.setUserId(userId);
+		alert.setStatus(status);
+		return alert;
+	}
+}
@@ -0,0 +1,85 @@
+package com.muninalert.backend_munin_alert.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.muninalert.backend_munin_alert.config.AlertExpiryProperties;
+import com.muninalert.backend_munin_alert.model.Alert;
+
+class AlertExpirySchedulerTests {
+
+	private MongoTemplate mongoTemplate;
+	private GroupService groupService;
+	private WebSocketService webSocketService;
+	private AlertExpiryScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		AlertExpiryProperties properties = new AlertExpiryProperties();
+		properties.setTick(Duration.ofMillis(1));
+		properties.setDefaultTtl(Duration.ofMinutes(1));
+		mongoTemplate = mock(MongoTemplate.class);
+		groupService = mock(GroupService.class);
+		webSocketService = mock(WebSocketService.class);
+		scheduler = new AlertExpiryScheduler(properties, mongoTemplate, groupService, webSocketService,
+				mock(ActiveAlertRegistry.class));
+	}
+
+	@Test
+	void onlyTheAlertsThisUpdateExpiredAreBroadcast() throws InterruptedException {
+		Alert expired = alert("a1", null);
+		expired.setStatus(Alert.AlertStatus.EXPIRED);
+		// a2 was resolved in the meantime, so the guarded update does not match it
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(Alert.class))).thenReturn(expired).thenReturn(null);
+
+		scheduler.track(alert("a1", null));
+		scheduler.track(alert("a2", null));
+		Thread.sleep(5);
+		scheduler.expireDue();
+
+		verify(webSocketService).sendAlertStatusUpdate(expired);
+		verify(webSocketService, never()).sendAlertStatusUpdate(eq(null));
+		assertEquals(0, scheduler.getPendingCount());
+	}
+
+	@Test
+	void groupOverrideComesFromTheMembershipIndexAndMustBePositive() throws InterruptedException {
+		when(groupService.findAlertSettings("g1"))
+				.thenReturn(Optional.of(new GroupMembershipIndex.AlertSettings(5, 0)));
+
+		// An override of zero minutes is ignored, so the default TTL of one minute applies
+		Alert alert = alert("a1", "g1");
+		alert.setCreatedAt(System.currentTimeMillis());
+		scheduler.track(alert);
+		Thread.sleep(5);
+		scheduler.expireDue();
+
+		assertEquals(1, scheduler.getPendingCount());
+		verify(groupService, never()).findGroupById(any());
+	}
+
+	private static Alert alert(String id, String groupId) {
+		Alert alert = new Alert();
+		alert.setId(id);
+		alert.setGroupId(groupId);
+		alert.setStatus(Alert.AlertStatus.ACTIVE);
+		alert.setCreatedAt(System.currentTimeMillis() - Duration.ofMinutes(1).toMillis());
+		return alert;
+	}
+}
@@ -0,0 +1,68 @@
+package com.muninalert.backend_munin_alert.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.muninalert.backend_munin_alert.model.Group;
+
+class GroupMembershipIndexTests {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final GroupMembershipIndex index = new GroupMembershipIndex(mongoTemplate);
+
+	@Test
+	void memberRemovedWhileAReloadReadsItsSnapshotStaysRemoved() {
+		when(mongoTemplate.find(any(Query.class), eq(Group.class))).thenAnswer(invocation -> {
+			// The snapshot still has the member; the removal lands while it is being read
+			index.put(group("g1", 1, "u1"));
+			return List.of(group("g1", 0, "u1", "u2"));
+		});
+
+		index.load();
+
+		assertTrue(index.isMember("g1", "u1"));
+		assertFalse(index.isMember("g1", "u2"));
+	}
+
+	@Test
+	void groupDeletedWhileAReloadReadsItsSnapshotStaysDeleted() {
+		when(mongoTemplate.find(any(Query.class), eq(Group.class))).thenAnswer(invocation -> {
+			index.removeGroup("g1");
+			return List.of(group("g1", 0, "u1"));
+		});
+
+		index.load();
+
+		assertFalse(index.isMember("g1", "u1"));
+	}
+
+	@Test
+	void olderDocumentArrivingLateDoesNotReplaceANewerOne() {
+		index.put(group("g1", 2, "u1"));
+		// Result of an earlier add of u2 whose update finished last
+		index.put(group("g1", 1, "u1", "u2"));
+
+		assertTrue(index.isMember("g1", "u1"));
+		assertFalse(index.isMember("g1", "u2"));
+	}
+
+	private static Group group(String id, long updatedAt, String... memberIds) {
+		Group group = new Group();
+		group.setId(id);
+		group.setOwnerId(memberIds[0]);
+		group.setMemberIds(new ArrayList<>(List.of(memberIds)));
+		group.setUpdatedAt(updatedAt);
+		return group;
+	}
+}
@@ -0,0 +1,101 @@
+package com.muninalert.backend_munin_alert.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import com.muninalert.backend_munin_alert.cluster.ClusterFanout;
+import com.muninalert.backend_munin_alert.config.LocationCoalescingProperties;
+import com.muninalert.backend_munin_alert.model.Location;
+
+class LocationUpdateCoalescerTests {
+
+	private ClusterFanout clusterFanout;
+	private ActiveAlertRegistry activeAlertRegistry;
+	private LocationUpdateCoalescer coalescer;
+	private long now;
+
+	@BeforeEach
+	void setUp() {
+		clusterFanout = mock(ClusterFanout.class);
+		activeAlertRegistry = mock(ActiveAlertRegistry.class);
+		coalescer = new LocationUpdateCoalescer(new LocationCoalescingProperties(), clusterFanout, activeAlertRegistry);
+		now = System.currentTimeMillis();
+	}
+
+	@Test
+	void burstWithinWindowForwardsOnlyTheLatestFix() {
+		for (int i = 0; i < 10; i++) {
+			coalescer.offer("u1", fix(59.9139 + i * 0.001, now + i));
+		}
+		coalescer.flush(now + 100);
+
+		Location latest = fix(59.9139 + 9 * 0.001, now + 9);
+		verify(clusterFanout, times(1)).send(anyString(), any(Object.class));
+		verify(clusterFanout).send(eq("/topic/location/u1"), eq((Object) latest));
+		assertEquals(9L, coalescer.getStats().get("superseded"));
+	}
+
+	@Test
+	void fixesWithinTheWindowWaitAndUnmovedFixesAreSuppressed() {
+		coalescer.offer("u1", fix(59.9139, now));
+		coalescer.flush(now);
+
+		// Moved ~110 m, but the 5 s window has not passed yet
+		coalescer.offer("u1", fix(59.9149, now + 1_000));
+		coalescer.flush(now + 1_000);
+		verify(clusterFanout, times(1)).send(anyString(), any(Object.class));
+
+		coalescer.flush(now + 5_000);
+		verify(clusterFanout, times(2)).send(anyString(), any(Object.class));
+
+		// Moved ~1 m: suppressed until the keep-alive has passed
+		coalescer.offer("u1", fix(59.91491, now + 11_000));
+		coalescer.flush(now + 11_000);
+		verify(clusterFanout, times(2)).send(anyString(), any(Object.class));
+		assertEquals(1L, coalescer.getStats().get("unmoved"));
+	}
+
+	@Test
+	void usersWithAnActiveAlertUseTheShorterWindow() {
+		when(activeAlertRegistry.hasActiveAlert("u1")).thenReturn(true);
+		coalescer.offer("u1", fix(59.9139, now));
+		coalescer.flush(now);
+		coalescer.offer("u1", fix(59.9149, now + 1_000));
+		coalescer.flush(now + 1_000);
+
+		verify(clusterFanout, times(2)).send(eq("/topic/location/u1"), any(Object.class));
+	}
+
+	@Test
+	void inaccurateFixesAreDroppedWhileAGoodFixIsRecent() {
+		coalescer.offer("u1", fix(59.9139, now));
+		coalescer.flush(now);
+
+		Location coarse = fix(59.9239, now + 6_000);
+		coarse.setAccuracy(500);
+		coalescer.offer("u1", coarse);
+		coalescer.flush(now + 6_000);
+
+		verify(clusterFanout, never()).send(anyString(), eq((Object) coarse));
+		assertEquals(1L, coalescer.getStats().get("inaccurate"));
+	}
+
+	private static Location fix(double latitude, long timestamp) {
+		Location location = new Location();
+		location.setCoordinates(new GeoJsonPoint(10.7522, latitude));
+		location.setTimestamp(timestamp);
+		location.setAccuracy(10);
+		return location;
+	}
+}
@@ -0,0 +1,118 @@
+package com.muninalert.backend_munin_alert.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.muninalert.backend_munin_alert.config.AlertCountdownProperties;
+import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.model.PendingAlert;
+
+class PendingAlertSchedulerTests {
+
+	private MongoTemplate mongoTemplate;
+	private AlertService alertService;
+	private WebSocketService webSocketService;
+	private PendingAlertScheduler scheduler;
+	private PendingAlert pending;
+
+	@BeforeEach
+	void setUp() {
+		AlertCountdownProperties properties = new AlertCountdownProperties();
+		properties.setTick(Duration.ofMillis(1));
+		mongoTemplate = mock(MongoTemplate.class);
+		alertService = mock(AlertService.class);
+		webSocketService = mock(WebSocketService.class);
+		scheduler = new PendingAlertScheduler(properties, mongoTemplate, alertService,
+				mock(GroupService.class), webSocketService);
+
+		pending = new PendingAlert();
+		pending.setId("p1");
+		pending.setUserId("u1");
+		pending.setAlert(new Alert());
+		pending.setFireAt(System.currentTimeMillis() - 1_000);
+		when(mongoTemplate.stream(any(Query.class), eq(PendingAlert.class))).thenReturn(Stream.of(pending));
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(PendingAlert.class))).thenReturn(pending);
+	}
+
+	@Test
+	void pendingAlertIsKeptWhenTheAlertCannotBeCreated() throws InterruptedException {
+		when(alertService.findAlertById("p1")).thenReturn(Optional.empty());
+		when(alertService.createAlert(any(Alert.class))).thenThrow(new IllegalStateException("down"));
+
+		fireDue();
+
+		verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(PendingAlert.class));
+		verify(mongoTemplate, never()).remove(any(Query.class), eq(PendingAlert.class));
+		assertEquals(1, scheduler.getPendingCount());
+	}
+
+	@Test
+	void alertCreatedBeforeACrashIsNotCreatedAgain() throws InterruptedException {
+		Alert existing = new Alert();
+		existing.setId("p1");
+		when(alertService.findAlertById("p1")).thenReturn(Optional.of(existing));
+
+		fireDue();
+
+		verify(alertService, never()).createAlert(any(Alert.class));
+		// The earlier attempt may not have announced it
+		verify(webSocketService).broadcastAlert(existing);
+		verify(mongoTemplate).remove(any(Query.class), eq(PendingAlert.class));
+		verify(webSocketService).sendPendingAlertUpdate(pending);
+		assertEquals(PendingAlert.PendingAlertStatus.FIRED, pending.getStatus());
+		assertEquals("p1", pending.getAlertId());
+	}
+
+	@Test
+	void alertThatWasCreatedButNotBroadcastStaysFiringAndIsAnnouncedOnRetry() throws InterruptedException {
+		Alert created = new Alert();
+		created.setId("p1");
+		when(alertService.findAlertById("p1")).thenReturn(Optional.empty()).thenReturn(Optional.of(created));
+		when(alertService.createAlert(any(Alert.class))).thenReturn(created);
+		doThrow(new IllegalStateException("down")).doNothing().when(webSocketService).broadcastAlert(created);
+
+		fireDue();
+
+		// Not handed back to PENDING (where it could be cancelled), only the lease is ended
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(PendingAlert.class));
+		assertEquals(0L, update.getValue().getUpdateObject().get("$set", Document.class).get("firingSince"));
+		assertFalse(update.getValue().getUpdateObject().get("$set", Document.class).containsKey("status"));
+		verify(mongoTemplate, never()).remove(any(Query.class), eq(PendingAlert.class));
+
+		Thread.sleep(5_100);
+		scheduler.fireDue();
+
+		verify(alertService, times(1)).createAlert(any(Alert.class));
+		verify(webSocketService, times(2)).broadcastAlert(created);
+		verify(mongoTemplate).remove(any(Query.class), eq(PendingAlert.class));
+	}
+
+	private void fireDue() throws InterruptedException {
+		scheduler.rebuild();
+		Thread.sleep(5);
+		scheduler.fireDue();
+	}
+}
@@ -0,0 +1,69 @@
+package com.muninalert.backend_munin_alert.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.muninalert.backend_munin_alert.model.Event;
+
+class RecentEventsCacheTests {
+
+	private final RecentEventsCache cache = new RecentEventsCache(10, 100, 60_000);
+
+	@Test
+	void eventStoredDuringALoadIsNotLost() {
+		Event stored = event("e2", 2);
+		// The load reads the database before the new event, which is stored while it runs
+		cache.getRecent("u1", 10, count -> {
+			cache.addAll(List.of(stored));
+			return List.of(event("e1", 1));
+		});
+
+		List<Event> recent = cache.getRecent("u1", 10, count -> List.of(stored, event("e1", 1)));
+		assertEquals(List.of("e2", "e1"), ids(recent));
+	}
+
+	@Test
+	void eventAlreadyLoadedIsNotListedTwice() {
+		Event stored = event("e2", 2);
+		cache.getRecent("u1", 10, count -> List.of(stored, event("e1", 1)));
+		// Merged after a load that already saw it, or saved again under the same ID
+		cache.addAll(List.of(stored));
+		cache.addAll(List.of(event("e2", 2)));
+
+		assertEquals(List.of("e2", "e1"), ids(cache.getRecent("u1", 10, count -> List.of())));
+	}
+
+	@Test
+	void eventDeletedDuringALoadIsNotCached() {
+		cache.getRecent("u1", 10, count -> {
+			// The event is deleted (and the user invalidated) after the load read it
+			cache.invalidate("u1");
+			return List.of(event("e1", 1));
+		});
+
+		assertEquals(List.of(), ids(cache.getRecent("u1", 10, count -> List.of())));
+	}
+
+	@Test
+	void eventsWithTheSameTimestampAreOrderedLikeTheDatabase() {
+		cache.getRecent("u1", 10, count -> List.of(event("e3", 1), event("e1", 1)));
+		cache.addAll(List.of(event("e2", 1)));
+
+		assertEquals(List.of("e3", "e2", "e1"), ids(cache.getRecent("u1", 10, count -> List.of())));
+	}
+
+	private static Event event(String id, long timestamp) {
+		Event event = new Event();
+		event.setId(id);
+		event.setUserId("u1");
+		event.setTimestamp(timestamp);
+		return event;
+	}
+
+	private static List<String> ids(List<Event> events) {
+		return events.stream().map(Event::getId).toList();
+	}
+}
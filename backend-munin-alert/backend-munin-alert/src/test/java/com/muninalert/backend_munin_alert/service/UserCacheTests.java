@@ -0,0 +1,120 @@
+package com.muninalert.backend_munin_alert.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import com.muninalert.backend_munin_alert.model.User;
+import com.muninalert.backend_munin_alert.model.UserPreferences;
+
+class UserCacheTests {
+
+	private final UserCache cache = new UserCache(300_000, 100);
+
+	@Test
+	void loadOverlappingAnInvalidationIsNotCached() {
+		AtomicInteger loads = new AtomicInteger();
+		cache.getByUsername("alice", () -> {
+			loads.incrementAndGet();
+			// The user is updated and invalidated while the old document is being read
+			cache.invalidateByUsername("alice");
+			return Optional.of(user("old-hash"));
+		});
+
+		User reloaded = cache.getByUsername("alice", () -> {
+			loads.incrementAndGet();
+			return Optional.of(user("new-hash"));
+		}).orElseThrow();
+
+		assertEquals(2, loads.get());
+		assertEquals("new-hash", reloaded.getPassword());
+	}
+
+	@Test
+	void mutatingReturnedPreferencesDoesNotChangeTheCachedUser() {
+		cache.getByUsername("alice", () -> Optional.of(user("hash")));
+
+		User returned = cache.getByUsername("alice", Optional::empty).orElseThrow();
+		returned.getPreferences().setLanguage("no");
+		returned.getPreferences().getNotificationPreferences().setPushNotificationsEnabled(false);
+
+		User cached = cache.getByUsername("alice", Optional::empty).orElseThrow();
+		assertEquals("en", cached.getPreferences().getLanguage());
+		assertTrue(cached.getPreferences().getNotificationPreferences().isPushNotificationsEnabled());
+	}
+
+	@Test
+	void everyFieldOfTheUserIsCopied() throws ReflectiveOperationException {
+		User user = populated(User.class);
+		user.setUsername("alice");
+		cache.getByUsername("alice", () -> Optional.of(user));
+
+		User copy = cache.getByUsername("alice", Optional::empty).orElseThrow();
+
+		assertEquals(user, copy);
+		assertNotSame(user.getRoles(), copy.getRoles());
+		assertNotSame(user.getEmergencyContacts(), copy.getEmergencyContacts());
+		assertNotSame(user.getSafeHavens(), copy.getSafeHavens());
+		assertNotSame(user.getLastKnownLocation(), copy.getLastKnownLocation());
+		assertNotSame(user.getPreferences(), copy.getPreferences());
+		assertNotSame(user.getPreferences().getNotificationPreferences(),
+				copy.getPreferences().getNotificationPreferences());
+	}
+
+	/**
+	 * Helper method to create an instance with every field set to a value other than its
+	 * default, so a field the copy leaves out makes the copy unequal.
+	 */
+	private static <T> T populated(Class<T> type) throws ReflectiveOperationException {
+		T instance = type.getDeclaredConstructor().newInstance();
+		for (Field field : type.getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers())) {
+				continue;
+			}
+			field.setAccessible(true);
+			Class<?> fieldType = field.getType();
+			Object value;
+			if (fieldType == String.class) {
+				value = field.getName() + "-value";
+			} else if (fieldType == boolean.class) {
+				value = !field.getBoolean(instance);
+			} else if (fieldType == long.class) {
+				value = 42L;
+			} else if (fieldType == int.class) {
+				value = 42;
+			} else if (fieldType == double.class) {
+				value = 4.2;
+			} else if (fieldType == List.class) {
+				value = new ArrayList<>(List.of(field.getName() + "-value"));
+			} else if (fieldType == GeoJsonPoint.class) {
+				value = new GeoJsonPoint(10.75, 59.91);
+			} else if (fieldType.isEnum()) {
+				Object[] constants = fieldType.getEnumConstants();
+				value = constants[constants.length - 1];
+			} else {
+				value = populated(fieldType);
+			}
+			field.set(instance, value);
+		}
+		return instance;
+	}
+
+	private static User user(String passwordHash) {
+		User user = new User();
+		user.setId("u1");
+		user.setUsername("alice");
+		user.setPassword(passwordHash);
+		user.setPreferences(new UserPreferences());
+		return user;
+	}
+}
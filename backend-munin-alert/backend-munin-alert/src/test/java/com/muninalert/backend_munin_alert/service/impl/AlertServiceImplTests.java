@@ -0,0 +1,167 @@
+package com.muninalert.backend_munin_alert.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.muninalert.backend_munin_alert.model.Alert;
+import com.muninalert.backend_munin_alert.model.AlertResponseRecord;
+import com.muninalert.backend_munin_alert.repository.AlertRepository;
+import com.muninalert.backend_munin_alert.repository.AlertResponseRecordRepository;
+import com.muninalert.backend_munin_alert.repository.KeysetPager;
+import com.muninalert.backend_munin_alert.service.ActiveAlertRegistry;
+import com.muninalert.backend_munin_alert.service.AlertExpiryScheduler;
+
+/**
+ * Runs the response overflow against an in-memory alert document and alert_responses
+ * collection, with saves and trims that can be made to fail.
+ */
+class AlertServiceImplTests {
+
+	private static final int LIMIT = 2;
+
+	private final Alert stored = new Alert();
+	private final Map<String, AlertResponseRecord> records = new TreeMap<>();
+	private boolean failSaves;
+	private boolean failTrims;
+	private AlertServiceImpl service;
+
+	@BeforeEach
+	void setUp() {
+		stored.setId("a1");
+
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(Alert.class))).thenAnswer(invocation -> {
+					Update update = invocation.getArgument(1);
+					stored.getResponses().add((Alert.AlertResponse) update.getUpdateObject()
+							.get("$push", Document.class).get("responses"));
+					stored.setResponseCount(stored.getResponseCount() + 1);
+					return copyOf(stored);
+				});
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Alert.class))).thenAnswer(invocation -> {
+			if (failTrims) {
+				throw new IllegalStateException("down");
+			}
+			Query query = invocation.getArgument(0);
+			if (query.getQueryObject().get("responseCount").equals(stored.getResponseCount())) {
+				List<Alert.AlertResponse> responses = stored.getResponses();
+				stored.setResponses(new ArrayList<>(responses.subList(responses.size() - LIMIT, responses.size())));
+			}
+			return null;
+		});
+
+		AlertRepository alertRepository = mock(AlertRepository.class);
+		when(alertRepository.findById("a1")).thenAnswer(invocation -> Optional.of(copyOf(stored)));
+
+		AlertResponseRecordRepository recordRepository = mock(AlertResponseRecordRepository.class);
+		when(recordRepository.saveAll(anyList())).thenAnswer(invocation -> {
+			if (failSaves) {
+				throw new IllegalStateException("down");
+			}
+			List<AlertResponseRecord> saved = invocation.getArgument(0);
+			saved.forEach(record -> records.put(record.getId(), record));
+			return saved;
+		});
+		when(recordRepository.findByAlertIdOrderByResponseTimestampAsc("a1")).thenAnswer(invocation -> records.values()
+				.stream()
+				.sorted(Comparator.comparingLong(record -> record.getResponse().getTimestamp()))
+				.toList());
+
+		service = new AlertServiceImpl(alertRepository, recordRepository, mock(KeysetPager.class), mongoTemplate,
+				mock(AlertExpiryScheduler.class), mock(ActiveAlertRegistry.class));
+		ReflectionTestUtils.setField(service, "embeddedResponseLimit", LIMIT);
+	}
+
+	@Test
+	void overflowIsStoredAndThenTrimmed() {
+		respond(1, 2, 3);
+
+		Alert alert = service.addResponse("a1", response(4)).orElseThrow();
+
+		assertEquals(List.of("r3", "r4"), messagesOf(alert.getResponses()));
+		assertEquals(List.of("r3", "r4"), messagesOf(stored.getResponses()));
+		assertEquals(List.of("a1:0", "a1:1"), List.copyOf(records.keySet()));
+		assertEquals(List.of("r1", "r2", "r3", "r4"), messagesOf(service.findAlertResponses("a1")));
+	}
+
+	@Test
+	void failedSaveLeavesTheResponsesEmbeddedForTheNextResponseToMove() {
+		respond(1, 2);
+		failSaves = true;
+		respond(3);
+
+		assertEquals(List.of("r1", "r2", "r3"), messagesOf(stored.getResponses()));
+		assertEquals(List.of("r1", "r2", "r3"), messagesOf(service.findAlertResponses("a1")));
+
+		failSaves = false;
+		respond(4);
+
+		assertEquals(List.of("r3", "r4"), messagesOf(stored.getResponses()));
+		assertEquals(List.of("a1:0", "a1:1"), List.copyOf(records.keySet()));
+		assertEquals(List.of("r1", "r2", "r3", "r4"), messagesOf(service.findAlertResponses("a1")));
+	}
+
+	@Test
+	void responsesStoredButNotYetTrimmedAreListedOnce() {
+		respond(1, 2);
+		failTrims = true;
+		respond(3, 4);
+
+		// r1 and r2 are both embedded and stored as records
+		assertEquals(List.of("r1", "r2", "r3", "r4"), messagesOf(stored.getResponses()));
+		assertEquals(List.of("a1:0", "a1:1"), List.copyOf(records.keySet()));
+		assertEquals(List.of("r1", "r2", "r3", "r4"), messagesOf(service.findAlertResponses("a1")));
+
+		failTrims = false;
+		respond(5);
+
+		assertEquals(List.of("r4", "r5"), messagesOf(stored.getResponses()));
+		assertEquals(List.of("a1:0", "a1:1", "a1:2"), List.copyOf(records.keySet()));
+		assertEquals(List.of("r1", "r2", "r3", "r4", "r5"), messagesOf(service.findAlertResponses("a1")));
+	}
+
+	private void respond(int... numbers) {
+		for (int number : numbers) {
+			service.addResponse("a1", response(number));
+		}
+	}
+
+	private static Alert.AlertResponse response(int number) {
+		Alert.AlertResponse response = new Alert.AlertResponse();
+		response.setMessage("r" + number);
+		response.setTimestamp(number);
+		return response;
+	}
+
+	private static Alert copyOf(Alert alert) {
+		Alert copy = new Alert();
+		copy.setId(alert.getId());
+		copy.setResponses(new ArrayList<>(alert.getResponses()));
+		copy.setResponseCount(alert.getResponseCount());
+		return copy;
+	}
+
+	private static List<String> messagesOf(List<Alert.AlertResponse> responses) {
+		return responses.stream().map(Alert.AlertResponse::getMessage).toList();
+	}
+}
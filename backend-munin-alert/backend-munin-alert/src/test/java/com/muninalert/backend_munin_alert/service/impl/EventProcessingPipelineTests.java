@@ -0,0 +1,90 @@
+package com.muninalert.backend_munin_alert.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.muninalert.backend_munin_alert.exception.EventPipelineSaturatedException;
+import com.muninalert.backend_munin_alert.model.Event;
+
+class EventProcessingPipelineTests {
+
+	// One stripe, so every user shares the same worker
+	private final EventProcessingPipeline pipeline = new EventProcessingPipeline(1, 10, 1, 0);
+	private final List<String> processed = new CopyOnWriteArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		pipeline.shutdown();
+	}
+
+	@Test
+	void priorityEventOvertakesOtherUsersButNotItsOwnUsersEarlierEvents() {
+		CountDownLatch release = blockWorker();
+
+		accept("b-standard", "b", Event.EventType.INACTIVITY);
+		accept("a-standard", "a", Event.EventType.INACTIVITY);
+		accept("a-fall", "a", Event.EventType.FALL_DETECTED);
+		accept("a-later", "a", Event.EventType.INACTIVITY);
+		release.countDown();
+
+		pipeline.shutdown();
+		assertEquals(List.of("a-standard", "a-fall", "b-standard", "a-later"), processed);
+		assertEquals(0, pipeline.getInFlightCount());
+	}
+
+	@Test
+	void saturatedLaneRejectsBeforeStoringWhileTheOtherLaneStillAccepts() {
+		CountDownLatch release = blockWorker();
+		// Queued behind x, so it holds the only priority slot
+		accept("a-fall", "a", Event.EventType.FALL_DETECTED);
+
+		assertThrows(EventPipelineSaturatedException.class, () -> pipeline.accept(
+				event("b", Event.EventType.MANUAL_ALERT), () -> { processed.add("stored"); return null; }, saved -> {}));
+		accept("b-standard", "b", Event.EventType.INACTIVITY);
+		release.countDown();
+
+		pipeline.shutdown();
+		assertTrue(processed.containsAll(List.of("a-fall", "b-standard")));
+		assertFalse(processed.contains("stored"));
+	}
+
+	private CountDownLatch blockWorker() {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		pipeline.accept(event("x", Event.EventType.INACTIVITY), () -> null, saved -> {
+			started.countDown();
+			await(release);
+		});
+		await(started);
+		return release;
+	}
+
+	private void accept(String name, String userId, Event.EventType type) {
+		pipeline.accept(event(userId, type), () -> null, saved -> processed.add(name));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Event event(String userId, Event.EventType type) {
+		Event event = new Event();
+		event.setUserId(userId);
+		event.setEventType(type);
+		return event;
+	}
+}
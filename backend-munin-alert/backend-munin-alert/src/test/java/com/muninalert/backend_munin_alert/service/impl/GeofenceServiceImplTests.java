@@ -0,0 +1,65 @@
+package com.muninalert.backend_munin_alert.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import com.muninalert.backend_munin_alert.model.Event;
+import com.muninalert.backend_munin_alert.model.Location;
+import com.muninalert.backend_munin_alert.model.SafeHaven;
+import com.muninalert.backend_munin_alert.repository.EventRepository;
+import com.muninalert.backend_munin_alert.service.RecentEventsCache;
+import com.muninalert.backend_munin_alert.service.RiskAlertService;
+import com.muninalert.backend_munin_alert.service.SafeHavenService;
+import com.muninalert.backend_munin_alert.service.WebSocketService;
+
+class GeofenceServiceImplTests {
+
+	private SafeHavenService safeHavenService;
+	private GeofenceServiceImpl service;
+
+	@BeforeEach
+	void setUp() {
+		safeHavenService = mock(SafeHavenService.class);
+		EventRepository eventRepository = mock(EventRepository.class);
+		when(eventRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+		service = new GeofenceServiceImpl(safeHavenService, mock(RiskAlertService.class), eventRepository,
+				mock(WebSocketService.class), mock(RecentEventsCache.class));
+
+		SafeHaven home = new SafeHaven();
+		home.setId("home");
+		when(safeHavenService.findSafeHavensContainingLocation(eq("u1"), eq(59.0), eq(10.0)))
+				.thenReturn(List.of(home));
+	}
+
+	@Test
+	void fixOlderThanTheLastEvaluatedOneIsIgnored() {
+		List<Event> entered = service.evaluateLocation("u1", location(59.0, 10.0, 2_000));
+		assertEquals(Event.EventType.ENTER_SAFEHAVEN, entered.get(0).getEventType());
+
+		// Delivered late from before the user arrived; it must not produce an EXIT
+		assertTrue(service.evaluateLocation("u1", location(60.0, 11.0, 1_000)).isEmpty());
+		assertTrue(service.isInsideSafeHaven("u1"));
+
+		List<Event> left = service.evaluateLocation("u1", location(60.0, 11.0, 3_000));
+		assertEquals(Event.EventType.EXIT_SAFEHAVEN, left.get(0).getEventType());
+		assertFalse(service.isInsideSafeHaven("u1"));
+	}
+
+	private static Location location(double latitude, double longitude, long timestamp) {
+		Location location = new Location();
+		location.setCoordinates(new GeoJsonPoint(longitude, latitude));
+		location.setTimestamp(timestamp);
+		return location;
+	}
+}
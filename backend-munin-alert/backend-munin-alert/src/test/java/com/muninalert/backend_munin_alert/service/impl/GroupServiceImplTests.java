@@ -0,0 +1,79 @@
+package com.muninalert.backend_munin_alert.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.muninalert.backend_munin_alert.model.Group;
+import com.muninalert.backend_munin_alert.repository.GroupRepository;
+import com.muninalert.backend_munin_alert.service.GroupMembershipIndex;
+
+class GroupServiceImplTests {
+
+	private MongoTemplate mongoTemplate;
+	private GroupMembershipIndex index;
+	private GroupServiceImpl groupService;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.find(any(Query.class), eq(Group.class))).thenReturn(List.of());
+		index = new GroupMembershipIndex(mongoTemplate);
+		index.load();
+		groupService = new GroupServiceImpl(mock(GroupRepository.class), index, mongoTemplate);
+	}
+
+	@Test
+	void memberKnownToTheIndexIsAnsweredWithoutMongo() {
+		index.put(group("g1", 1, "u1"));
+
+		assertTrue(groupService.isMember("g1", "u1"));
+		verify(mongoTemplate, never()).findOne(any(Query.class), eq(Group.class));
+	}
+
+	@Test
+	void groupCreatedOnAnotherNodeIsReadFromMongoAndIndexed() {
+		when(mongoTemplate.findOne(any(Query.class), eq(Group.class))).thenReturn(group("g1", 1, "u1"));
+
+		assertTrue(groupService.isMember("g1", "u1"));
+		assertTrue(index.isMember("g1", "u1"));
+	}
+
+	@Test
+	void memberAddedOnAnotherNodeIsConfirmedAgainstMongo() {
+		index.put(group("g1", 1, "u1"));
+		when(mongoTemplate.findOne(any(Query.class), eq(Group.class))).thenReturn(group("g1", 2, "u1", "u2"));
+
+		assertTrue(groupService.isMember("g1", "u2"));
+		assertTrue(index.isMember("g1", "u2"));
+	}
+
+	@Test
+	void unknownGroupIsDenied() {
+		assertFalse(groupService.isMember("g1", "u1"));
+		assertFalse(groupService.isOwnerOrAdmin("g1", "u1"));
+		assertFalse(groupService.isMember(null, "u1"));
+	}
+
+	private static Group group(String id, long updatedAt, String... memberIds) {
+		Group group = new Group();
+		group.setId(id);
+		group.setOwnerId(memberIds[0]);
+		group.setMemberIds(new ArrayList<>(List.of(memberIds)));
+		group.setUpdatedAt(updatedAt);
+		return group;
+	}
+}
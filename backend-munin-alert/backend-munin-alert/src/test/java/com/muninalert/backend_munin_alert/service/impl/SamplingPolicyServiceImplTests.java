@@ -0,0 +1,121 @@
+package com.muninalert.backend_munin_alert.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import com.muninalert.backend_munin_alert.config.SamplingPolicyProperties;
+import com.muninalert.backend_munin_alert.dto.SamplingPolicyMessage;
+import com.muninalert.backend_munin_alert.model.Location;
+import com.muninalert.backend_munin_alert.model.RiskAlert;
+import com.muninalert.backend_munin_alert.service.ActiveAlertRegistry;
+import com.muninalert.backend_munin_alert.service.GeofenceService;
+import com.muninalert.backend_munin_alert.service.RiskAlertService;
+import com.muninalert.backend_munin_alert.service.WebSocketService;
+
+class SamplingPolicyServiceImplTests {
+
+	private ActiveAlertRegistry activeAlertRegistry;
+	private GeofenceService geofenceService;
+	private RiskAlertService riskAlertService;
+	private WebSocketService webSocketService;
+	private SamplingPolicyServiceImpl service;
+
+	@BeforeEach
+	void setUp() {
+		activeAlertRegistry = mock(ActiveAlertRegistry.class);
+		geofenceService = mock(GeofenceService.class);
+		riskAlertService = mock(RiskAlertService.class);
+		webSocketService = mock(WebSocketService.class);
+		service = new SamplingPolicyServiceImpl(new SamplingPolicyProperties(), activeAlertRegistry,
+				geofenceService, riskAlertService, webSocketService);
+	}
+
+	@Test
+	void mostUrgentSituationDecidesThePolicy() {
+		when(activeAlertRegistry.hasActiveAlert("u1")).thenReturn(true);
+		when(riskAlertService.findActiveRiskAlertsWithinMargin(anyDouble(), anyDouble(), anyDouble()))
+				.thenReturn(List.of(new RiskAlert()));
+		when(geofenceService.isInsideSafeHaven("u1")).thenReturn(true);
+		assertEquals(SamplingPolicyMessage.Reason.ACTIVE_ALERT, service.evaluate("u1", location(100)).getReason());
+
+		when(activeAlertRegistry.hasActiveAlert("u1")).thenReturn(false);
+		assertEquals(SamplingPolicyMessage.Reason.RISK_AREA, service.evaluate("u1", location(100)).getReason());
+
+		when(riskAlertService.findActiveRiskAlertsWithinMargin(anyDouble(), anyDouble(), anyDouble()))
+				.thenReturn(List.of());
+		assertEquals(SamplingPolicyMessage.Reason.POOR_ACCURACY, service.evaluate("u1", location(100)).getReason());
+
+		assertEquals(SamplingPolicyMessage.Reason.SAFE_HAVEN, service.evaluate("u1", location(10)).getReason());
+
+		when(geofenceService.isInsideSafeHaven("u1")).thenReturn(false);
+		assertEquals(SamplingPolicyMessage.Reason.DEFAULT, service.evaluate("u1", location(10)).getReason());
+	}
+
+	@Test
+	void policyIsOnlyPushedWhenItChanges() {
+		service.evaluate("u1", location(10));
+		service.evaluate("u1", location(10));
+		verify(webSocketService, times(1)).sendSamplingPolicy(any(SamplingPolicyMessage.class));
+
+		when(activeAlertRegistry.hasActiveAlert("u1")).thenReturn(true);
+		service.evaluate("u1", location(10));
+		verify(webSocketService, times(2)).sendSamplingPolicy(any(SamplingPolicyMessage.class));
+	}
+
+	@Test
+	void failedPushIsRetriedOnTheNextEvaluation() {
+		doThrow(new IllegalStateException("down")).doNothing()
+				.when(webSocketService).sendSamplingPolicy(any(SamplingPolicyMessage.class));
+
+		service.evaluate("u1", location(10));
+		service.evaluate("u1", location(10));
+
+		verify(webSocketService, times(2)).sendSamplingPolicy(any(SamplingPolicyMessage.class));
+	}
+
+	@Test
+	void currentPolicyIsSentToANewSubscription() {
+		SamplingPolicyMessage policy = service.evaluate("u1", location(10));
+
+		service.onSubscribe(subscribe("u1", "/user/queue/sampling-policy"));
+		service.onSubscribe(subscribe("u1", "/user/queue/notifications"));
+		service.onSubscribe(subscribe("u2", "/user/queue/sampling-policy"));
+
+		verify(webSocketService, times(2)).sendSamplingPolicy(policy);
+		verify(webSocketService, never()).sendSamplingPolicy(argThat(sent -> "u2".equals(sent.getUserId())));
+	}
+
+	private static Location location(double accuracy) {
+		Location location = new Location();
+		location.setCoordinates(new GeoJsonPoint(10.75, 59.91));
+		location.setAccuracy(accuracy);
+		return location;
+	}
+
+	private static SessionSubscribeEvent subscribe(String userId, String destination) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+		accessor.setDestination(destination);
+		Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+		return new SessionSubscribeEvent(new Object(), message, new UsernamePasswordAuthenticationToken(userId, null));
+	}
+}
@@ -122,8 +122,24 @@ export const subscribeToGroupMessages = (groupId, callback) => {
 };
 
 // Subscribe to personal notifications
-export const subscribeToPersonalNotifications = (userId, callback) => {
-  return subscribe(`/queue/user/${userId}/notifications`, callback);
+// Private queues are user destinations: the server routes them to this session's user
+export const subscribeToPersonalNotifications = (callback) => {
+  return subscribe('/user/queue/notifications', callback);
+};
+
+// Subscribe to direct messages
+export const subscribeToDirectMessages = (callback) => {
+  return subscribe('/user/queue/messages', callback);
+};
+
+// Subscribe to the countdowns of own pending alerts
+export const subscribeToPendingAlerts = (callback) => {
+  return subscribe('/user/queue/pending-alerts', callback);
+};
+
+// Subscribe to the recommended location reporting policy
+export const subscribeToSamplingPolicy = (callback) => {
+  return subscribe('/user/queue/sampling-policy', callback);
 };
 
 // Send location update
@@ -141,6 +157,11 @@ export const sendAlertResponse = (alertId, response) => {
   return sendMessage(`/app/alert/response/${alertId}`, response);
 };
 
+// Cancel an alert countdown
+export const cancelPendingAlert = (pendingAlertId) => {
+  return sendMessage(`/app/alert/cancel/${pendingAlertId}`, {});
+};
+
 // Send group message
 export const sendGroupMessage = (groupId, message) => {
   return sendMessage(`/app/group/${groupId}`, message);